@@ -0,0 +1,115 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.entity.DispenseBatch;
+import com.lab.reagentdispenser.entity.DispenseOperation;
+import com.lab.reagentdispenser.entity.Plate;
+import com.lab.reagentdispenser.entity.Reagent;
+import com.lab.reagentdispenser.entity.Well;
+import com.lab.reagentdispenser.repository.PlateRepository;
+import com.lab.reagentdispenser.repository.ReagentRepository;
+import com.lab.reagentdispenser.repository.WellRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// In-memory plates, batches and a loaded PlateStateEngine for the benchmarks. Repositories are stubs that
+// are only hit while the engine loads its state, so measured calls never leave memory.
+final class BenchmarkPlates {
+
+	static final long REAGENT_ID = 1L;
+
+	private BenchmarkPlates() {
+	}
+
+	static PlateFormat format(int wells) {
+		for (PlateFormat format : PlateFormat.values()) {
+			if (format.getWellCount() == wells) {
+				return format;
+			}
+		}
+		throw new IllegalArgumentException("No plate format with " + wells + " wells");
+	}
+
+	static Plate plate(PlateFormat format) {
+		Plate plate = Plate.builder()
+				.id(1L)
+				.barcode("BENCH-" + format.getType())
+				.rows(format.getRows())
+				.columns(format.getColumns())
+				.plateType(format.getType())
+				.build();
+		for (int index = 0; index < format.getWellCount(); index++) {
+			plate.getWells().add(Well.builder()
+					.id(index + 1L)
+					.position(format.positionOf(index))
+					.plate(plate)
+					.volume(0.0)
+					.maxVolume(format.getMaxWellVolume())
+					.version(0L)
+					.build());
+		}
+		return plate;
+	}
+
+	static Reagent reagent() {
+		return Reagent.builder()
+				.id(REAGENT_ID)
+				.name("Buffer A")
+				.stockVolume(1_000_000.0)
+				.version(0L)
+				.build();
+	}
+
+	// A batch dispensing into every well of the plate, half of it already completed
+	static DispenseBatch batch(Plate plate, Reagent reagent) {
+		DispenseBatch batch = DispenseBatch.builder()
+				.id(1L)
+				.plate(plate)
+				.status(DispenseBatch.BatchStatus.EXECUTING)
+				.executionStartedDate(LocalDateTime.now())
+				.build();
+		List<DispenseOperation> operations = new ArrayList<>();
+		List<Well> wells = plate.getWells();
+		for (int i = 0; i < wells.size(); i++) {
+			boolean completed = i < wells.size() / 2;
+			operations.add(DispenseOperation.builder()
+					.id(i + 1L)
+					.plate(plate)
+					.well(wells.get(i))
+					.reagent(reagent)
+					.batch(batch)
+					.volumeDispensed(1.0)
+					.status(completed ? DispenseOperation.OperationStatus.COMPLETED : DispenseOperation.OperationStatus.PENDING)
+					.completedDate(completed ? LocalDateTime.now() : null)
+					.build());
+		}
+		batch.setOperations(operations);
+		batch.setProgressCursor(wells.size() / 2);
+		return batch;
+	}
+
+	static PlateStateEngine engine(Plate plate, Reagent reagent) {
+		PlateRepository plateRepository = mock(PlateRepository.class);
+		WellRepository wellRepository = mock(WellRepository.class);
+		ReagentRepository reagentRepository = mock(ReagentRepository.class);
+		when(plateRepository.findByBarcode(plate.getBarcode())).thenReturn(Optional.of(plate));
+		when(wellRepository.findByPlate(any(Plate.class))).thenReturn(plate.getWells());
+		when(reagentRepository.findById(reagent.getId())).thenReturn(Optional.of(reagent));
+
+		PlateStateEngine engine = new PlateStateEngine(
+				plateRepository, wellRepository, reagentRepository, mock(JdbcTemplate.class), new SimpleMeterRegistry(),
+				mock(PlatformTransactionManager.class));
+		// Loads the plate state and the reagent balance
+		engine.validateDispense(engine.getPlateState(plate.getBarcode()), 0, reagent.getId(), 0.0);
+		return engine;
+	}
+}
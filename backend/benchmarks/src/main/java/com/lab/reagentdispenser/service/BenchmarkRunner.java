@@ -0,0 +1,121 @@
+package com.lab.reagentdispenser.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Runs the benchmarks and compares each average time with the recorded baseline, exiting with status 1
+// when one is slower by more than the tolerance. Baselines are machine specific: record them on the
+// machine that runs the comparison.
+//
+//   java -jar target/benchmarks.jar [--record] [--baseline <file>] [--tolerance <fraction>] [JMH options...]
+public final class BenchmarkRunner {
+
+	private static final String DEFAULT_BASELINE = "baseline/baseline.json";
+	private static final double DEFAULT_TOLERANCE = 0.25;
+
+	private BenchmarkRunner() {
+	}
+
+	public static void main(String[] args) throws IOException, RunnerException, CommandLineOptionException {
+		boolean record = false;
+		Path baselineFile = Path.of(DEFAULT_BASELINE);
+		double tolerance = DEFAULT_TOLERANCE;
+		List<String> jmhArgs = new ArrayList<>();
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+				case "--record" -> record = true;
+				case "--baseline" -> baselineFile = Path.of(args[++i]);
+				case "--tolerance" -> tolerance = Double.parseDouble(args[++i]);
+				default -> jmhArgs.add(args[i]);
+			}
+		}
+
+		CommandLineOptions jmhOptions = new CommandLineOptions(jmhArgs.toArray(new String[0]));
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(jmhOptions);
+		if (jmhOptions.getIncludes().isEmpty()) {
+			options.include(BenchmarkRunner.class.getPackageName() + "\\..*Benchmark\\..*");
+		}
+		Map<String, Result<?>> results = scores(new Runner(options.build()).run());
+
+		ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+		if (record) {
+			ObjectNode baseline = objectMapper.createObjectNode();
+			results.forEach((name, result) -> baseline.putObject(name)
+					.put("score", result.getScore())
+					.put("error", result.getScoreError())
+					.put("unit", result.getScoreUnit()));
+			if (baselineFile.getParent() != null) {
+				Files.createDirectories(baselineFile.getParent());
+			}
+			objectMapper.writeValue(baselineFile.toFile(), baseline);
+			System.out.println("Recorded " + results.size() + " baseline(s) in " + baselineFile);
+			return;
+		}
+
+		if (!Files.exists(baselineFile)) {
+			System.out.println("No baseline at " + baselineFile + "; run with --record to create one");
+			return;
+		}
+		if (!compare(results, objectMapper.readTree(baselineFile.toFile()), tolerance)) {
+			System.exit(1);
+		}
+	}
+
+	// Keyed by benchmark class and method plus parameters, e.g. "DtoConversionBenchmark.convertToDTO:wells=96"
+	private static Map<String, Result<?>> scores(Collection<RunResult> runResults) {
+		Map<String, Result<?>> results = new TreeMap<>();
+		for (RunResult runResult : runResults) {
+			String benchmark = runResult.getParams().getBenchmark();
+			StringBuilder name = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+			for (String param : runResult.getParams().getParamsKeys()) {
+				name.append(':').append(param).append('=').append(runResult.getParams().getParam(param));
+			}
+			results.put(name.toString(), runResult.getPrimaryResult());
+		}
+		return results;
+	}
+
+	private static boolean compare(Map<String, Result<?>> results, JsonNode baseline, double tolerance) {
+		boolean passed = true;
+		System.out.printf("%n%-70s %12s %12s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+		for (Map.Entry<String, Result<?>> entry : results.entrySet()) {
+			JsonNode recorded = baseline.get(entry.getKey());
+			double current = entry.getValue().getScore();
+			if (recorded == null) {
+				System.out.printf("%-70s %12s %12.3f %9s%n", entry.getKey(), "-", current, "new");
+				continue;
+			}
+			if (!recorded.path("unit").asText().equals(entry.getValue().getScoreUnit())) {
+				throw new IllegalStateException("Unit of " + entry.getKey() + " changed since the baseline was recorded");
+			}
+			double change = current / recorded.path("score").asDouble() - 1.0;
+			boolean regressed = change > tolerance;
+			System.out.printf("%-70s %12.3f %12.3f %+8.1f%%%s%n", entry.getKey(), recorded.path("score").asDouble(),
+					current, change * 100, regressed ? "  REGRESSION" : "");
+			passed &= !regressed;
+		}
+		System.out.println(passed
+				? "No benchmark is slower than its baseline by more than " + Math.round(tolerance * 100) + "%"
+				: "Some benchmarks are slower than their baseline by more than " + Math.round(tolerance * 100) + "%");
+		return passed;
+	}
+}
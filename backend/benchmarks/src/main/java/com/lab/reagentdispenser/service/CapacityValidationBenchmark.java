@@ -0,0 +1,79 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.entity.Plate;
+import com.lab.reagentdispenser.entity.Reagent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Capacity and stock checks for a dispense into every well of a plate: per well as createOperation does,
+// and for a whole dispense map as reserveAll does before planning a batch
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CapacityValidationBenchmark {
+
+	@Param({"96", "384", "1536"})
+	private int wells;
+
+	private PlateStateEngine engine;
+	private PlateState state;
+	private String[] positions;
+	private double[] wellDemand;
+	private Map<Long, Double> reagentDemand;
+
+	@Setup
+	public void setUp() {
+		PlateFormat format = BenchmarkPlates.format(wells);
+		Plate plate = BenchmarkPlates.plate(format);
+		Reagent reagent = BenchmarkPlates.reagent();
+		engine = BenchmarkPlates.engine(plate, reagent);
+		state = engine.getPlateState(plate.getBarcode());
+
+		positions = new String[format.getWellCount()];
+		wellDemand = new double[format.getWellCount()];
+		for (int index = 0; index < positions.length; index++) {
+			positions[index] = format.positionOf(index);
+			wellDemand[index] = 1.0;
+		}
+		reagentDemand = Map.of(BenchmarkPlates.REAGENT_ID, (double) positions.length);
+	}
+
+	@Benchmark
+	public void checkCapacity() {
+		for (int index = 0; index < positions.length; index++) {
+			state.checkCapacity(index, 1.0);
+		}
+	}
+
+	@Benchmark
+	public void validateDispenseByPosition() {
+		for (String position : positions) {
+			engine.validateDispense(state, engine.findWellIndex(state, position), BenchmarkPlates.REAGENT_ID, 1.0);
+		}
+	}
+
+	// Reserves and releases again so every invocation sees the same empty plate; outside a transaction
+	// reserveAll registers no rollback hook
+	@Benchmark
+	public void reserveAndReleaseDispenseMap() {
+		engine.reserveAll(state, wellDemand, reagentDemand);
+		for (int index = 0; index < positions.length; index++) {
+			engine.release(state.getPlateId(), positions[index], BenchmarkPlates.REAGENT_ID, 1.0);
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.dto.DispenseBatchDTO;
+import com.lab.reagentdispenser.dto.DispenseOperationDTO;
+import com.lab.reagentdispenser.entity.DispenseBatch;
+import com.lab.reagentdispenser.entity.DispenseOperation;
+import com.lab.reagentdispenser.entity.Plate;
+import com.lab.reagentdispenser.entity.Reagent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Entity to DTO conversion as done for every operation returned by the API: convertToDTO looks up the
+// current well volume in the plate state engine, convertBatchToDTO converts all operations of a batch
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoConversionBenchmark {
+
+	@Param({"96", "384", "1536"})
+	private int wells;
+
+	private DispenseService dispenseService;
+	private DispenseBatch batch;
+	private DispenseOperation lastOperation;
+
+	@Setup
+	public void setUp() {
+		Plate plate = BenchmarkPlates.plate(BenchmarkPlates.format(wells));
+		Reagent reagent = BenchmarkPlates.reagent();
+		batch = BenchmarkPlates.batch(plate, reagent);
+		lastOperation = batch.getOperations().get(batch.getOperations().size() - 1);
+		dispenseService = new DispenseService(null, null, null, null, null, null, null,
+				BenchmarkPlates.engine(plate, reagent), null, null, null);
+	}
+
+	@Benchmark
+	public DispenseOperationDTO convertToDTO() {
+		return dispenseService.convertToDTO(lastOperation);
+	}
+
+	@Benchmark
+	public DispenseBatchDTO convertBatchToDTO() {
+		return dispenseService.convertBatchToDTO(batch);
+	}
+}
@@ -0,0 +1,87 @@
+package com.lab.reagentdispenser.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lab.reagentdispenser.dto.DispenseBatchDTO;
+import com.lab.reagentdispenser.dto.DispenseEventDTO;
+import com.lab.reagentdispenser.dto.DispenseEventFrameDTO;
+import com.lab.reagentdispenser.entity.DispenseBatch;
+import com.lab.reagentdispenser.entity.DispenseOperation;
+import com.lab.reagentdispenser.entity.Plate;
+import com.lab.reagentdispenser.entity.Reagent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Serialises the WebSocket event frame for one update of every well of a batch, and for comparison the
+// full batch DTO the REST API returns. The mapper is configured like the STOMP message converter's.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventSerializationBenchmark {
+
+	@Param({"96", "384", "1536"})
+	private int wells;
+
+	private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+	private DispenseEventFrameDTO frame;
+	private DispenseBatchDTO batchDTO;
+
+	@Setup
+	public void setUp() {
+		Plate plate = BenchmarkPlates.plate(BenchmarkPlates.format(wells));
+		Reagent reagent = BenchmarkPlates.reagent();
+		DispenseBatch batch = BenchmarkPlates.batch(plate, reagent);
+
+		List<DispenseEventDTO> events = new ArrayList<>();
+		long seq = 0;
+		for (DispenseOperation operation : batch.getOperations()) {
+			boolean completed = operation.getStatus() == DispenseOperation.OperationStatus.COMPLETED;
+			events.add(DispenseEventDTO.builder()
+					.seq(++seq)
+					.opId(operation.getId())
+					.batchId(batch.getId())
+					.plateId(plate.getId())
+					.well(operation.getWell().getPosition())
+					.status(operation.getStatus().name())
+					.wellVolume(completed ? operation.getVolumeDispensed() : null)
+					.build());
+		}
+		frame = DispenseEventFrameDTO.builder()
+				.prevSeq(0L)
+				.toSeq(seq)
+				.events(events)
+				.build();
+
+		DispenseService dispenseService = new DispenseService(null, null, null, null, null, null, null,
+				BenchmarkPlates.engine(plate, reagent), null, null, null);
+		batchDTO = dispenseService.convertBatchToDTO(batch);
+	}
+
+	@Benchmark
+	public byte[] serializeEventFrame() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(frame);
+	}
+
+	@Benchmark
+	public byte[] serializeBatchDTO() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(batchDTO);
+	}
+}
@@ -0,0 +1,144 @@
+package com.lab.reagentdispenser.service;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Cold-start times of the runnable backend jar for each datastore setup. Every run starts a new JVM and
+// measures the time until /actuator/health answers 200, then shuts the application down.
+//
+//   mem             default profile: in-memory H2 created from schema.sql and data.sql
+//   h2file-new      h2file profile on an empty directory: Flyway creates the schema
+//   h2file-restart  h2file profile on an existing, migrated database
+//
+//   java -cp target/benchmarks.jar com.lab.reagentdispenser.service.StartupBenchmark
+//        [--jar <exec jar>] [--runs <n>] [--timeout-seconds <n>] [JVM options...]
+public final class StartupBenchmark {
+
+	private static final String DEFAULT_JAR = "../target/reagent-dispenser-backend-0.1.0-exec.jar";
+
+	private final Path jar;
+	private final List<String> jvmOptions;
+	private final Duration timeout;
+	private final HttpClient httpClient = HttpClient.newBuilder()
+			.connectTimeout(Duration.ofMillis(200))
+			.build();
+
+	private StartupBenchmark(Path jar, List<String> jvmOptions, Duration timeout) {
+		this.jar = jar;
+		this.jvmOptions = jvmOptions;
+		this.timeout = timeout;
+	}
+
+	public static void main(String[] args) throws Exception {
+		Path jar = Path.of(DEFAULT_JAR);
+		int runs = 5;
+		long timeoutSeconds = 120;
+		List<String> jvmOptions = new ArrayList<>();
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+				case "--jar" -> jar = Path.of(args[++i]);
+				case "--runs" -> runs = Integer.parseInt(args[++i]);
+				case "--timeout-seconds" -> timeoutSeconds = Long.parseLong(args[++i]);
+				default -> jvmOptions.add(args[i]);
+			}
+		}
+		if (!Files.exists(jar)) {
+			System.err.println("No backend jar at " + jar + "; build it with mvn package in backend");
+			System.exit(2);
+		}
+
+		StartupBenchmark benchmark = new StartupBenchmark(jar, jvmOptions, Duration.ofSeconds(timeoutSeconds));
+		Path workDir = Files.createTempDirectory("startup-benchmark");
+		Path existingStore = workDir.resolve("existing");
+		// Creates and migrates the database reused by the restart runs
+		benchmark.start(workDir, datastoreArgs(existingStore));
+
+		System.out.printf("%-16s %6s %10s %10s %10s%n", "Datastore", "Runs", "Min (ms)", "Median", "Max");
+		benchmark.report("mem", runs, workDir, List::of);
+		int[] fresh = {0};
+		benchmark.report("h2file-new", runs, workDir,
+				() -> datastoreArgs(workDir.resolve("new-" + fresh[0]++)));
+		benchmark.report("h2file-restart", runs, workDir, () -> datastoreArgs(existingStore));
+		System.out.println("Application logs: " + workDir);
+	}
+
+	private static List<String> datastoreArgs(Path directory) {
+		return List.of("--spring.profiles.active=h2file", "--dispenser.datastore.dir=" + directory);
+	}
+
+	private void report(String name, int runs, Path workDir, Supplier<List<String>> appArgs) throws Exception {
+		long[] millis = new long[runs];
+		for (int i = 0; i < runs; i++) {
+			millis[i] = start(workDir, appArgs.get());
+		}
+		Arrays.sort(millis);
+		System.out.printf("%-16s %6d %10d %10d %10d%n", name, runs, millis[0], millis[runs / 2], millis[runs - 1]);
+	}
+
+	// Starts the jar, waits until it is healthy and stops it; returns the milliseconds until healthy
+	private long start(Path workDir, List<String> appArgs) throws Exception {
+		int port = freePort();
+		List<String> command = new ArrayList<>();
+		command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		command.addAll(jvmOptions);
+		command.add("-jar");
+		command.add(jar.toAbsolutePath().toString());
+		command.add("--server.port=" + port);
+		command.addAll(appArgs);
+
+		Path log = Files.createTempFile(workDir, "app-", ".log");
+		long startNanos = System.nanoTime();
+		Process process = new ProcessBuilder(command)
+				.redirectErrorStream(true)
+				.redirectOutput(log.toFile())
+				.start();
+		try {
+			HttpRequest health = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/actuator/health"))
+					.timeout(Duration.ofSeconds(1))
+					.build();
+			long deadline = startNanos + timeout.toNanos();
+			while (System.nanoTime() < deadline) {
+				if (!process.isAlive()) {
+					throw new IllegalStateException("Application exited with status " + process.exitValue() + ", see " + log);
+				}
+				if (isHealthy(health)) {
+					return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+				}
+				Thread.sleep(20);
+			}
+			throw new IllegalStateException("Application not healthy after " + timeout.toSeconds() + "s, see " + log);
+		} finally {
+			// Graceful shutdown, so the file database is closed before the next run opens it
+			process.destroy();
+			if (!process.waitFor(30, TimeUnit.SECONDS)) {
+				process.destroyForcibly().waitFor();
+			}
+		}
+	}
+
+	private boolean isHealthy(HttpRequest health) throws InterruptedException {
+		try {
+			return httpClient.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}
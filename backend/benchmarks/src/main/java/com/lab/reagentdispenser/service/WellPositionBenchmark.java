@@ -0,0 +1,65 @@
+package com.lab.reagentdispenser.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Parses and generates every position of a plate, as plate creation, dispense map import and the plate
+// state lookups do
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WellPositionBenchmark {
+
+	@Param({"96", "384", "1536"})
+	private int wells;
+
+	private PlateFormat format;
+	private String[] positions;
+
+	@Setup
+	public void setUp() {
+		format = BenchmarkPlates.format(wells);
+		positions = new String[format.getWellCount()];
+		for (int index = 0; index < positions.length; index++) {
+			positions[index] = format.positionOf(index);
+		}
+	}
+
+	@Benchmark
+	public void parsePositions(Blackhole blackhole) {
+		for (String position : positions) {
+			blackhole.consume(format.indexOf(position));
+		}
+	}
+
+	@Benchmark
+	public void generatePositions(Blackhole blackhole) {
+		for (int row = 0; row < format.getRows(); row++) {
+			for (int column = 0; column < format.getColumns(); column++) {
+				blackhole.consume(WellPosition.of(row, column));
+			}
+		}
+	}
+
+	@Benchmark
+	public void lookupPositions(Blackhole blackhole) {
+		for (int index = 0; index < positions.length; index++) {
+			blackhole.consume(format.positionOf(index));
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package com.lab.reagentdispenser.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Read caches for plate and reagent metadata. Volumes are never cached: well volumes and reagent stock
+// change with every dispense and come from PlateStateEngine. Each cache holds at most
+// dispenser.cache.max-size entries for dispenser.cache.ttl-seconds. Puts and evictions made inside a
+// transaction are applied after it commits, so a rolled-back change never reaches a cache.
+// Hit and miss counts are published as cache.gets.
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+	public static final String PLATES = "plates";
+	public static final String PLATES_BY_BARCODE = "platesByBarcode";
+	public static final String PLATE_LIST = "plateList";
+	public static final String REAGENTS = "reagents";
+	public static final String REAGENT_LIST = "reagentList";
+
+	@Bean
+	public CacheManager cacheManager(
+			@Value("${dispenser.cache.max-size:10000}") long maxSize,
+			@Value("${dispenser.cache.ttl-seconds:600}") long ttlSeconds) {
+		CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+		cacheManager.setCaffeine(Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+				.recordStats());
+		// A fixed set of caches, created eagerly so their metrics are registered at startup
+		cacheManager.setCacheNames(List.of(PLATES, PLATES_BY_BARCODE, PLATE_LIST, REAGENTS, REAGENT_LIST));
+		cacheManager.setAllowNullValues(false);
+		return new TransactionAwareCacheManagerProxy(cacheManager);
+	}
+}
@@ -0,0 +1,101 @@
+package com.lab.reagentdispenser.config;
+
+import com.lab.reagentdispenser.service.WebSocketSessionMonitor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableScheduling
+public class ExecutionConfig {
+
+	// Runs the @Scheduled tasks: outbox drain, plate state flush and operation archiver. Without this bean they
+	// would share the WebSocket broker's scheduler, and a long archive pass could delay the event and flush ticks.
+	@Bean(name = "taskScheduler")
+	public ThreadPoolTaskScheduler taskScheduler(@Value("${dispenser.scheduling.pool-size:4}") int poolSize) {
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+		scheduler.setPoolSize(poolSize);
+		scheduler.setThreadNamePrefix("scheduling-");
+		return scheduler;
+	}
+
+	// Runs physical dispenses off the request thread and outside any JDBC transaction.
+	// Java 17 has no virtual threads, so this is a bounded platform-thread pool.
+	@Bean(name = "dispenseExecutor")
+	public ThreadPoolTaskExecutor dispenseExecutor(
+			@Value("${dispenser.execution.pool-size:8}") int poolSize,
+			@Value("${dispenser.execution.queue-capacity:256}") int queueCapacity) {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(poolSize);
+		executor.setMaxPoolSize(poolSize);
+		executor.setQueueCapacity(queueCapacity);
+		executor.setThreadNamePrefix("dispense-");
+		executor.setWaitForTasksToCompleteOnShutdown(true);
+		executor.setAwaitTerminationSeconds(30);
+		return executor;
+	}
+
+	// One thread per dispenser channel so a head cycle dispenses all of its wells at the same time
+	@Bean(name = "channelExecutor")
+	public ThreadPoolTaskExecutor channelExecutor(@Value("${dispenser.hardware.channels:8}") int channels) {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(channels);
+		executor.setMaxPoolSize(channels);
+		executor.setThreadNamePrefix("channel-");
+		executor.setWaitForTasksToCompleteOnShutdown(true);
+		executor.setAwaitTerminationSeconds(30);
+		return executor;
+	}
+
+	// Batches block for their whole run, so they get their own small pool with a bounded queue.
+	// BatchExecutionScheduler admits at most pool-size + queue-capacity batches at a time.
+	@Bean(name = "batchExecutor")
+	public ThreadPoolTaskExecutor batchExecutor(
+			@Value("${dispenser.batch.pool-size:2}") int poolSize,
+			@Value("${dispenser.batch.queue-capacity:16}") int queueCapacity) {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(poolSize);
+		executor.setMaxPoolSize(poolSize);
+		executor.setQueueCapacity(queueCapacity);
+		executor.setThreadNamePrefix("batch-");
+		executor.setWaitForTasksToCompleteOnShutdown(true);
+		executor.setAwaitTerminationSeconds(30);
+		return executor;
+	}
+
+	// Handles STOMP frames from clients. A full queue makes the WebSocket container thread run the task
+	// itself, which pushes back on the sending client instead of dropping its frames.
+	@Bean(name = "webSocketInboundExecutor")
+	public ThreadPoolTaskExecutor webSocketInboundExecutor(
+			@Value("${dispenser.websocket.inbound.pool-size:4}") int poolSize,
+			@Value("${dispenser.websocket.inbound.queue-capacity:1000}") int queueCapacity) {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(poolSize);
+		executor.setMaxPoolSize(poolSize);
+		executor.setQueueCapacity(queueCapacity);
+		executor.setThreadNamePrefix("clientInboundChannel-");
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		return executor;
+	}
+
+	// Writes messages to client sessions. A full queue drops the message and closes the session it was for;
+	// the client reconnects and resyncs. Slow sessions are also closed by the send time and buffer limits.
+	@Bean(name = "webSocketOutboundExecutor")
+	public ThreadPoolTaskExecutor webSocketOutboundExecutor(
+			@Value("${dispenser.websocket.outbound.pool-size:8}") int poolSize,
+			@Value("${dispenser.websocket.outbound.queue-capacity:10000}") int queueCapacity,
+			WebSocketSessionMonitor sessionMonitor) {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(poolSize);
+		executor.setMaxPoolSize(poolSize);
+		executor.setQueueCapacity(queueCapacity);
+		executor.setThreadNamePrefix("clientOutboundChannel-");
+		executor.setRejectedExecutionHandler((task, pool) -> sessionMonitor.rejectOutboundMessage(task));
+		return executor;
+	}
+}
@@ -1,19 +1,97 @@
 package com.lab.reagentdispenser.config;
 
+import com.lab.reagentdispenser.service.WebSocketSessionMonitor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
+// dispenser.websocket.broker=simple keeps subscriptions in this process. With relay, subscriptions and
+// fan-out are handed to a STOMP broker at dispenser.websocket.relay.host/port, so several application
+// nodes can serve the same topics (see docker-compose.stomp.yml for a local broker).
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+	private final ThreadPoolTaskExecutor inboundExecutor;
+	private final ThreadPoolTaskExecutor outboundExecutor;
+	private final WebSocketSessionMonitor sessionMonitor;
+
+	@Value("${dispenser.websocket.broker:simple}")
+	private String brokerMode;
+
+	@Value("${dispenser.websocket.relay.host:localhost}")
+	private String relayHost;
+
+	@Value("${dispenser.websocket.relay.port:61613}")
+	private int relayPort;
+
+	@Value("${dispenser.websocket.relay.login:guest}")
+	private String relayLogin;
+
+	@Value("${dispenser.websocket.relay.passcode:guest}")
+	private String relayPasscode;
+
+	@Value("${dispenser.websocket.send-time-limit-ms:5000}")
+	private int sendTimeLimitMs;
+
+	@Value("${dispenser.websocket.send-buffer-size-limit:524288}")
+	private int sendBufferSizeLimit;
+
+	@Value("${dispenser.websocket.message-size-limit:65536}")
+	private int messageSizeLimit;
+
+	public WebSocketConfig(
+			@Qualifier("webSocketInboundExecutor") ThreadPoolTaskExecutor inboundExecutor,
+			@Qualifier("webSocketOutboundExecutor") ThreadPoolTaskExecutor outboundExecutor,
+			WebSocketSessionMonitor sessionMonitor) {
+		this.inboundExecutor = inboundExecutor;
+		this.outboundExecutor = outboundExecutor;
+		this.sessionMonitor = sessionMonitor;
+	}
+
 	@Override
 	public void configureMessageBroker(MessageBrokerRegistry config) {
-		config.enableSimpleBroker("/topic");
+		if ("relay".equalsIgnoreCase(brokerMode)) {
+			config.enableStompBrokerRelay("/topic")
+					.setRelayHost(relayHost)
+					.setRelayPort(relayPort)
+					.setClientLogin(relayLogin)
+					.setClientPasscode(relayPasscode)
+					.setSystemLogin(relayLogin)
+					.setSystemPasscode(relayPasscode);
+		} else {
+			config.enableSimpleBroker("/topic");
+		}
 		config.setApplicationDestinationPrefixes("/app");
+		// Event frames carry sequence numbers, so each session must receive them in publish order
+		// even though several outbound threads write to sessions
+		config.setPreservePublishOrder(true);
+	}
+
+	@Override
+	public void configureClientInboundChannel(ChannelRegistration registration) {
+		registration.taskExecutor(inboundExecutor);
+	}
+
+	@Override
+	public void configureClientOutboundChannel(ChannelRegistration registration) {
+		registration.taskExecutor(outboundExecutor);
+	}
+
+	@Override
+	public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+		// A session whose pending sends exceed either limit is closed instead of buffering without bound
+		registration.setSendTimeLimit(sendTimeLimitMs)
+				.setSendBufferSizeLimit(sendBufferSizeLimit)
+				.setMessageSizeLimit(messageSizeLimit)
+				.addDecoratorFactory(sessionMonitor::decorate);
 	}
 
 	@Override
@@ -1,20 +1,40 @@
 package com.lab.reagentdispenser.controller;
 
 import com.lab.reagentdispenser.dto.AddOperationToBatchRequestDTO;
+import com.lab.reagentdispenser.dto.BatchExecutionDTO;
+import com.lab.reagentdispenser.dto.BatchExecutionStatusDTO;
+import com.lab.reagentdispenser.dto.BatchPlanResultDTO;
+import com.lab.reagentdispenser.dto.BatchSummaryDTO;
+import com.lab.reagentdispenser.dto.BulkBatchOperationsRequestDTO;
 import com.lab.reagentdispenser.dto.CreateBatchRequestDTO;
 import com.lab.reagentdispenser.dto.DispenseBatchDTO;
+import com.lab.reagentdispenser.dto.DispenseEventFrameDTO;
 import com.lab.reagentdispenser.dto.DispenseOperationDTO;
 import com.lab.reagentdispenser.dto.DispenseRequestDTO;
+import com.lab.reagentdispenser.dto.OperationHistoryPageDTO;
+import com.lab.reagentdispenser.dto.WebSocketStatsDTO;
+import com.lab.reagentdispenser.repository.OperationHistoryFilter;
+import com.lab.reagentdispenser.service.BatchExecutionService;
+import com.lab.reagentdispenser.service.DispenseDispatcher;
+import com.lab.reagentdispenser.service.DispenseEventStream;
+import com.lab.reagentdispenser.service.DispenseMapCsvParser;
 import com.lab.reagentdispenser.service.DispenseService;
+import com.lab.reagentdispenser.service.OperationHistoryService;
+import com.lab.reagentdispenser.service.WebSocketStatsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import javax.validation.Validator;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/dispense")
@@ -24,12 +44,74 @@ import java.util.concurrent.CompletableFuture;
 public class DispenseController {
 
 	private final DispenseService dispenseService;
+	private final DispenseDispatcher dispenseDispatcher;
+	private final BatchExecutionService batchExecutionService;
+	private final OperationHistoryService operationHistoryService;
+	private final DispenseEventStream eventStream;
+	private final WebSocketStatsService webSocketStatsService;
+	private final Validator validator;
+
+	private static final int MAX_CSV_OPERATIONS = 10000;
 
 	@GetMapping("/history")
-	public ResponseEntity<List<DispenseOperationDTO>> getOperationHistory() {
-		log.info("GET /api/dispense/history - Get all operations");
-		List<DispenseOperationDTO> operations = dispenseService.getAllOperations();
-		return ResponseEntity.ok(operations);
+	public ResponseEntity<OperationHistoryPageDTO> getOperationHistory(
+			@RequestParam(required = false) String plateBarcode,
+			@RequestParam(required = false) String status,
+			@RequestParam(required = false) Long reagentId,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+			@RequestParam(required = false) Long cursor,
+			@RequestParam(required = false) Integer limit) {
+		log.info("GET /api/dispense/history - Get operation history page");
+		OperationHistoryFilter filter = historyFilter(plateBarcode, status, reagentId, from, to);
+		OperationHistoryPageDTO page = operationHistoryService.getHistoryPage(filter, cursor, limit);
+		return ResponseEntity.ok(page);
+	}
+
+	@GetMapping("/history/export")
+	public ResponseEntity<StreamingResponseBody> exportOperationHistory(
+			@RequestParam(required = false) String plateBarcode,
+			@RequestParam(required = false) String status,
+			@RequestParam(required = false) Long reagentId,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+			@RequestParam(defaultValue = "ndjson") String format) {
+		log.info("GET /api/dispense/history/export - Export operation history as {}", format);
+		OperationHistoryFilter filter = historyFilter(plateBarcode, status, reagentId, from, to);
+		// The body is written after the status and headers are sent, so the filter is checked up front
+		operationHistoryService.validate(filter);
+
+		if ("csv".equalsIgnoreCase(format)) {
+			return ResponseEntity.ok()
+					.contentType(MediaType.parseMediaType("text/csv"))
+					.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"dispense-history.csv\"")
+					.body(outputStream -> operationHistoryService.exportCsv(filter, outputStream));
+		}
+		if ("ndjson".equalsIgnoreCase(format)) {
+			return ResponseEntity.ok()
+					.contentType(MediaType.parseMediaType("application/x-ndjson"))
+					.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"dispense-history.ndjson\"")
+					.body(outputStream -> operationHistoryService.exportNdjson(filter, outputStream));
+		}
+		throw new IllegalArgumentException("Unsupported export format: " + format + " (use ndjson or csv)");
+	}
+
+	// Resync for WebSocket clients that missed frames of the dispense event stream
+	@GetMapping("/events")
+	public ResponseEntity<DispenseEventFrameDTO> getEventsSince(
+			@RequestParam long since,
+			@RequestParam(required = false) String plateBarcode,
+			@RequestParam(required = false) Long batchId) {
+		log.info("GET /api/dispense/events - Get dispense events since {}", since);
+		DispenseEventFrameDTO frame = eventStream.getEventsSince(since, plateBarcode, batchId);
+		return ResponseEntity.ok(frame);
+	}
+
+	@GetMapping("/events/stats")
+	public ResponseEntity<WebSocketStatsDTO> getEventStreamStats() {
+		log.info("GET /api/dispense/events/stats - Get WebSocket session and channel stats");
+		WebSocketStatsDTO stats = webSocketStatsService.getStats();
+		return ResponseEntity.ok(stats);
 	}
 
 	@GetMapping("/{id}")
@@ -56,8 +138,9 @@ public class DispenseController {
 	@PostMapping("/{id}/execute")
 	public ResponseEntity<DispenseOperationDTO> executeOperation(@PathVariable Long id) {
 		log.info("POST /api/dispense/{}/execute - Execute operation", id);
-		DispenseOperationDTO operation = dispenseService.executeOperation(id);
-		return ResponseEntity.ok(operation);
+		// Returns IN_PROGRESS immediately, completion will be sent via WebSocket
+		DispenseOperationDTO operation = dispenseDispatcher.dispatch(id);
+		return ResponseEntity.status(HttpStatus.ACCEPTED).body(operation);
 	}
 
 	// Batch operations endpoints
@@ -70,43 +153,97 @@ public class DispenseController {
 	}
 
 	@GetMapping("/batch")
-	public ResponseEntity<List<DispenseBatchDTO>> getAllBatches() {
-		log.info("GET /api/dispense/batch - Get all batches");
-		List<DispenseBatchDTO> batches = dispenseService.getAllBatches();
+	public ResponseEntity<List<BatchSummaryDTO>> getAllBatches() {
+		log.info("GET /api/dispense/batch - Get all batch summaries");
+		List<BatchSummaryDTO> batches = dispenseService.getAllBatches();
 		return ResponseEntity.ok(batches);
 	}
 
+	@GetMapping("/batch/executions")
+	public ResponseEntity<BatchExecutionStatusDTO> getBatchExecutions() {
+		log.info("GET /api/dispense/batch/executions - Get batch execution status");
+		BatchExecutionStatusDTO status = batchExecutionService.getExecutionStatus();
+		return ResponseEntity.ok(status);
+	}
+
 	@GetMapping("/batch/{id}")
-	public ResponseEntity<DispenseBatchDTO> getBatchById(@PathVariable Long id) {
-		log.info("GET /api/dispense/batch/{} - Get batch by id", id);
-		DispenseBatchDTO batch = dispenseService.getBatchById(id);
+	public ResponseEntity<BatchSummaryDTO> getBatchById(@PathVariable Long id) {
+		log.info("GET /api/dispense/batch/{} - Get batch summary by id", id);
+		BatchSummaryDTO batch = dispenseService.getBatchById(id);
 		return ResponseEntity.ok(batch);
 	}
 
+	@GetMapping("/batch/{id}/operations")
+	public ResponseEntity<OperationHistoryPageDTO> getBatchOperations(
+			@PathVariable Long id,
+			@RequestParam(required = false) String status,
+			@RequestParam(required = false) Long cursor,
+			@RequestParam(required = false) Integer limit) {
+		log.info("GET /api/dispense/batch/{}/operations - Get page of batch operations", id);
+		OperationHistoryFilter filter = OperationHistoryFilter.builder()
+				.batchId(id)
+				.status(status)
+				.build();
+		OperationHistoryPageDTO page = operationHistoryService.getHistoryPage(filter, cursor, limit);
+		return ResponseEntity.ok(page);
+	}
+
 	@PostMapping("/batch/{id}/add-operation")
-	public ResponseEntity<DispenseBatchDTO> addOperationToBatch(
+	public ResponseEntity<BatchSummaryDTO> addOperationToBatch(
 			@PathVariable Long id,
 			@Valid @RequestBody AddOperationToBatchRequestDTO request) {
 		log.info("POST /api/dispense/batch/{}/add-operation - Add operation to batch", id);
-		DispenseBatchDTO batch = dispenseService.addOperationToBatch(id, request);
+		BatchSummaryDTO batch = dispenseService.addOperationToBatch(id, request);
 		return ResponseEntity.ok(batch);
 	}
 
+	@PostMapping(value = "/batch/{id}/operations", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<BatchPlanResultDTO> addOperationsToBatch(
+			@PathVariable Long id,
+			@Valid @RequestBody BulkBatchOperationsRequestDTO request) {
+		log.info("POST /api/dispense/batch/{}/operations - Add {} operations to batch", id, request.getOperations().size());
+		BatchPlanResultDTO result = dispenseService.addOperationsToBatch(id, request.getOperations());
+		return ResponseEntity.status(HttpStatus.CREATED).body(result);
+	}
+
+	@PostMapping(value = "/batch/{id}/operations", consumes = "text/csv")
+	public ResponseEntity<BatchPlanResultDTO> addOperationsToBatchFromCsv(
+			@PathVariable Long id,
+			@RequestBody String csv) {
+		log.info("POST /api/dispense/batch/{}/operations - Add operations to batch from CSV", id);
+		List<AddOperationToBatchRequestDTO> operations = DispenseMapCsvParser.parse(csv, validator);
+		if (operations.isEmpty() || operations.size() > MAX_CSV_OPERATIONS) {
+			throw new IllegalArgumentException("A dispense map must contain between 1 and " + MAX_CSV_OPERATIONS + " operations");
+		}
+		BatchPlanResultDTO result = dispenseService.addOperationsToBatch(id, operations);
+		return ResponseEntity.status(HttpStatus.CREATED).body(result);
+	}
+
 	@PostMapping("/batch/{id}/execute")
-	public ResponseEntity<DispenseBatchDTO> executeBatch(@PathVariable Long id) {
+	public ResponseEntity<BatchSummaryDTO> executeBatch(@PathVariable Long id) {
 		log.info("POST /api/dispense/batch/{}/execute - Execute batch", id);
 		
-		// Execute batch asynchronously
-		CompletableFuture.runAsync(() -> {
-			try {
-				dispenseService.executeBatch(id);
-			} catch (Exception e) {
-				log.error("Error executing batch asynchronously", e);
-			}
-		});
-		
-		// Return the batch immediately (execution status will be sent via WebSocket)
-		DispenseBatchDTO batch = dispenseService.getBatchById(id);
+		// Returns the EXECUTING batch summary immediately; operations are paged through operationsUrl
+		// and execution status is sent via WebSocket
+		BatchSummaryDTO batch = batchExecutionService.startBatch(id);
 		return ResponseEntity.ok(batch);
 	}
+
+	@PostMapping("/batch/{id}/cancel")
+	public ResponseEntity<BatchExecutionDTO> cancelBatch(@PathVariable Long id) {
+		log.info("POST /api/dispense/batch/{}/cancel - Cancel batch execution", id);
+		BatchExecutionDTO execution = batchExecutionService.cancelBatch(id);
+		return ResponseEntity.status(HttpStatus.ACCEPTED).body(execution);
+	}
+
+	private static OperationHistoryFilter historyFilter(String plateBarcode, String status, Long reagentId,
+			LocalDateTime from, LocalDateTime to) {
+		return OperationHistoryFilter.builder()
+				.plateBarcode(plateBarcode)
+				.status(status)
+				.reagentId(reagentId)
+				.from(from)
+				.to(to)
+				.build();
+	}
 }
@@ -1,7 +1,10 @@
 package com.lab.reagentdispenser.controller;
 
 import com.lab.reagentdispenser.dto.ErrorResponse;
+import com.lab.reagentdispenser.service.DispenserBusyException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -26,6 +29,19 @@ public class GlobalExceptionHandler {
 		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
 	}
 
+	@ExceptionHandler(DispenserBusyException.class)
+	public ResponseEntity<ErrorResponse> handleDispenserBusyException(DispenserBusyException ex) {
+		log.warn("DispenserBusyException: {}", ex.getMessage());
+		ErrorResponse error = ErrorResponse.of(
+				"Service Unavailable",
+				ex.getMessage(),
+				HttpStatus.SERVICE_UNAVAILABLE.value()
+		);
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, "5")
+				.body(error);
+	}
+
 	@ExceptionHandler(IllegalStateException.class)
 	public ResponseEntity<ErrorResponse> handleIllegalStateException(IllegalStateException ex) {
 		log.error("IllegalStateException: {}", ex.getMessage());
@@ -37,6 +53,17 @@ public class GlobalExceptionHandler {
 		return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
 	}
 
+	@ExceptionHandler(OptimisticLockingFailureException.class)
+	public ResponseEntity<ErrorResponse> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+		log.warn("OptimisticLockingFailureException: {}", ex.getMessage());
+		ErrorResponse error = ErrorResponse.of(
+				"Concurrent Modification",
+				"The resource was modified concurrently, reload it and retry",
+				HttpStatus.CONFLICT.value()
+		);
+		return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+	}
+
 	@ExceptionHandler(MethodArgumentNotValidException.class)
 	public ResponseEntity<ErrorResponse> handleValidationException(MethodArgumentNotValidException ex) {
 		String details = ex.getBindingResult().getFieldErrors().stream()
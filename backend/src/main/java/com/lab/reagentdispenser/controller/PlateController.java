@@ -1,13 +1,20 @@
 package com.lab.reagentdispenser.controller;
 
+import com.lab.reagentdispenser.dto.BulkPlateRequestDTO;
 import com.lab.reagentdispenser.dto.PlateDTO;
+import com.lab.reagentdispenser.dto.PlateSnapshotDTO;
 import com.lab.reagentdispenser.dto.WellDTO;
 import com.lab.reagentdispenser.service.PlateService;
+import com.lab.reagentdispenser.service.PlateSnapshot;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -19,6 +26,10 @@ import java.util.List;
 @CrossOrigin(origins = "http://localhost:4200")
 public class PlateController {
 
+	private static final String ROWS_HEADER = "X-Plate-Rows";
+	private static final String COLUMNS_HEADER = "X-Plate-Columns";
+	private static final String MAX_VOLUME_HEADER = "X-Plate-Max-Volume";
+
 	private final PlateService plateService;
 
 	@GetMapping
@@ -49,6 +60,40 @@ public class PlateController {
 		return ResponseEntity.ok(wells);
 	}
 
+	// Dense well volumes for heat maps, as compact JSON or, with Accept: application/octet-stream, as
+	// little-endian float32. No-cache makes clients revalidate with If-None-Match, which is answered with
+	// 304 and no body until a volume of the plate changes.
+	@GetMapping(value = "/{id}/snapshot", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<PlateSnapshotDTO> getPlateSnapshot(@PathVariable Long id, WebRequest request) {
+		log.info("GET /api/plates/{}/snapshot - Get well snapshot for plate", id);
+		PlateSnapshot snapshot = plateService.getPlateSnapshot(id);
+		String eTag = snapshotETag(snapshot, "json");
+		if (request.checkNotModified(eTag)) {
+			return null;
+		}
+		return snapshotResponse(eTag).body(plateService.convertSnapshotToDTO(snapshot));
+	}
+
+	@GetMapping(value = "/{id}/snapshot", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+	@CrossOrigin(origins = "http://localhost:4200", exposedHeaders = {ROWS_HEADER, COLUMNS_HEADER, MAX_VOLUME_HEADER})
+	public ResponseEntity<byte[]> getPlateSnapshotBinary(@PathVariable Long id, WebRequest request) {
+		log.info("GET /api/plates/{}/snapshot - Get binary well snapshot for plate", id);
+		PlateSnapshot snapshot = plateService.getPlateSnapshot(id);
+		String eTag = snapshotETag(snapshot, "f32");
+		if (request.checkNotModified(eTag)) {
+			return null;
+		}
+
+		ResponseEntity.BodyBuilder response = snapshotResponse(eTag)
+				.header(ROWS_HEADER, String.valueOf(snapshot.getRows()))
+				.header(COLUMNS_HEADER, String.valueOf(snapshot.getColumns()));
+		Float maxVolume = snapshot.getUniformMaxVolume();
+		if (maxVolume != null) {
+			response.header(MAX_VOLUME_HEADER, String.valueOf(maxVolume));
+		}
+		return response.body(plateService.encodeSnapshot(snapshot));
+	}
+
 	@PostMapping
 	public ResponseEntity<PlateDTO> createPlate(@Valid @RequestBody PlateDTO plateDTO) {
 		log.info("POST /api/plates - Create new plate");
@@ -56,6 +101,13 @@ public class PlateController {
 		return ResponseEntity.status(HttpStatus.CREATED).body(createdPlate);
 	}
 
+	@PostMapping("/bulk")
+	public ResponseEntity<List<PlateDTO>> createPlates(@Valid @RequestBody BulkPlateRequestDTO request) {
+		log.info("POST /api/plates/bulk - Create {} plates", request.getPlates().size());
+		List<PlateDTO> createdPlates = plateService.createPlates(request.getPlates());
+		return ResponseEntity.status(HttpStatus.CREATED).body(createdPlates);
+	}
+
 	@PutMapping("/{id}")
 	public ResponseEntity<PlateDTO> updatePlate(
 			@PathVariable Long id, 
@@ -71,4 +123,16 @@ public class PlateController {
 		plateService.deletePlate(id);
 		return ResponseEntity.noContent().build();
 	}
+
+	// Each representation gets its own strong ETag
+	private static String snapshotETag(PlateSnapshot snapshot, String representation) {
+		return "\"" + snapshot.getPlateId() + "-" + snapshot.getVersion() + "-" + representation + "\"";
+	}
+
+	private static ResponseEntity.BodyBuilder snapshotResponse(String eTag) {
+		return ResponseEntity.ok()
+				.eTag(eTag)
+				.cacheControl(CacheControl.noCache())
+				.varyBy(HttpHeaders.ACCEPT);
+	}
 }
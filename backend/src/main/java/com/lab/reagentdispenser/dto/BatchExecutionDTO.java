@@ -11,12 +11,11 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class WebSocketMessage {
+public class BatchExecutionDTO {
 
-	private String type;
-
-	private Object payload;
-
-	@Builder.Default
-	private LocalDateTime timestamp = LocalDateTime.now();
+	private Long batchId;
+	private String state;
+	private LocalDateTime submittedDate;
+	private LocalDateTime startedDate;
+	private Boolean cancelRequested;
 }
@@ -0,0 +1,23 @@
+package com.lab.reagentdispenser.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchExecutionStatusDTO {
+
+	private Integer poolSize;
+	private Integer queueCapacity;
+	private Integer activeCount;
+	private Integer queueDepth;
+	private Long completedCount;
+	private Long rejectedCount;
+	private List<BatchExecutionDTO> executions;
+}
@@ -0,0 +1,24 @@
+package com.lab.reagentdispenser.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchPlanResultDTO {
+
+	private Long batchId;
+
+	private Integer operationsAdded;
+
+	private Long operationCount;
+
+	// Volume added by this request, keyed by reagent id
+	private Map<Long, Double> reagentDemand;
+}
@@ -0,0 +1,32 @@
+package com.lab.reagentdispenser.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+// Batch without its operations; these are paged through GET /api/dispense/batch/{id}/operations
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchSummaryDTO {
+
+	private Long id;
+	private Long plateId;
+	private String plateBarcode;
+	private String status;
+	private LocalDateTime createdDate;
+	private LocalDateTime executionStartedDate;
+	private LocalDateTime completedDate;
+	private Integer progressCursor;
+	private Long operationCount;
+	private Map<String, Long> operationCountsByStatus;
+	private Double totalVolume;
+	private List<ReagentVolumeDTO> reagentVolumes;
+	private String operationsUrl;
+}
@@ -0,0 +1,22 @@
+package com.lab.reagentdispenser.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkBatchOperationsRequestDTO {
+
+	@NotEmpty(message = "At least one operation is required")
+	@Size(max = 10000, message = "At most 10000 operations can be added per request")
+	private List<@Valid AddOperationToBatchRequestDTO> operations;
+}
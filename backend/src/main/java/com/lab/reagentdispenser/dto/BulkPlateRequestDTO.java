@@ -0,0 +1,22 @@
+package com.lab.reagentdispenser.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkPlateRequestDTO {
+
+	@NotEmpty(message = "At least one plate is required")
+	@Size(max = 1000, message = "At most 1000 plates can be created per request")
+	private List<@Valid PlateDTO> plates;
+}
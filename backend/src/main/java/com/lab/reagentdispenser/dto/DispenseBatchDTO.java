@@ -21,6 +21,7 @@ public class DispenseBatchDTO {
 	private LocalDateTime createdDate;
 	private LocalDateTime executionStartedDate;
 	private LocalDateTime completedDate;
+	private Integer progressCursor;
 	private Integer operationCount;
 	private List<DispenseOperationDTO> operations;
 }
@@ -0,0 +1,32 @@
+package com.lab.reagentdispenser.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DispenseEventDTO {
+
+	private Long seq;
+
+	// Set for operation events; batch events carry only batchId
+	private Long opId;
+
+	private Long batchId;
+
+	private Long plateId;
+
+	private String well;
+
+	private String status;
+
+	private Double wellVolume;
+
+	private String error;
+}
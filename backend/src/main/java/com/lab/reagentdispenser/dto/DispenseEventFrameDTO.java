@@ -0,0 +1,24 @@
+package com.lab.reagentdispenser.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DispenseEventFrameDTO {
+
+	// Sequence number of the previous frame of the same topic (0 for the first); a client that has not seen
+	// it missed a frame
+	private Long prevSeq;
+
+	// Latest sequence number covered; events superseded within the frame are coalesced away
+	private Long toSeq;
+
+	private List<DispenseEventDTO> events;
+}
@@ -0,0 +1,20 @@
+package com.lab.reagentdispenser.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OperationHistoryPageDTO {
+
+	private List<DispenseOperationDTO> operations;
+
+	// Pass as cursor to fetch the next (older) page; null on the last page
+	private Long nextCursor;
+}
@@ -0,0 +1,36 @@
+package com.lab.reagentdispenser.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PlateSnapshotDTO {
+
+	private Long plateId;
+
+	private String barcode;
+
+	private String plateType;
+
+	private Integer rows;
+
+	private Integer columns;
+
+	// Row-major: the well at row r, column c is at index r * columns + c
+	private float[] volumes;
+
+	// Set when all wells share one capacity, otherwise maxVolumes is
+	private Float maxVolume;
+
+	private float[] maxVolumes;
+
+	// Indexes of positions without a well; their volume is reported as 0
+	private int[] missingWells;
+}
@@ -0,0 +1,17 @@
+package com.lab.reagentdispenser.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReagentVolumeDTO {
+
+	private Long reagentId;
+	private String reagentName;
+	private Double totalVolume;
+}
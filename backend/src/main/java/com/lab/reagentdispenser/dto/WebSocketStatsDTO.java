@@ -0,0 +1,26 @@
+package com.lab.reagentdispenser.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebSocketStatsDTO {
+
+	private String brokerMode;
+	private Integer activeSessions;
+	// Sessions closed because their pending sends exceeded the send time or buffer size limit
+	private Long evictedSessions;
+	// Outbound messages dropped because the outbound channel queue was full
+	private Long droppedMessages;
+	private Integer inboundPoolSize;
+	private Integer inboundActiveCount;
+	private Integer inboundQueueDepth;
+	private Integer outboundPoolSize;
+	private Integer outboundActiveCount;
+	private Integer outboundQueueDepth;
+}
@@ -17,7 +17,7 @@ public class WellDTO {
 	private Long id;
 
 	@NotBlank(message = "Position is required")
-	@Pattern(regexp = "^[A-H]([1-9]|1[0-2])$", message = "Position must be in format A1-H12")
+	@Pattern(regexp = "^[A-Z]{1,2}[1-9][0-9]?$", message = "Position must be a row (A-Z, AA-AF) followed by a column number, e.g. A1 or AF48")
 	private String position;
 
 	private Long plateId;
@@ -20,7 +20,8 @@ import java.util.List;
 public class DispenseBatch {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dispense_batches_seq")
+	@SequenceGenerator(name = "dispense_batches_seq", sequenceName = "dispense_batches_seq", allocationSize = 50)
 	private Long id;
 
 	@ManyToOne(fetch = FetchType.LAZY)
@@ -43,7 +44,13 @@ public class DispenseBatch {
 	@Column(name = "completed_date")
 	private LocalDateTime completedDate;
 
+	// Index of the next head cycle to execute, persisted after every cycle so execution can resume
+	@Column(name = "progress_cursor", nullable = false)
+	@Builder.Default
+	private Integer progressCursor = 0;
+
 	@OneToMany(mappedBy = "batch", cascade = CascadeType.ALL, orphanRemoval = true)
+	@OrderBy("id ASC")
 	@Builder.Default
 	private List<DispenseOperation> operations = new ArrayList<>();
 
@@ -51,7 +58,8 @@ public class DispenseBatch {
 		PLANNED,      // Batch created, operations can be added
 		EXECUTING,    // Batch execution in progress
 		COMPLETED,    // All operations completed successfully
-		FAILED        // One or more operations failed
+		FAILED,       // One or more operations failed
+		CANCELLED     // Execution was cancelled, remaining operations were not dispensed
 	}
 
 	// Helper method to add operation to batch
@@ -19,7 +19,8 @@ import java.time.LocalDateTime;
 public class DispenseOperation {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dispense_operations_seq")
+	@SequenceGenerator(name = "dispense_operations_seq", sequenceName = "dispense_operations_seq", allocationSize = 500)
 	private Long id;
 
 	@ManyToOne(fetch = FetchType.LAZY)
@@ -64,6 +65,7 @@ public class DispenseOperation {
 		PENDING,
 		IN_PROGRESS,
 		COMPLETED,
-		FAILED
+		FAILED,
+		CANCELLED
 	}
 }
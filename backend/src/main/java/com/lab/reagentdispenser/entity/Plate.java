@@ -21,7 +21,8 @@ import java.util.List;
 public class Plate {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "plates_seq")
+	@SequenceGenerator(name = "plates_seq", sequenceName = "plates_seq", allocationSize = 50)
 	private Long id;
 
 	@NotBlank(message = "Barcode is required")
@@ -17,7 +17,8 @@ import javax.validation.constraints.NotBlank;
 public class Reagent {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reagents_seq")
+	@SequenceGenerator(name = "reagents_seq", sequenceName = "reagents_seq", allocationSize = 50)
 	private Long id;
 
 	@NotBlank(message = "Name is required")
@@ -37,4 +38,8 @@ public class Reagent {
 	@Column(nullable = false)
 	@Builder.Default
 	private String unit = "μL";
+
+	// Also incremented by the plate state engine's delta flushes, so a stale entity cannot overwrite them
+	@Version
+	private Long version;
 }
@@ -19,12 +19,15 @@ import javax.validation.constraints.Pattern;
 @AllArgsConstructor
 public class Well {
 
+	// Ids are allocated in blocks of 500, so a whole plate of wells needs few sequence calls and its
+	// inserts can be sent as JDBC batches
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wells_seq")
+	@SequenceGenerator(name = "wells_seq", sequenceName = "wells_seq", allocationSize = 500)
 	private Long id;
 
 	@NotBlank(message = "Position is required")
-	@Pattern(regexp = "^[A-H]([1-9]|1[0-2])$", message = "Position must be in format A1-H12")
+	@Pattern(regexp = "^[A-Z]{1,2}[1-9][0-9]?$", message = "Position must be a row (A-Z, AA-AF) followed by a column number, e.g. A1 or AF48")
 	@Column(nullable = false)
 	private String position;
 
@@ -38,4 +41,8 @@ public class Well {
 	@Column(name = "max_volume", nullable = false)
 	@Builder.Default
 	private Double maxVolume = 300.0;
+
+	// Also incremented by the plate state engine's delta flushes, so a stale entity cannot overwrite them
+	@Version
+	private Long version;
 }
@@ -0,0 +1,12 @@
+package com.lab.reagentdispenser.repository;
+
+public interface BatchReagentVolume {
+
+	Long getBatchId();
+
+	Long getReagentId();
+
+	String getReagentName();
+
+	Double getTotalVolume();
+}
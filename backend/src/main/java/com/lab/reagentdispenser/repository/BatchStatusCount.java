@@ -0,0 +1,12 @@
+package com.lab.reagentdispenser.repository;
+
+import com.lab.reagentdispenser.entity.DispenseOperation;
+
+public interface BatchStatusCount {
+
+	Long getBatchId();
+
+	DispenseOperation.OperationStatus getStatus();
+
+	Long getCount();
+}
@@ -3,9 +3,15 @@ package com.lab.reagentdispenser.repository;
 import com.lab.reagentdispenser.entity.DispenseBatch;
 import com.lab.reagentdispenser.entity.Plate;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface DispenseBatchRepository extends JpaRepository<DispenseBatch, Long> {
@@ -13,4 +19,21 @@ public interface DispenseBatchRepository extends JpaRepository<DispenseBatch, Lo
 	List<DispenseBatch> findByPlate(Plate plate);
 	
 	List<DispenseBatch> findByStatus(DispenseBatch.BatchStatus status);
+
+	@Query("SELECT b FROM DispenseBatch b JOIN FETCH b.plate ORDER BY b.id")
+	List<DispenseBatch> findAllWithPlate();
+
+	@Query("SELECT b FROM DispenseBatch b JOIN FETCH b.plate WHERE b.id = :id")
+	Optional<DispenseBatch> findWithPlateById(@Param("id") Long id);
+
+	// Batch execution loads the plate and every operation with its plate, well and reagent in a single query
+	@Query("SELECT DISTINCT b FROM DispenseBatch b JOIN FETCH b.plate " +
+			"LEFT JOIN FETCH b.operations o LEFT JOIN FETCH o.plate LEFT JOIN FETCH o.well LEFT JOIN FETCH o.reagent " +
+			"WHERE b.id = :id ORDER BY o.id")
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH, value = "false"))
+	Optional<DispenseBatch> findWithOperationsById(@Param("id") Long id);
+
+	@Modifying
+	@Query("UPDATE DispenseBatch b SET b.progressCursor = :progressCursor WHERE b.id = :id")
+	int updateProgressCursor(@Param("id") Long id, @Param("progressCursor") int progressCursor);
 }
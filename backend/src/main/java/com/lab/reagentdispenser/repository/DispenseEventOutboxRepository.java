@@ -0,0 +1,74 @@
+package com.lab.reagentdispenser.repository;
+
+import com.lab.reagentdispenser.dto.DispenseEventDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Transactional outbox of dispense events. Rows are inserted by the transaction that changes the
+// operation or batch, so they only become visible (and are only published) once it commits. Each row gets its
+// event sequence number before it is first published and keeps it until it is deleted.
+@Repository
+@RequiredArgsConstructor
+public class DispenseEventOutboxRepository {
+
+	private final JdbcTemplate jdbcTemplate;
+	private final MeterRegistry meterRegistry;
+
+	public void append(String plateBarcode, DispenseEventDTO event) {
+		RepositoryMetrics.record(meterRegistry, "DispenseEventOutboxRepository", "append", () -> jdbcTemplate.update(
+				"INSERT INTO dispense_event_outbox (plate_barcode, plate_id, operation_id, batch_id, well_position, " +
+				"status, well_volume, error_message) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+				plateBarcode, event.getPlateId(), event.getOpId(), event.getBatchId(), event.getWell(),
+				event.getStatus(), event.getWellVolume(), event.getError()));
+	}
+
+	// Numbers up to limit unnumbered rows in id order. Only committed rows are visible, so a transaction
+	// that took a lower id but commits later is numbered after the rows that committed before it.
+	public int assignSequence(int limit) {
+		return RepositoryMetrics.record(meterRegistry, "DispenseEventOutboxRepository", "assignSequence", () -> {
+			List<Long> ids = jdbcTemplate.queryForList(
+					"SELECT id FROM dispense_event_outbox WHERE seq IS NULL ORDER BY id LIMIT ?", Long.class, limit);
+			jdbcTemplate.batchUpdate(
+					"UPDATE dispense_event_outbox SET seq = NEXT VALUE FOR dispense_event_seq WHERE id = ?",
+					ids.stream().map(id -> new Object[] {id}).collect(Collectors.toList()));
+			return ids.size();
+		});
+	}
+
+	public List<OutboxEvent> findOldest(int limit) {
+		return RepositoryMetrics.record(meterRegistry, "DispenseEventOutboxRepository", "findOldest", () -> jdbcTemplate.query(
+				"SELECT id, seq, plate_barcode, plate_id, operation_id, batch_id, well_position, status, well_volume, " +
+				"error_message, created_date FROM dispense_event_outbox WHERE seq IS NOT NULL ORDER BY seq LIMIT ?",
+				(rs, rowNum) -> mapRow(rs), limit));
+	}
+
+	// Deletes by id rather than by id range: a transaction that took a lower id may commit after
+	// the rows it precedes were published
+	public void delete(List<OutboxEvent> events) {
+		RepositoryMetrics.record(meterRegistry, "DispenseEventOutboxRepository", "delete", () -> jdbcTemplate.batchUpdate(
+				"DELETE FROM dispense_event_outbox WHERE id = ?",
+				events.stream().map(event -> new Object[] {event.getId()}).collect(Collectors.toList())));
+	}
+
+	private static OutboxEvent mapRow(ResultSet rs) throws SQLException {
+		DispenseEventDTO event = DispenseEventDTO.builder()
+				.seq(rs.getLong("seq"))
+				.plateId(rs.getLong("plate_id"))
+				.opId(rs.getObject("operation_id", Long.class))
+				.batchId(rs.getObject("batch_id", Long.class))
+				.well(rs.getString("well_position"))
+				.status(rs.getString("status"))
+				.wellVolume(rs.getObject("well_volume", Double.class))
+				.error(rs.getString("error_message"))
+				.build();
+		return new OutboxEvent(rs.getLong("id"), rs.getString("plate_barcode"), event,
+				rs.getTimestamp("created_date").toLocalDateTime());
+	}
+}
@@ -2,15 +2,36 @@ package com.lab.reagentdispenser.repository;
 
 import com.lab.reagentdispenser.entity.DispenseOperation;
 import com.lab.reagentdispenser.entity.Plate;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface DispenseOperationRepository extends JpaRepository<DispenseOperation, Long> {
 	
 	List<DispenseOperation> findByPlate(Plate plate);
 	
+	@EntityGraph(attributePaths = {"plate", "well", "reagent"})
 	List<DispenseOperation> findByStatus(DispenseOperation.OperationStatus status);
+
+	// Operation views need plate, well and reagent; fetching them with the operation avoids three lazy loads
+	@EntityGraph(attributePaths = {"plate", "well", "reagent"})
+	Optional<DispenseOperation> findWithDetailsById(Long id);
+
+	long countByBatchId(Long batchId);
+
+	@Query("SELECT o.batch.id AS batchId, o.status AS status, COUNT(o) AS count FROM DispenseOperation o " +
+			"WHERE o.batch.id IN :batchIds GROUP BY o.batch.id, o.status")
+	List<BatchStatusCount> countByBatchAndStatus(@Param("batchIds") Collection<Long> batchIds);
+
+	@Query("SELECT o.batch.id AS batchId, r.id AS reagentId, r.name AS reagentName, SUM(o.volumeDispensed) AS totalVolume " +
+			"FROM DispenseOperation o JOIN o.reagent r " +
+			"WHERE o.batch.id IN :batchIds GROUP BY o.batch.id, r.id, r.name ORDER BY r.id")
+	List<BatchReagentVolume> sumVolumeByBatchAndReagent(@Param("batchIds") Collection<Long> batchIds);
 }
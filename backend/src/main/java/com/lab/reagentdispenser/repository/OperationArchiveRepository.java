@@ -0,0 +1,108 @@
+package com.lab.reagentdispenser.repository;
+
+import com.lab.reagentdispenser.entity.DispenseOperation;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+// Moves finished operations from dispense_operations to dispense_operations_archive and reads the batch
+// totals of archived rows. Operations are archived when they COMPLETED or FAILED before the cutoff and are
+// not part of a batch that is still planned or executing, so execution never sees an archived operation.
+@Repository
+@RequiredArgsConstructor
+public class OperationArchiveRepository {
+
+	private static final String ARCHIVABLE =
+			"o.status IN ('COMPLETED', 'FAILED') AND o.completed_date < ? " +
+			"AND (o.batch_id IS NULL OR o.batch_id IN " +
+			"(SELECT b.id FROM dispense_batches b WHERE b.status IN ('COMPLETED', 'FAILED', 'CANCELLED')))";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final MeterRegistry meterRegistry;
+
+	// Archives up to limit operations, oldest id first, and returns how many were moved. The chunk is
+	// bounded by its highest id, so the copy and the delete select the same rows without an id list.
+	@Transactional
+	public int archive(LocalDateTime cutoff, int limit) {
+		return RepositoryMetrics.record(meterRegistry, "OperationArchiveRepository", "archive", () -> {
+			Timestamp before = Timestamp.valueOf(cutoff);
+			Long lastId = jdbcTemplate.queryForObject(
+					"SELECT MAX(id) FROM (SELECT o.id FROM dispense_operations o WHERE " + ARCHIVABLE +
+					" ORDER BY o.id LIMIT ?) c",
+					Long.class, before, limit);
+			if (lastId == null) {
+				return 0;
+			}
+
+			int copied = jdbcTemplate.update(
+					"INSERT INTO dispense_operations_archive (id, plate_id, plate_barcode, well_id, well_position, " +
+					"reagent_id, reagent_name, batch_id, volume_dispensed, status, created_date, completed_date, error_message) " +
+					"SELECT o.id, o.plate_id, p.barcode, o.well_id, w.position, o.reagent_id, r.name, o.batch_id, " +
+					"o.volume_dispensed, o.status, o.created_date, o.completed_date, o.error_message " +
+					"FROM dispense_operations o " +
+					"JOIN plates p ON p.id = o.plate_id " +
+					"JOIN wells w ON w.id = o.well_id " +
+					"JOIN reagents r ON r.id = o.reagent_id " +
+					"WHERE " + ARCHIVABLE + " AND o.id <= ?",
+					before, lastId);
+			int deleted = jdbcTemplate.update(
+					"DELETE FROM dispense_operations o WHERE " + ARCHIVABLE + " AND o.id <= ?",
+					before, lastId);
+			if (copied != deleted) {
+				throw new IllegalStateException("Archived " + copied + " operations but removed " + deleted);
+			}
+			return deleted;
+		});
+	}
+
+	public List<BatchStatusCount> countByBatchAndStatus(Collection<Long> batchIds) {
+		if (batchIds.isEmpty()) {
+			return List.of();
+		}
+		return RepositoryMetrics.record(meterRegistry, "OperationArchiveRepository", "countByBatchAndStatus", () -> jdbcTemplate.query(
+				"SELECT batch_id, status, COUNT(*) FROM dispense_operations_archive " +
+				"WHERE batch_id IN (" + placeholders(batchIds.size()) + ") GROUP BY batch_id, status",
+				(rs, rowNum) -> new StatusCount(rs.getLong(1),
+						DispenseOperation.OperationStatus.valueOf(rs.getString(2)), rs.getLong(3)),
+				batchIds.toArray()));
+	}
+
+	public List<BatchReagentVolume> sumVolumeByBatchAndReagent(Collection<Long> batchIds) {
+		if (batchIds.isEmpty()) {
+			return List.of();
+		}
+		return RepositoryMetrics.record(meterRegistry, "OperationArchiveRepository", "sumVolumeByBatchAndReagent", () -> jdbcTemplate.query(
+				"SELECT batch_id, reagent_id, MAX(reagent_name), SUM(volume_dispensed) FROM dispense_operations_archive " +
+				"WHERE batch_id IN (" + placeholders(batchIds.size()) + ") GROUP BY batch_id, reagent_id ORDER BY reagent_id",
+				(rs, rowNum) -> new ReagentVolume(rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getDouble(4)),
+				batchIds.toArray()));
+	}
+
+	private static String placeholders(int count) {
+		return String.join(", ", Collections.nCopies(count, "?"));
+	}
+
+	@Value
+	private static class StatusCount implements BatchStatusCount {
+		Long batchId;
+		DispenseOperation.OperationStatus status;
+		Long count;
+	}
+
+	@Value
+	private static class ReagentVolume implements BatchReagentVolume {
+		Long batchId;
+		Long reagentId;
+		String reagentName;
+		Double totalVolume;
+	}
+}
@@ -0,0 +1,24 @@
+package com.lab.reagentdispenser.repository;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+// Optional filters of the operation history; null fields are not applied
+@Value
+@Builder
+public class OperationHistoryFilter {
+
+	String plateBarcode;
+
+	String status;
+
+	Long reagentId;
+
+	Long batchId;
+
+	LocalDateTime from;
+
+	LocalDateTime to;
+}
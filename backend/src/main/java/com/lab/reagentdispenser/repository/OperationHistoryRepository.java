@@ -0,0 +1,179 @@
+package com.lab.reagentdispenser.repository;
+
+import com.lab.reagentdispenser.dto.DispenseOperationDTO;
+import com.lab.reagentdispenser.entity.DispenseOperation;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// Reads operation history as flat rows joined in one query, newest first. Pages are keyset based
+// (id < cursor) so every page costs the same regardless of depth; see the idx_operation_* indexes.
+// Archived operations (dispense_operations_archive) are part of the history: a page merges the newest rows
+// of both tables, and a stream returns the live rows followed by the archived ones. Both reads run in one
+// read-only serializable transaction, i.e. on one snapshot, so rows the archiver moves in between are returned
+// exactly once (H2's repeatable read fixes each table only when it is first read).
+@Repository
+@RequiredArgsConstructor
+public class OperationHistoryRepository {
+
+	private static final int STREAM_FETCH_SIZE = 500;
+
+	private static final String SELECT =
+			"SELECT o.id, o.plate_id, p.barcode, o.well_id, w.position, w.volume, o.reagent_id, r.name, " +
+			"o.volume_dispensed, o.status, o.created_date, o.completed_date, o.error_message " +
+			"FROM dispense_operations o " +
+			"JOIN plates p ON p.id = o.plate_id " +
+			"JOIN wells w ON w.id = o.well_id " +
+			"JOIN reagents r ON r.id = o.reagent_id " +
+			"WHERE 1 = 1";
+
+	// Same columns as SELECT; the well volume is the current one, as long as the well exists
+	private static final String SELECT_ARCHIVED =
+			"SELECT o.id, o.plate_id, o.plate_barcode AS barcode, o.well_id, o.well_position AS position, w.volume, " +
+			"o.reagent_id, o.reagent_name AS name, o.volume_dispensed, o.status, o.created_date, o.completed_date, " +
+			"o.error_message " +
+			"FROM dispense_operations_archive o " +
+			"LEFT JOIN wells w ON w.id = o.well_id " +
+			"WHERE 1 = 1";
+
+	// Archived rows are matched by their copied barcode, so rows of deleted plates are still found
+	private static final String PLATE_FILTER = " AND o.plate_id = (SELECT id FROM plates WHERE barcode = ?)";
+	private static final String ARCHIVED_PLATE_FILTER = " AND o.plate_barcode = ?";
+
+	// Only these statuses are ever archived
+	private static final Set<String> ARCHIVED_STATUSES = Set.of(
+			DispenseOperation.OperationStatus.COMPLETED.name(), DispenseOperation.OperationStatus.FAILED.name());
+
+	private static final RowMapper<DispenseOperationDTO> ROW_MAPPER = OperationHistoryRepository::mapRow;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final MeterRegistry meterRegistry;
+
+	@Transactional(readOnly = true, isolation = Isolation.SERIALIZABLE)
+	public List<DispenseOperationDTO> findPage(OperationHistoryFilter filter, Long cursor, int limit) {
+		List<DispenseOperationDTO> live = findPage(false, filter, cursor, limit);
+		if (!includesArchive(filter)) {
+			return live;
+		}
+		List<DispenseOperationDTO> archived = findPage(true, filter, cursor, limit);
+		if (archived.isEmpty()) {
+			return live;
+		}
+
+		// Both lists are newest first; take the newest limit rows of the two
+		List<DispenseOperationDTO> page = new ArrayList<>(Math.min(limit, live.size() + archived.size()));
+		int l = 0;
+		int a = 0;
+		while (page.size() < limit && (l < live.size() || a < archived.size())) {
+			if (a == archived.size() || (l < live.size() && live.get(l).getId() > archived.get(a).getId())) {
+				page.add(live.get(l++));
+			} else {
+				page.add(archived.get(a++));
+			}
+		}
+		return page;
+	}
+
+	// Streams every matching row to the consumer without holding the result in memory
+	@Transactional(readOnly = true, isolation = Isolation.SERIALIZABLE)
+	public void stream(OperationHistoryFilter filter, Consumer<DispenseOperationDTO> consumer) {
+		stream(false, filter, consumer);
+		if (includesArchive(filter)) {
+			stream(true, filter, consumer);
+		}
+	}
+
+	private List<DispenseOperationDTO> findPage(boolean archived, OperationHistoryFilter filter, Long cursor, int limit) {
+		List<Object> params = new ArrayList<>();
+		StringBuilder sql = new StringBuilder(archived ? SELECT_ARCHIVED : SELECT);
+		appendFilter(sql, params, filter, archived);
+		if (cursor != null) {
+			sql.append(" AND o.id < ?");
+			params.add(cursor);
+		}
+		sql.append(" ORDER BY o.id DESC LIMIT ?");
+		params.add(limit);
+		return RepositoryMetrics.record(meterRegistry, "OperationHistoryRepository", "findPage",
+				() -> jdbcTemplate.query(sql.toString(), ROW_MAPPER, params.toArray()));
+	}
+
+	private void stream(boolean archived, OperationHistoryFilter filter, Consumer<DispenseOperationDTO> consumer) {
+		List<Object> params = new ArrayList<>();
+		StringBuilder sql = new StringBuilder(archived ? SELECT_ARCHIVED : SELECT);
+		appendFilter(sql, params, filter, archived);
+		sql.append(" ORDER BY o.id DESC");
+
+		RepositoryMetrics.record(meterRegistry, "OperationHistoryRepository", "stream", () -> jdbcTemplate.query(connection -> {
+			PreparedStatement statement = connection.prepareStatement(sql.toString());
+			statement.setFetchSize(STREAM_FETCH_SIZE);
+			for (int i = 0; i < params.size(); i++) {
+				statement.setObject(i + 1, params.get(i));
+			}
+			return statement;
+		}, (RowCallbackHandler) rs -> consumer.accept(mapRow(rs, rs.getRow()))));
+	}
+
+	private static boolean includesArchive(OperationHistoryFilter filter) {
+		return filter.getStatus() == null || ARCHIVED_STATUSES.contains(filter.getStatus());
+	}
+
+	private static void appendFilter(StringBuilder sql, List<Object> params, OperationHistoryFilter filter, boolean archived) {
+		if (filter.getPlateBarcode() != null) {
+			sql.append(archived ? ARCHIVED_PLATE_FILTER : PLATE_FILTER);
+			params.add(filter.getPlateBarcode());
+		}
+		if (filter.getStatus() != null) {
+			sql.append(" AND o.status = ?");
+			params.add(filter.getStatus());
+		}
+		if (filter.getReagentId() != null) {
+			sql.append(" AND o.reagent_id = ?");
+			params.add(filter.getReagentId());
+		}
+		if (filter.getBatchId() != null) {
+			sql.append(" AND o.batch_id = ?");
+			params.add(filter.getBatchId());
+		}
+		if (filter.getFrom() != null) {
+			sql.append(" AND o.created_date >= ?");
+			params.add(Timestamp.valueOf(filter.getFrom()));
+		}
+		if (filter.getTo() != null) {
+			sql.append(" AND o.created_date < ?");
+			params.add(Timestamp.valueOf(filter.getTo()));
+		}
+	}
+
+	private static DispenseOperationDTO mapRow(ResultSet rs, int rowNum) throws SQLException {
+		Timestamp completedDate = rs.getTimestamp("completed_date");
+		return DispenseOperationDTO.builder()
+				.id(rs.getLong("id"))
+				.plateId(rs.getLong("plate_id"))
+				.plateBarcode(rs.getString("barcode"))
+				.wellId(rs.getLong("well_id"))
+				.wellPosition(rs.getString("position"))
+				.wellVolume(rs.getObject("volume") != null ? rs.getDouble("volume") : null)
+				.reagentId(rs.getLong("reagent_id"))
+				.reagentName(rs.getString("name"))
+				.volumeDispensed(rs.getDouble("volume_dispensed"))
+				.status(rs.getString("status"))
+				.createdDate(rs.getTimestamp("created_date").toLocalDateTime())
+				.completedDate(completedDate != null ? completedDate.toLocalDateTime() : null)
+				.errorMessage(rs.getString("error_message"))
+				.build();
+	}
+}
@@ -0,0 +1,19 @@
+package com.lab.reagentdispenser.repository;
+
+import com.lab.reagentdispenser.dto.DispenseEventDTO;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+// A committed dispense event waiting in the outbox, with the plate barcode it is routed by
+@Value
+public class OutboxEvent {
+
+	Long id;
+
+	String plateBarcode;
+
+	DispenseEventDTO event;
+
+	LocalDateTime createdDate;
+}
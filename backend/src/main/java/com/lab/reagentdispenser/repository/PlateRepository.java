@@ -4,6 +4,8 @@ import com.lab.reagentdispenser.entity.Plate;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +14,6 @@ public interface PlateRepository extends JpaRepository<Plate, Long> {
 	Optional<Plate> findByBarcode(String barcode);
 	
 	boolean existsByBarcode(String barcode);
+
+	List<Plate> findByBarcodeIn(Collection<String> barcodes);
 }
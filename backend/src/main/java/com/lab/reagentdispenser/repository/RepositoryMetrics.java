@@ -0,0 +1,45 @@
+package com.lab.reagentdispenser.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Times JdbcTemplate based repositories under the metric Spring Boot records for Spring Data repositories,
+// with the same tags, so every repository call shows up in one place
+final class RepositoryMetrics {
+
+	static final String REPOSITORY_INVOCATIONS = "spring.data.repository.invocations";
+
+	private RepositoryMetrics() {
+	}
+
+	static <T> T record(MeterRegistry meterRegistry, String repository, String method, Supplier<T> call) {
+		long start = System.nanoTime();
+		String state = "SUCCESS";
+		String exception = "None";
+		try {
+			return call.get();
+		} catch (RuntimeException e) {
+			state = "ERROR";
+			exception = e.getClass().getSimpleName();
+			throw e;
+		} finally {
+			Timer.builder(REPOSITORY_INVOCATIONS)
+					.tag("repository", repository)
+					.tag("method", method)
+					.tag("state", state)
+					.tag("exception", exception)
+					.register(meterRegistry)
+					.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	static void record(MeterRegistry meterRegistry, String repository, String method, Runnable call) {
+		record(meterRegistry, repository, method, () -> {
+			call.run();
+			return null;
+		});
+	}
+}
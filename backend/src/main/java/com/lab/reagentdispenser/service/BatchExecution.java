@@ -0,0 +1,41 @@
+package com.lab.reagentdispenser.service;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.Future;
+
+// Tracks one batch admitted to the BatchExecutionScheduler
+@Getter
+public class BatchExecution {
+
+	public enum State {
+		QUEUED,
+		RUNNING
+	}
+
+	private final Long batchId;
+	private final LocalDateTime submittedDate = LocalDateTime.now();
+	private final long submittedNanos = System.nanoTime();
+	private volatile State state = State.QUEUED;
+	private volatile LocalDateTime startedDate;
+	private volatile boolean cancelRequested;
+	private volatile Future<?> future;
+
+	BatchExecution(Long batchId) {
+		this.batchId = batchId;
+	}
+
+	void markRunning() {
+		state = State.RUNNING;
+		startedDate = LocalDateTime.now();
+	}
+
+	void requestCancel() {
+		cancelRequested = true;
+	}
+
+	void setFuture(Future<?> future) {
+		this.future = future;
+	}
+}
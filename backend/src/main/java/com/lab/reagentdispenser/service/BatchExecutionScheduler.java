@@ -0,0 +1,157 @@
+package com.lab.reagentdispenser.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+@Slf4j
+public class BatchExecutionScheduler {
+
+	public interface BatchTask {
+		void run(BatchExecution execution) throws Exception;
+	}
+
+	private final ThreadPoolTaskExecutor batchExecutor;
+	private final int queueCapacity;
+	private final Semaphore slots;
+	private final Map<Long, BatchExecution> executions = new ConcurrentHashMap<>();
+	private final AtomicLong completedCount = new AtomicLong();
+	private final AtomicLong rejectedCount = new AtomicLong();
+	private final Timer queueWait;
+
+	public BatchExecutionScheduler(
+			@Qualifier("batchExecutor") ThreadPoolTaskExecutor batchExecutor,
+			MeterRegistry meterRegistry,
+			@Value("${dispenser.batch.queue-capacity:16}") int queueCapacity) {
+		this.batchExecutor = batchExecutor;
+		this.queueCapacity = queueCapacity;
+		this.slots = new Semaphore(batchExecutor.getMaxPoolSize() + queueCapacity);
+
+		this.queueWait = meterRegistry.timer(DispenseMetrics.BATCH_QUEUE_WAIT);
+		Gauge.builder(DispenseMetrics.BATCH_QUEUE_DEPTH, this, BatchExecutionScheduler::getQueueDepth).register(meterRegistry);
+		Gauge.builder(DispenseMetrics.BATCH_ACTIVE, this, BatchExecutionScheduler::getActiveCount).register(meterRegistry);
+		FunctionCounter.builder(DispenseMetrics.BATCH_REJECTED, rejectedCount, AtomicLong::get).register(meterRegistry);
+	}
+
+	// Fails fast with DispenserBusyException when every worker is busy and the queue is full
+	public void checkCapacity() {
+		if (slots.availablePermits() == 0) {
+			rejectedCount.incrementAndGet();
+			throw new DispenserBusyException("Batch execution queue is full, try again later");
+		}
+	}
+
+	public BatchExecution submit(Long batchId, BatchTask task) {
+		if (!slots.tryAcquire()) {
+			rejectedCount.incrementAndGet();
+			throw new DispenserBusyException("Batch execution queue is full, try again later");
+		}
+
+		BatchExecution execution = new BatchExecution(batchId);
+		if (executions.putIfAbsent(batchId, execution) != null) {
+			slots.release();
+			throw new IllegalStateException("Batch is already scheduled for execution: " + batchId);
+		}
+
+		try {
+			execution.setFuture(batchExecutor.submit(() -> {
+				execution.markRunning();
+				queueWait.record(System.nanoTime() - execution.getSubmittedNanos(), TimeUnit.NANOSECONDS);
+				try {
+					task.run(execution);
+				} catch (Exception e) {
+					log.error("Error executing batch asynchronously", e);
+				} finally {
+					finish(execution);
+				}
+			}));
+		} catch (TaskRejectedException e) {
+			executions.remove(batchId, execution);
+			slots.release();
+			rejectedCount.incrementAndGet();
+			throw new DispenserBusyException("Batch execution queue is full, try again later");
+		}
+
+		log.info("Scheduled batch with id: {}, queue depth: {}", batchId, getQueueDepth());
+		return execution;
+	}
+
+	// Returns true when the batch was still queued and has been removed before it started.
+	// A running batch is only flagged and stops at its next head cycle boundary.
+	public boolean cancel(Long batchId) {
+		BatchExecution execution = executions.get(batchId);
+		if (execution == null) {
+			throw new IllegalArgumentException("No active execution for batch with id: " + batchId);
+		}
+
+		execution.requestCancel();
+		Future<?> future = execution.getFuture();
+		if (execution.getState() == BatchExecution.State.QUEUED && future instanceof Runnable
+				&& batchExecutor.getThreadPoolExecutor().remove((Runnable) future)) {
+			future.cancel(false);
+			finish(execution);
+			return true;
+		}
+		return false;
+	}
+
+	public Optional<BatchExecution> getExecution(Long batchId) {
+		return Optional.ofNullable(executions.get(batchId));
+	}
+
+	public List<BatchExecution> getExecutions() {
+		List<BatchExecution> list = new ArrayList<>(executions.values());
+		list.sort(Comparator.comparing(BatchExecution::getSubmittedDate));
+		return list;
+	}
+
+	public int getQueueDepth() {
+		return batchExecutor.getThreadPoolExecutor().getQueue().size();
+	}
+
+	public int getActiveCount() {
+		return batchExecutor.getActiveCount();
+	}
+
+	public int getPoolSize() {
+		return batchExecutor.getMaxPoolSize();
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public long getCompletedCount() {
+		return completedCount.get();
+	}
+
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+	private void finish(BatchExecution execution) {
+		if (executions.remove(execution.getBatchId(), execution)) {
+			slots.release();
+			completedCount.incrementAndGet();
+		}
+	}
+}
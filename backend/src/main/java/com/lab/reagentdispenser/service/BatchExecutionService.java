@@ -0,0 +1,220 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.dto.BatchExecutionDTO;
+import com.lab.reagentdispenser.dto.BatchExecutionStatusDTO;
+import com.lab.reagentdispenser.dto.BatchSummaryDTO;
+import com.lab.reagentdispenser.dto.DispenseBatchDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+// Drives batch execution without holding a transaction across the batch. Every operation
+// state change commits on its own and the progress cursor is persisted after each head cycle.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BatchExecutionService {
+
+	private final DispenseService dispenseService;
+	private final DispenserHardware dispenserHardware;
+	private final BatchExecutionScheduler batchExecutionScheduler;
+	private final MeterRegistry meterRegistry;
+
+	public BatchSummaryDTO startBatch(Long batchId) {
+		// Reject before touching the batch when the scheduler has no room left
+		batchExecutionScheduler.checkCapacity();
+		BatchSummaryDTO batch = dispenseService.beginBatchExecution(batchId);
+
+		// Execute batch asynchronously (execution status will be sent via WebSocket)
+		try {
+			batchExecutionScheduler.submit(batchId, execution -> runBatch(batchId, execution::isCancelRequested));
+		} catch (DispenserBusyException e) {
+			dispenseService.abortBatchStart(batchId);
+			throw e;
+		}
+
+		return batch;
+	}
+
+	public void resumeBatch(Long batchId) {
+		log.info("Resuming batch with id: {}", batchId);
+		dispenseService.failInterruptedOperations(batchId);
+
+		try {
+			batchExecutionScheduler.submit(batchId, execution -> runBatch(batchId, execution::isCancelRequested));
+		} catch (DispenserBusyException e) {
+			log.warn("Batch with id: {} left EXECUTING, no room to resume it", batchId);
+		}
+	}
+
+	public BatchExecutionDTO cancelBatch(Long batchId) {
+		log.info("Cancelling execution of batch with id: {}", batchId);
+		BatchExecution execution = batchExecutionScheduler.getExecution(batchId)
+				.orElseThrow(() -> new IllegalArgumentException("No active execution for batch with id: " + batchId));
+
+		// A queued batch never started, so it is cancelled here; a running one stops after its current cycle
+		if (batchExecutionScheduler.cancel(batchId)) {
+			dispenseService.cancelBatchExecution(batchId);
+		}
+		return convertExecutionToDTO(execution);
+	}
+
+	public BatchExecutionStatusDTO getExecutionStatus() {
+		return BatchExecutionStatusDTO.builder()
+				.poolSize(batchExecutionScheduler.getPoolSize())
+				.queueCapacity(batchExecutionScheduler.getQueueCapacity())
+				.activeCount(batchExecutionScheduler.getActiveCount())
+				.queueDepth(batchExecutionScheduler.getQueueDepth())
+				.completedCount(batchExecutionScheduler.getCompletedCount())
+				.rejectedCount(batchExecutionScheduler.getRejectedCount())
+				.executions(batchExecutionScheduler.getExecutions().stream()
+						.map(this::convertExecutionToDTO)
+						.collect(Collectors.toList()))
+				.build();
+	}
+
+	// Times the whole run, tagged by plate type and batch size, and each head cycle split into its phases
+	// (start: operations marked IN_PROGRESS, dispense: hardware, complete: volumes and statuses written,
+	// checkpoint: progress cursor saved), so a slow batch shows whether time goes to the database or the dispenser.
+	// A batch that stops on an unexpected error is failed; an interrupted one (shutdown) stays EXECUTING and is
+	// resumed from its checkpoint on the next start.
+	DispenseBatchDTO runBatch(Long batchId, BooleanSupplier cancelRequested) throws InterruptedException {
+		long startNanos = System.nanoTime();
+		Tags tags = batchTags(List.of());
+		DispenseBatchDTO result = null;
+		boolean ended = false;
+		try {
+			List<List<DispenseCommand>> cycles = dispenseService.planBatchCycles(batchId);
+			tags = batchTags(cycles);
+			int cursor = dispenseService.getBatchProgressCursor(batchId);
+
+			for (int i = cursor; i < cycles.size(); i++) {
+				if (cancelRequested.getAsBoolean()) {
+					result = dispenseService.cancelBatchExecution(batchId);
+					ended = true;
+					return result;
+				}
+				executeCycle(cycles.get(i), tags);
+				long checkpointNanos = System.nanoTime();
+				dispenseService.checkpointBatch(batchId, i + 1);
+				recordPhase(tags, "checkpoint", checkpointNanos);
+			}
+
+			result = dispenseService.finishBatchExecution(batchId);
+			ended = true;
+			return result;
+		} catch (InterruptedException e) {
+			ended = true;
+			throw e;
+		} finally {
+			if (!ended) {
+				result = failBatch(batchId);
+			}
+			String outcome = result != null && result.getStatus() != null ? result.getStatus() : "ERROR";
+			meterRegistry.timer(DispenseMetrics.BATCH_EXECUTE, tags.and(DispenseMetrics.TAG_OUTCOME, outcome))
+					.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	// Errors are handled per operation, so one failing operation does not stop the rest of the cycle
+	private void executeCycle(List<DispenseCommand> cycle, Tags tags) throws InterruptedException {
+		long phaseNanos = System.nanoTime();
+		List<DispenseCommand> started = new ArrayList<>(cycle.size());
+		for (DispenseCommand command : cycle) {
+			try {
+				dispenseService.startOperation(command.getOperationId());
+				started.add(command);
+			} catch (IllegalStateException e) {
+				log.warn("Skipping operation with id: {}: {}", command.getOperationId(), e.getMessage());
+			} catch (RuntimeException e) {
+				log.error("Failed to start operation with id: {}", command.getOperationId(), e);
+				failOperation(command.getOperationId(), e.getMessage());
+			}
+		}
+		phaseNanos = recordPhase(tags, "start", phaseNanos);
+
+		Map<Long, Exception> failures;
+		try {
+			failures = dispenserHardware.dispenseCycle(started);
+		} catch (InterruptedException e) {
+			for (DispenseCommand command : started) {
+				failOperation(command.getOperationId(), "Dispense interrupted");
+			}
+			throw e;
+		}
+		phaseNanos = recordPhase(tags, "dispense", phaseNanos);
+
+		// Volumes are applied one operation at a time on this thread, so shared wells and reagents stay consistent
+		for (DispenseCommand command : started) {
+			Exception failure = failures.get(command.getOperationId());
+			if (failure == null) {
+				try {
+					dispenseService.completeOperation(command.getOperationId());
+				} catch (RuntimeException e) {
+					log.error("Failed to complete operation with id: {}", command.getOperationId(), e);
+					failOperation(command.getOperationId(), e.getMessage());
+				}
+			} else {
+				log.error("Failed to execute operation with id: {}", command.getOperationId(), failure);
+				failOperation(command.getOperationId(), failure.getMessage());
+			}
+		}
+		recordPhase(tags, "complete", phaseNanos);
+	}
+
+	// An operation left IN_PROGRESS because this fails too is failed when the batch ends
+	private void failOperation(Long operationId, String errorMessage) {
+		try {
+			dispenseService.failOperation(operationId, errorMessage);
+		} catch (RuntimeException e) {
+			log.error("Failed to record failure of operation with id: {}", operationId, e);
+		}
+	}
+
+	private DispenseBatchDTO failBatch(Long batchId) {
+		try {
+			return dispenseService.failBatchExecution(batchId, "Batch execution stopped by an error");
+		} catch (RuntimeException e) {
+			log.error("Failed to record failure of batch with id: {}", batchId, e);
+			return null;
+		}
+	}
+
+	private Tags batchTags(List<List<DispenseCommand>> cycles) {
+		int operations = cycles.stream().mapToInt(List::size).sum();
+		String plateType = cycles.stream()
+				.flatMap(List::stream)
+				.findFirst()
+				.map(command -> dispenseService.getPlateType(command.getPlateBarcode()))
+				.orElse(null);
+		return Tags.of(DispenseMetrics.TAG_PLATE_TYPE, DispenseMetrics.plateType(plateType),
+				DispenseMetrics.TAG_BATCH_SIZE, DispenseMetrics.batchSize(operations));
+	}
+
+	// Returns the end of the phase, which is the start of the next one
+	private long recordPhase(Tags tags, String phase, long startNanos) {
+		long endNanos = System.nanoTime();
+		meterRegistry.timer(DispenseMetrics.BATCH_CYCLE, tags.and(DispenseMetrics.TAG_PHASE, phase))
+				.record(endNanos - startNanos, TimeUnit.NANOSECONDS);
+		return endNanos;
+	}
+
+	private BatchExecutionDTO convertExecutionToDTO(BatchExecution execution) {
+		return BatchExecutionDTO.builder()
+				.batchId(execution.getBatchId())
+				.state(execution.getState().name())
+				.submittedDate(execution.getSubmittedDate())
+				.startedDate(execution.getStartedDate())
+				.cancelRequested(execution.isCancelRequested())
+				.build();
+	}
+}
@@ -0,0 +1,26 @@
+package com.lab.reagentdispenser.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// Resumes batches left EXECUTING by a previous run from their last persisted checkpoint
+@Component
+@ConditionalOnProperty(name = "dispenser.batch.resume-on-startup", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class BatchRecoveryRunner implements ApplicationRunner {
+
+	private final DispenseService dispenseService;
+	private final BatchExecutionService batchExecutionService;
+
+	@Override
+	public void run(ApplicationArguments args) {
+		for (Long batchId : dispenseService.getInterruptedBatchIds()) {
+			batchExecutionService.resumeBatch(batchId);
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.entity.DispenseOperation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+@Component
+public class DispenseChannelPlanner {
+
+	public enum ChannelLayout {
+		COLUMN,   // Channels are stacked vertically, one head pass dispenses a plate column
+		ROW       // Channels are side by side, one head pass dispenses a plate row
+	}
+
+	private final int channels;
+	private final ChannelLayout layout;
+
+	public DispenseChannelPlanner(
+			@Value("${dispenser.hardware.channels:8}") int channels,
+			@Value("${dispenser.hardware.channel-layout:COLUMN}") ChannelLayout layout) {
+		if (channels < 1) {
+			throw new IllegalArgumentException("Dispenser must have at least one channel");
+		}
+		this.channels = channels;
+		this.layout = layout;
+	}
+
+	// Groups operations into head cycles. Each cycle holds at most one operation per channel,
+	// all in the same plate column (or row), and never two operations on the same well.
+	public List<List<DispenseOperation>> planCycles(List<DispenseOperation> operations) {
+		Map<Integer, List<DispenseOperation>> lanes = new TreeMap<>();
+		for (DispenseOperation operation : operations) {
+			String position = operation.getWell().getPosition();
+			int lane = layout == ChannelLayout.COLUMN
+					? WellPosition.columnIndex(position) : WellPosition.rowIndex(position);
+			lanes.computeIfAbsent(lane, key -> new ArrayList<>()).add(operation);
+		}
+
+		List<List<DispenseOperation>> cycles = new ArrayList<>();
+		for (List<DispenseOperation> lane : lanes.values()) {
+			lane.sort(Comparator.comparingInt(operation -> offsetInLane(operation.getWell().getPosition())));
+			LinkedList<DispenseOperation> remaining = new LinkedList<>(lane);
+			while (!remaining.isEmpty()) {
+				List<DispenseOperation> cycle = new ArrayList<>(channels);
+				Set<Long> wellsInCycle = new HashSet<>();
+				remaining.removeIf(operation -> {
+					if (cycle.size() < channels && wellsInCycle.add(operation.getWell().getId())) {
+						cycle.add(operation);
+						return true;
+					}
+					return false;
+				});
+				cycles.add(cycle);
+			}
+		}
+		return cycles;
+	}
+
+	public int getChannels() {
+		return channels;
+	}
+
+	private int offsetInLane(String position) {
+		return layout == ChannelLayout.COLUMN
+				? WellPosition.rowIndex(position) : WellPosition.columnIndex(position);
+	}
+}
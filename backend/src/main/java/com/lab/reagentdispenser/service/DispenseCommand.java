@@ -0,0 +1,13 @@
+package com.lab.reagentdispenser.service;
+
+import lombok.Value;
+
+// Detached description of a single channel dispense, safe to hand to hardware threads
+@Value
+public class DispenseCommand {
+
+	Long operationId;
+	String plateBarcode;
+	String wellPosition;
+	double volume;
+}
@@ -0,0 +1,73 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.dto.DispenseOperationDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DispenseDispatcher {
+
+	private final DispenseService dispenseService;
+	private final DispenserHardware dispenserHardware;
+
+	@Qualifier("dispenseExecutor")
+	private final TaskExecutor dispenseExecutor;
+
+	private final MeterRegistry meterRegistry;
+
+	// Marks the operation IN_PROGRESS in its own short transaction and hands the physical
+	// dispense to the dispense executor. Completion is reported via WebSocket.
+	public DispenseOperationDTO dispatch(Long operationId) {
+		log.info("Dispatching operation with id: {}", operationId);
+		long dispatchedNanos = System.nanoTime();
+		DispenseOperationDTO operation = dispenseService.startOperation(operationId);
+		String plateType = DispenseMetrics.plateType(dispenseService.getPlateType(operation.getPlateBarcode()));
+
+		try {
+			dispenseExecutor.execute(() -> runDispense(operation, plateType, dispatchedNanos));
+		} catch (TaskRejectedException e) {
+			log.warn("Dispense executor rejected operation with id: {}", operationId);
+			dispenseService.failOperation(operationId, "Dispenser is busy, operation was not executed");
+			throw new DispenserBusyException("Dispenser is busy, try again later");
+		}
+
+		return operation;
+	}
+
+	// Records the time spent waiting for a dispense thread, the dispense itself and the whole execution
+	// from dispatch to completion
+	private void runDispense(DispenseOperationDTO operation, String plateType, long dispatchedNanos) {
+		long startedNanos = System.nanoTime();
+		meterRegistry.timer(DispenseMetrics.OPERATION_QUEUE_WAIT, DispenseMetrics.TAG_PLATE_TYPE, plateType)
+				.record(startedNanos - dispatchedNanos, TimeUnit.NANOSECONDS);
+		String outcome = "failed";
+		try {
+			dispenserHardware.dispense(operation.getPlateBarcode(), operation.getWellPosition(),
+					operation.getVolumeDispensed());
+			meterRegistry.timer(DispenseMetrics.OPERATION_DISPENSE, DispenseMetrics.TAG_PLATE_TYPE, plateType)
+					.record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+			dispenseService.completeOperation(operation.getId());
+			outcome = "completed";
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			log.error("Dispense interrupted for operation with id: {}", operation.getId());
+			dispenseService.failOperation(operation.getId(), "Dispense interrupted");
+		} catch (Exception e) {
+			log.error("Failed to execute operation with id: {}", operation.getId(), e);
+			dispenseService.failOperation(operation.getId(), e.getMessage());
+		} finally {
+			meterRegistry.timer(DispenseMetrics.OPERATION_EXECUTE,
+					DispenseMetrics.TAG_PLATE_TYPE, plateType, DispenseMetrics.TAG_OUTCOME, outcome)
+					.record(System.nanoTime() - dispatchedNanos, TimeUnit.NANOSECONDS);
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.repository.DispenseEventOutboxRepository;
+import com.lab.reagentdispenser.repository.OutboxEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Drains committed events from the outbox every dispenser.events.coalesce-window-ms, in batches of
+// dispenser.events.outbox-batch-size, and hands them to the event stream, which coalesces and sends
+// them. Events of rolled back transactions never reach the outbox, and nothing is serialised on the
+// request thread. Delivery is at least once: rows are numbered and stored before they are published and
+// deleted after, so a failure or crash in between publishes them again with the same sequence number,
+// which the event stream and clients skip as already seen.
+@Component
+@Slf4j
+public class DispenseEventOutboxPublisher {
+
+	private final DispenseEventOutboxRepository outboxRepository;
+	private final DispenseEventStream eventStream;
+	private final int batchSize;
+	private final Timer outboxLag;
+
+	public DispenseEventOutboxPublisher(
+			DispenseEventOutboxRepository outboxRepository,
+			DispenseEventStream eventStream,
+			MeterRegistry meterRegistry,
+			@Value("${dispenser.events.outbox-batch-size:500}") int batchSize) {
+		this.outboxRepository = outboxRepository;
+		this.eventStream = eventStream;
+		this.batchSize = batchSize;
+		this.outboxLag = meterRegistry.timer(DispenseMetrics.EVENTS_OUTBOX_LAG);
+	}
+
+	@Scheduled(fixedDelayString = "${dispenser.events.coalesce-window-ms:50}")
+	public void publishPending() {
+		List<OutboxEvent> events;
+		do {
+			outboxRepository.assignSequence(batchSize);
+			events = outboxRepository.findOldest(batchSize);
+			if (events.isEmpty()) {
+				break;
+			}
+			LocalDateTime now = LocalDateTime.now();
+			for (OutboxEvent event : events) {
+				// Time the event waited in the outbox, from the database's insert timestamp
+				outboxLag.record(Duration.between(event.getCreatedDate(), now));
+				eventStream.publish(event.getPlateBarcode(), event.getEvent());
+			}
+			outboxRepository.delete(events);
+			log.debug("Published {} dispense event(s) from the outbox", events.size());
+		} while (events.size() == batchSize);
+
+		eventStream.flush();
+	}
+}
@@ -0,0 +1,191 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.dto.DispenseEventDTO;
+import com.lab.reagentdispenser.dto.DispenseEventFrameDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Compact status stream for WebSocket clients, partitioned into one topic per plate (by barcode) and one per
+// batch so a client only receives what it shows. Every event has a sequence number from the outbox, shared by
+// all topics and increasing in publish order, though not necessarily without gaps;
+// events published between two flushes (driven by DispenseEventOutboxPublisher) are sent as one frame per
+// topic in which repeated updates of the same operation or batch collapse to the latest. Each frame carries the sequence
+// number of the previous frame of its topic, so a client can detect a gap and catch up through
+// getEventsSince, which serves the last dispenser.events.history-size events uncoalesced.
+@Component
+@Slf4j
+public class DispenseEventStream {
+
+	public static final String PLATE_TOPIC_PREFIX = "/topic/plates/";
+	public static final String BATCH_TOPIC_PREFIX = "/topic/batches/";
+
+	private static final Set<String> FINAL_BATCH_STATUSES = Set.of("COMPLETED", "FAILED", "CANCELLED");
+
+	private final SimpMessagingTemplate messagingTemplate;
+	private final DispenseTopicSubscriptions subscriptions;
+	private final int historySize;
+
+	private final Counter eventsPublished;
+	private final Counter framesSent;
+	private final Counter framesSkipped;
+	private final Timer flushTimer;
+
+	private final Object lock = new Object();
+	private long lastSeq;
+	// Highest sequence number dropped from the history; numbers may have gaps, so the oldest kept one does not tell
+	private long droppedSeq;
+	private final Deque<PublishedEvent> history = new ArrayDeque<>();
+
+	// Events not yet sent per topic, keyed by operation or batch so later updates replace earlier ones
+	private final Map<String, Map<String, DispenseEventDTO>> pending = new LinkedHashMap<>();
+	private final Map<String, Long> lastSentSeqByTopic = new HashMap<>();
+
+	public DispenseEventStream(
+			SimpMessagingTemplate messagingTemplate,
+			DispenseTopicSubscriptions subscriptions,
+			MeterRegistry meterRegistry,
+			@Value("${dispenser.events.history-size:10000}") int historySize) {
+		this.messagingTemplate = messagingTemplate;
+		this.subscriptions = subscriptions;
+		this.historySize = historySize;
+		this.eventsPublished = meterRegistry.counter(DispenseMetrics.EVENTS_PUBLISHED);
+		// Frames of topics nobody subscribes to are skipped before serialisation
+		this.framesSent = meterRegistry.counter(DispenseMetrics.EVENTS_FRAMES, DispenseMetrics.TAG_OUTCOME, "sent");
+		this.framesSkipped = meterRegistry.counter(DispenseMetrics.EVENTS_FRAMES, DispenseMetrics.TAG_OUTCOME, "skipped");
+		this.flushTimer = meterRegistry.timer(DispenseMetrics.EVENTS_FLUSH);
+	}
+
+	// Events carry the sequence number stored in the outbox; one at or below the latest was published
+	// before and is skipped. Events without a number are numbered after the latest.
+	public void publish(String plateBarcode, DispenseEventDTO event) {
+		synchronized (lock) {
+			long seq = event.getSeq() != null ? event.getSeq() : lastSeq + 1;
+			if (seq <= lastSeq) {
+				log.debug("Skipping redelivered dispense event {}", seq);
+				return;
+			}
+			if (lastSeq == 0) {
+				// Events before the first one seen since startup are not in the history
+				droppedSeq = seq - 1;
+			}
+			eventsPublished.increment();
+			lastSeq = seq;
+			DispenseEventDTO sequenced = event.toBuilder().seq(seq).build();
+			history.addLast(new PublishedEvent(plateBarcode, sequenced));
+			if (history.size() > historySize) {
+				droppedSeq = history.removeFirst().event.getSeq();
+			}
+
+			String key = sequenced.getOpId() != null ? "op:" + sequenced.getOpId() : "batch:" + sequenced.getBatchId();
+			addPending(PLATE_TOPIC_PREFIX + plateBarcode, key, sequenced);
+			if (sequenced.getBatchId() != null) {
+				addPending(BATCH_TOPIC_PREFIX + sequenced.getBatchId(), key, sequenced);
+			}
+		}
+	}
+
+	public void flush() {
+		Map<String, DispenseEventFrameDTO> frames = new LinkedHashMap<>();
+		synchronized (lock) {
+			if (pending.isEmpty()) {
+				return;
+			}
+			for (Map.Entry<String, Map<String, DispenseEventDTO>> entry : pending.entrySet()) {
+				String topic = entry.getKey();
+				List<DispenseEventDTO> events = new ArrayList<>(entry.getValue().values());
+				DispenseEventDTO latest = events.get(events.size() - 1);
+
+				Long prevSeq = lastSentSeqByTopic.getOrDefault(topic, 0L);
+				if (topic.startsWith(BATCH_TOPIC_PREFIX) && latest.getOpId() == null
+						&& FINAL_BATCH_STATUSES.contains(latest.getStatus())) {
+					// Nothing follows the end of a batch, so its topic needs no further bookkeeping
+					lastSentSeqByTopic.remove(topic);
+				} else {
+					lastSentSeqByTopic.put(topic, latest.getSeq());
+				}
+
+				if (subscriptions.hasSubscribers(topic)) {
+					frames.put(topic, DispenseEventFrameDTO.builder()
+							.prevSeq(prevSeq)
+							.toSeq(latest.getSeq())
+							.events(events)
+							.build());
+				} else {
+					framesSkipped.increment();
+				}
+			}
+			pending.clear();
+		}
+		if (frames.isEmpty()) {
+			return;
+		}
+
+		// Frames are only sent from the outbox publisher thread, so clients receive them in sequence order.
+		// The timer covers serialisation and the hand-off to the broker.
+		flushTimer.record(() -> frames.forEach((topic, frame) -> messagingTemplate.convertAndSend(topic, frame)));
+		framesSent.increment(frames.size());
+		log.debug("Sent {} dispense event frame(s)", frames.size());
+	}
+
+	// Returns every event after the given sequence number, optionally only those of one plate or batch;
+	// throws IllegalStateException when some events have already been dropped from the history, in which
+	// case the client must reload its state
+	public DispenseEventFrameDTO getEventsSince(long since, String plateBarcode, Long batchId) {
+		synchronized (lock) {
+			if (since < 0 || since > lastSeq) {
+				throw new IllegalArgumentException("Sequence number out of range: " + since + " (latest: " + lastSeq + ")");
+			}
+			if (since < droppedSeq) {
+				long oldestSeq = history.isEmpty() ? lastSeq + 1 : history.getFirst().event.getSeq();
+				throw new IllegalStateException("Events after " + since + " are no longer available; oldest is " + oldestSeq);
+			}
+
+			List<DispenseEventDTO> events = new ArrayList<>();
+			for (PublishedEvent published : history) {
+				DispenseEventDTO event = published.event;
+				if (event.getSeq() > since
+						&& (plateBarcode == null || plateBarcode.equals(published.plateBarcode))
+						&& (batchId == null || batchId.equals(event.getBatchId()))) {
+					events.add(event);
+				}
+			}
+			return DispenseEventFrameDTO.builder()
+					.prevSeq(since)
+					.toSeq(lastSeq)
+					.events(events)
+					.build();
+		}
+	}
+
+	private void addPending(String topic, String key, DispenseEventDTO event) {
+		Map<String, DispenseEventDTO> topicEvents = pending.computeIfAbsent(topic, t -> new LinkedHashMap<>());
+		// Re-insert so the coalesced event keeps the position of its latest update
+		topicEvents.remove(key);
+		topicEvents.put(key, event);
+	}
+
+	private static class PublishedEvent {
+
+		private final String plateBarcode;
+		private final DispenseEventDTO event;
+
+		private PublishedEvent(String plateBarcode, DispenseEventDTO event) {
+			this.plateBarcode = plateBarcode;
+			this.event = event;
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.dto.AddOperationToBatchRequestDTO;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Parses a dispense map with one "wellPosition,reagentId,volume" line per operation.
+// A header line starting with "well" and blank lines are skipped. Each row is checked against the same
+// constraints as a JSON operation request.
+public final class DispenseMapCsvParser {
+
+	private DispenseMapCsvParser() {
+	}
+
+	public static List<AddOperationToBatchRequestDTO> parse(String csv, Validator validator) {
+		List<AddOperationToBatchRequestDTO> operations = new ArrayList<>();
+		String[] lines = csv.split("\\r?\\n");
+		for (int i = 0; i < lines.length; i++) {
+			String line = lines[i].trim();
+			if (line.isEmpty() || (i == 0 && line.toLowerCase().startsWith("well"))) {
+				continue;
+			}
+
+			String[] fields = line.split(",");
+			if (fields.length != 3) {
+				throw new IllegalArgumentException(
+						"Line " + (i + 1) + ": expected wellPosition,reagentId,volume but got: " + line);
+			}
+			AddOperationToBatchRequestDTO operation;
+			try {
+				operation = AddOperationToBatchRequestDTO.builder()
+						.wellPosition(fields[0].trim())
+						.reagentId(Long.parseLong(fields[1].trim()))
+						.volume(Double.parseDouble(fields[2].trim()))
+						.build();
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Line " + (i + 1) + ": invalid number in: " + line);
+			}
+			// NaN and Infinity parse as doubles but pass @Min
+			if (!Double.isFinite(operation.getVolume())) {
+				throw new IllegalArgumentException("Line " + (i + 1) + ": volume must be a finite number");
+			}
+			Set<ConstraintViolation<AddOperationToBatchRequestDTO>> violations = validator.validate(operation);
+			if (!violations.isEmpty()) {
+				throw new IllegalArgumentException("Line " + (i + 1) + ": " + violations.iterator().next().getMessage());
+			}
+			operations.add(operation);
+		}
+		return operations;
+	}
+}
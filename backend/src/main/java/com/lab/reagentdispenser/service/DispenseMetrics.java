@@ -0,0 +1,56 @@
+package com.lab.reagentdispenser.service;
+
+// Meter names and tag values of the dispenser's Micrometer metrics, scraped from /actuator/prometheus.
+// Timers publish fixed histogram buckets (see management.metrics.distribution.* in application.properties),
+// so recording stays a bucket increment and percentiles are aggregated on the Prometheus side.
+public final class DispenseMetrics {
+
+	public static final String OPERATION_CREATE = "dispenser.operation.create";
+	public static final String OPERATION_QUEUE_WAIT = "dispenser.operation.queue.wait";
+	public static final String OPERATION_DISPENSE = "dispenser.operation.dispense";
+	public static final String OPERATION_EXECUTE = "dispenser.operation.execute";
+
+	public static final String BATCH_QUEUE_WAIT = "dispenser.batch.queue.wait";
+	public static final String BATCH_QUEUE_DEPTH = "dispenser.batch.queue.depth";
+	public static final String BATCH_ACTIVE = "dispenser.batch.active";
+	public static final String BATCH_REJECTED = "dispenser.batch.rejected";
+	public static final String BATCH_EXECUTE = "dispenser.batch.execute";
+	public static final String BATCH_CYCLE = "dispenser.batch.cycle";
+
+	public static final String STATE_FLUSH = "dispenser.state.flush";
+
+	public static final String EVENTS_PUBLISHED = "dispenser.events.published";
+	public static final String EVENTS_FRAMES = "dispenser.events.frames";
+	public static final String EVENTS_FLUSH = "dispenser.events.flush";
+	public static final String EVENTS_OUTBOX_LAG = "dispenser.events.outbox.lag";
+
+	public static final String WEBSOCKET_SESSIONS = "dispenser.websocket.sessions";
+	public static final String WEBSOCKET_EVICTED = "dispenser.websocket.evicted";
+	public static final String WEBSOCKET_DROPPED = "dispenser.websocket.dropped";
+
+	public static final String OPERATIONS_ARCHIVED = "dispenser.operations.archived";
+
+	public static final String TAG_PLATE_TYPE = "plate.type";
+	public static final String TAG_BATCH_SIZE = "batch.size";
+	public static final String TAG_OUTCOME = "outcome";
+	public static final String TAG_PHASE = "phase";
+
+	public static final String UNKNOWN = "unknown";
+
+	private DispenseMetrics() {
+	}
+
+	public static String plateType(String plateType) {
+		return plateType != null ? plateType : UNKNOWN;
+	}
+
+	// Buckets by the plate formats so the tag has a handful of values whatever the batch size
+	public static String batchSize(int operations) {
+		for (PlateFormat format : PlateFormat.values()) {
+			if (operations <= format.getWellCount()) {
+				return "<=" + format.getWellCount();
+			}
+		}
+		return ">" + PlateFormat.WELL_1536.getWellCount();
+	}
+}
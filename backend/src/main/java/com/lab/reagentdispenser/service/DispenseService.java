@@ -1,29 +1,41 @@
 package com.lab.reagentdispenser.service;
 
 import com.lab.reagentdispenser.dto.AddOperationToBatchRequestDTO;
+import com.lab.reagentdispenser.dto.BatchPlanResultDTO;
+import com.lab.reagentdispenser.dto.BatchSummaryDTO;
 import com.lab.reagentdispenser.dto.CreateBatchRequestDTO;
 import com.lab.reagentdispenser.dto.DispenseBatchDTO;
+import com.lab.reagentdispenser.dto.DispenseEventDTO;
 import com.lab.reagentdispenser.dto.DispenseOperationDTO;
 import com.lab.reagentdispenser.dto.DispenseRequestDTO;
-import com.lab.reagentdispenser.dto.WebSocketMessage;
+import com.lab.reagentdispenser.dto.ReagentVolumeDTO;
 import com.lab.reagentdispenser.entity.DispenseBatch;
 import com.lab.reagentdispenser.entity.DispenseOperation;
 import com.lab.reagentdispenser.entity.Plate;
-import com.lab.reagentdispenser.entity.Reagent;
-import com.lab.reagentdispenser.entity.Well;
+import com.lab.reagentdispenser.repository.BatchReagentVolume;
+import com.lab.reagentdispenser.repository.BatchStatusCount;
 import com.lab.reagentdispenser.repository.DispenseBatchRepository;
+import com.lab.reagentdispenser.repository.DispenseEventOutboxRepository;
 import com.lab.reagentdispenser.repository.DispenseOperationRepository;
+import com.lab.reagentdispenser.repository.OperationArchiveRepository;
 import com.lab.reagentdispenser.repository.PlateRepository;
 import com.lab.reagentdispenser.repository.ReagentRepository;
 import com.lab.reagentdispenser.repository.WellRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -36,18 +48,16 @@ public class DispenseService {
 	private final PlateRepository plateRepository;
 	private final WellRepository wellRepository;
 	private final ReagentRepository reagentRepository;
-	private final SimpMessagingTemplate messagingTemplate;
-
-	public List<DispenseOperationDTO> getAllOperations() {
-		log.info("Retrieving all dispense operations");
-		return operationRepository.findAll().stream()
-				.map(this::convertToDTO)
-				.collect(Collectors.toList());
-	}
+	private final DispenseEventOutboxRepository eventOutbox;
+	private final DispenseChannelPlanner channelPlanner;
+	private final PlateStateEngine plateStateEngine;
+	private final ReagentCatalog reagentCatalog;
+	private final OperationArchiveRepository archiveRepository;
+	private final MeterRegistry meterRegistry;
 
 	public DispenseOperationDTO getOperationById(Long id) {
 		log.info("Retrieving operation by id: {}", id);
-		DispenseOperation operation = operationRepository.findById(id)
+		DispenseOperation operation = operationRepository.findWithDetailsById(id)
 				.orElseThrow(() -> new IllegalArgumentException("Operation not found with id: " + id));
 		return convertToDTO(operation);
 	}
@@ -64,61 +74,56 @@ public class DispenseService {
 	public DispenseOperationDTO createOperation(DispenseRequestDTO request) {
 		log.info("Creating dispense operation for plate: {}, well: {}", 
 				request.getPlateBarcode(), request.getWellPosition());
-
-		// Validate plate
-		Plate plate = plateRepository.findByBarcode(request.getPlateBarcode())
-				.orElseThrow(() -> new IllegalArgumentException(
-						"Plate not found with barcode: " + request.getPlateBarcode()));
-
-		// Validate well
-		Well well = wellRepository.findByPlateAndPosition(plate, request.getWellPosition())
-				.orElseThrow(() -> new IllegalArgumentException(
-						"Well not found at position: " + request.getWellPosition()));
-
-		// Validate reagent
-		Reagent reagent = reagentRepository.findById(request.getReagentId())
-				.orElseThrow(() -> new IllegalArgumentException(
-						"Reagent not found with id: " + request.getReagentId()));
-
-		// Validate volume
-		if (well.getVolume() != null && well.getVolume() + request.getVolume() > well.getMaxVolume()) {
-			throw new IllegalArgumentException(
-					"Volume exceeds well capacity. Current: " + well.getVolume() + 
-					", Requested: " + request.getVolume() + 
-					", Max: " + well.getMaxVolume());
-		}
-
-		// Validate reagent stock
-		if (reagent.getStockVolume() < request.getVolume()) {
-			throw new IllegalArgumentException(
-					"Insufficient reagent stock. Available: " + reagent.getStockVolume() + 
-					", Requested: " + request.getVolume());
+		Timer.Sample sample = Timer.start(meterRegistry);
+		String plateType = DispenseMetrics.UNKNOWN;
+		String outcome = "error";
+		try {
+			// Validate plate and well, then reserve well capacity and reagent stock net of pending operations
+			PlateState plateState = plateStateEngine.getPlateState(request.getPlateBarcode());
+			plateType = DispenseMetrics.plateType(plateState.getPlateType());
+			int wellIndex = plateStateEngine.findWellIndex(plateState, request.getWellPosition());
+			plateStateEngine.reserve(plateState, wellIndex, request.getReagentId(), request.getVolume());
+
+			// Create operation
+			DispenseOperation operation = DispenseOperation.builder()
+					.plate(plateRepository.getById(plateState.getPlateId()))
+					.well(wellRepository.getById(plateState.getWellId(wellIndex)))
+					.reagent(reagentRepository.getById(request.getReagentId()))
+					.volumeDispensed(request.getVolume())
+					.status(DispenseOperation.OperationStatus.PENDING)
+					.createdDate(LocalDateTime.now())
+					.build();
+
+			DispenseOperation savedOperation = operationRepository.save(operation);
+			log.info("Created operation with id: {}", savedOperation.getId());
+
+			// Plate, well and reagent are unloaded references; their details come from the plate state and
+			// the reagent cache so that the event and the response need no further queries
+			DispenseOperationDTO created = convertNewOperationToDTO(savedOperation, plateState, wellIndex);
+			eventOutbox.append(plateState.getBarcode(), DispenseEventDTO.builder()
+					.opId(created.getId())
+					.plateId(created.getPlateId())
+					.well(created.getWellPosition())
+					.status(created.getStatus())
+					.wellVolume(created.getWellVolume())
+					.build());
+			outcome = "success";
+			return created;
+		} finally {
+			sample.stop(meterRegistry.timer(DispenseMetrics.OPERATION_CREATE,
+					DispenseMetrics.TAG_PLATE_TYPE, plateType, DispenseMetrics.TAG_OUTCOME, outcome));
 		}
+	}
 
-		// Create operation
-		DispenseOperation operation = DispenseOperation.builder()
-				.plate(plate)
-				.well(well)
-				.reagent(reagent)
-				.volumeDispensed(request.getVolume())
-				.status(DispenseOperation.OperationStatus.PENDING)
-				.createdDate(LocalDateTime.now())
-				.build();
-
-		DispenseOperation savedOperation = operationRepository.save(operation);
-		log.info("Created operation with id: {}", savedOperation.getId());
-
-		// Send WebSocket notification
-		sendWebSocketUpdate("OPERATION_CREATED", convertToDTO(savedOperation));
-
-		return convertToDTO(savedOperation);
+	public String getPlateType(String plateBarcode) {
+		return plateStateEngine.getPlateState(plateBarcode).getPlateType();
 	}
 
 	@Transactional
-	public DispenseOperationDTO executeOperation(Long operationId) {
-		log.info("Executing operation with id: {}", operationId);
+	public DispenseOperationDTO startOperation(Long operationId) {
+		log.info("Starting operation with id: {}", operationId);
 
-		DispenseOperation operation = operationRepository.findById(operationId)
+		DispenseOperation operation = operationRepository.findWithDetailsById(operationId)
 				.orElseThrow(() -> new IllegalArgumentException("Operation not found with id: " + operationId));
 
 		if (operation.getStatus() != DispenseOperation.OperationStatus.PENDING) {
@@ -128,40 +133,49 @@ public class DispenseService {
 		// Update status to IN_PROGRESS
 		operation.setStatus(DispenseOperation.OperationStatus.IN_PROGRESS);
 		operationRepository.save(operation);
-		sendWebSocketUpdate("OPERATION_STATUS_CHANGE", convertToDTO(operation));
 
-		try {
-			// Simulate dispense operation (in real system, this would communicate with hardware)
-			Thread.sleep(2000); // Simulate 2 second dispense time
-
-			// Update well volume
-			Well well = operation.getWell();
-			Double currentVolume = well.getVolume() != null ? well.getVolume() : 0.0;
-			well.setVolume(currentVolume + operation.getVolumeDispensed());
-			wellRepository.save(well);
-
-			// Update reagent stock
-			Reagent reagent = operation.getReagent();
-			reagent.setStockVolume(reagent.getStockVolume() - operation.getVolumeDispensed());
-			reagentRepository.save(reagent);
-
-			// Update operation status to COMPLETED
-			operation.setStatus(DispenseOperation.OperationStatus.COMPLETED);
-			operation.setCompletedDate(LocalDateTime.now());
-			operationRepository.save(operation);
-
-			log.info("Completed operation with id: {}", operationId);
-			sendWebSocketUpdate("OPERATION_STATUS_CHANGE", convertToDTO(operation));
-
-		} catch (Exception e) {
-			log.error("Failed to execute operation with id: {}", operationId, e);
-			operation.setStatus(DispenseOperation.OperationStatus.FAILED);
-			operation.setErrorMessage(e.getMessage());
-			operation.setCompletedDate(LocalDateTime.now());
-			operationRepository.save(operation);
-			sendWebSocketUpdate("OPERATION_STATUS_CHANGE", convertToDTO(operation));
+		publishOperationEvent(operation);
+		return convertToDTO(operation);
+	}
+
+	@Transactional
+	public DispenseOperationDTO completeOperation(Long operationId) {
+		DispenseOperation operation = operationRepository.findWithDetailsById(operationId)
+				.orElseThrow(() -> new IllegalArgumentException("Operation not found with id: " + operationId));
+
+		if (operation.getStatus() != DispenseOperation.OperationStatus.IN_PROGRESS) {
+			throw new IllegalStateException("Operation is not in IN_PROGRESS status: " + operation.getStatus());
 		}
 
+		// Update well volume and reagent stock (written behind to the database by the plate state engine)
+		plateStateEngine.applyDispense(operation.getPlate().getId(), operation.getWell().getPosition(),
+				operation.getReagent().getId(), operation.getVolumeDispensed());
+
+		// Update operation status to COMPLETED
+		operation.setStatus(DispenseOperation.OperationStatus.COMPLETED);
+		operation.setCompletedDate(LocalDateTime.now());
+		operationRepository.save(operation);
+
+		log.info("Completed operation with id: {}", operationId);
+		publishOperationEvent(operation);
+		return convertToDTO(operation);
+	}
+
+	@Transactional
+	public DispenseOperationDTO failOperation(Long operationId, String errorMessage) {
+		DispenseOperation operation = operationRepository.findWithDetailsById(operationId)
+				.orElseThrow(() -> new IllegalArgumentException("Operation not found with id: " + operationId));
+
+		if (operation.getStatus() == DispenseOperation.OperationStatus.PENDING ||
+				operation.getStatus() == DispenseOperation.OperationStatus.IN_PROGRESS) {
+			releaseReservation(operation);
+		}
+		operation.setStatus(DispenseOperation.OperationStatus.FAILED);
+		operation.setErrorMessage(errorMessage);
+		operation.setCompletedDate(LocalDateTime.now());
+		operationRepository.save(operation);
+
+		publishOperationEvent(operation);
 		return convertToDTO(operation);
 	}
 
@@ -190,7 +204,7 @@ public class DispenseService {
 	}
 
 	@Transactional
-	public DispenseBatchDTO addOperationToBatch(Long batchId, AddOperationToBatchRequestDTO request) {
+	public BatchSummaryDTO addOperationToBatch(Long batchId, AddOperationToBatchRequestDTO request) {
 		log.info("Adding operation to batch: {}", batchId);
 
 		// Validate batch
@@ -203,105 +217,166 @@ public class DispenseService {
 
 		Plate plate = batch.getPlate();
 
-		// Validate well
-		Well well = wellRepository.findByPlateAndPosition(plate, request.getWellPosition())
-				.orElseThrow(() -> new IllegalArgumentException(
-						"Well not found at position: " + request.getWellPosition()));
-
-		// Validate reagent
-		Reagent reagent = reagentRepository.findById(request.getReagentId())
-				.orElseThrow(() -> new IllegalArgumentException(
-						"Reagent not found with id: " + request.getReagentId()));
-
-		// Validate volume
-		if (well.getVolume() != null && well.getVolume() + request.getVolume() > well.getMaxVolume()) {
-			throw new IllegalArgumentException(
-					"Volume exceeds well capacity. Current: " + well.getVolume() + 
-					", Requested: " + request.getVolume() + 
-					", Max: " + well.getMaxVolume());
-		}
-
-		// Validate reagent stock
-		if (reagent.getStockVolume() < request.getVolume()) {
-			throw new IllegalArgumentException(
-					"Insufficient reagent stock. Available: " + reagent.getStockVolume() + 
-					", Requested: " + request.getVolume());
-		}
+		// Validate well, then reserve well capacity and reagent stock net of pending operations
+		PlateState plateState = plateStateEngine.getPlateState(plate);
+		int wellIndex = plateStateEngine.findWellIndex(plateState, request.getWellPosition());
+		plateStateEngine.reserve(plateState, wellIndex, request.getReagentId(), request.getVolume());
 
 		// Create operation
 		DispenseOperation operation = DispenseOperation.builder()
 				.plate(plate)
-				.well(well)
-				.reagent(reagent)
+				.well(wellRepository.getById(plateState.getWellId(wellIndex)))
+				.reagent(reagentRepository.getById(request.getReagentId()))
 				.volumeDispensed(request.getVolume())
 				.status(DispenseOperation.OperationStatus.PENDING)
+				.batch(batch)
 				.createdDate(LocalDateTime.now())
 				.build();
 
-		batch.addOperation(operation);
-		DispenseBatch savedBatch = batchRepository.save(batch);
+		operationRepository.save(operation);
 
-		log.info("Added operation to batch: {}, total operations: {}", batchId, savedBatch.getOperations().size());
+		BatchSummaryDTO summary = summarize(List.of(batch)).get(0);
+		log.info("Added operation to batch: {}, total operations: {}", batchId, summary.getOperationCount());
 
-		return convertBatchToDTO(savedBatch);
+		return summary;
 	}
 
-	public DispenseBatchDTO getBatchById(Long batchId) {
-		log.info("Retrieving batch by id: {}", batchId);
+	// Adds a whole dispense map in one request. Well capacity and reagent stock are reserved for the
+	// summed demand per well and per reagent, then all operations are inserted with JDBC batches.
+	@Transactional
+	public BatchPlanResultDTO addOperationsToBatch(Long batchId, List<AddOperationToBatchRequestDTO> requests) {
+		log.info("Adding {} operations to batch: {}", requests.size(), batchId);
+
 		DispenseBatch batch = batchRepository.findById(batchId)
 				.orElseThrow(() -> new IllegalArgumentException("Batch not found with id: " + batchId));
-		return convertBatchToDTO(batch);
+
+		if (batch.getStatus() != DispenseBatch.BatchStatus.PLANNED) {
+			throw new IllegalStateException("Cannot add operations to batch with status: " + batch.getStatus());
+		}
+
+		PlateState plateState = plateStateEngine.getPlateState(batch.getPlate());
+
+		int[] wellIndexes = new int[requests.size()];
+		double[] wellDemand = new double[plateState.getRows() * plateState.getColumns()];
+		Map<Long, Double> reagentDemand = new LinkedHashMap<>();
+		for (int i = 0; i < requests.size(); i++) {
+			AddOperationToBatchRequestDTO request = requests.get(i);
+			wellIndexes[i] = plateStateEngine.findWellIndex(plateState, request.getWellPosition());
+			wellDemand[wellIndexes[i]] += request.getVolume();
+			reagentDemand.merge(request.getReagentId(), request.getVolume(), Double::sum);
+		}
+
+		plateStateEngine.reserveAll(plateState, wellDemand, reagentDemand);
+
+		// Wells and reagents are unloaded references, so building the operations needs no queries. Ids come
+		// in blocks from the operations sequence and the inserts go out as JDBC batches before the count.
+		LocalDateTime now = LocalDateTime.now();
+		List<DispenseOperation> operations = new ArrayList<>(requests.size());
+		for (int i = 0; i < requests.size(); i++) {
+			AddOperationToBatchRequestDTO request = requests.get(i);
+			operations.add(DispenseOperation.builder()
+					.plate(batch.getPlate())
+					.well(wellRepository.getById(plateState.getWellId(wellIndexes[i])))
+					.reagent(reagentRepository.getById(request.getReagentId()))
+					.volumeDispensed(request.getVolume())
+					.status(DispenseOperation.OperationStatus.PENDING)
+					.batch(batch)
+					.createdDate(now)
+					.build());
+		}
+		operationRepository.saveAll(operations);
+
+		long operationCount = operationRepository.countByBatchId(batchId);
+		log.info("Added {} operations to batch: {}, total operations: {}", requests.size(), batchId, operationCount);
+
+		return BatchPlanResultDTO.builder()
+				.batchId(batchId)
+				.operationsAdded(requests.size())
+				.operationCount(operationCount)
+				.reagentDemand(reagentDemand)
+				.build();
 	}
 
-	public List<DispenseBatchDTO> getAllBatches() {
+	public BatchSummaryDTO getBatchById(Long batchId) {
+		log.info("Retrieving batch by id: {}", batchId);
+		DispenseBatch batch = batchRepository.findWithPlateById(batchId)
+				.orElseThrow(() -> new IllegalArgumentException("Batch not found with id: " + batchId));
+		return summarize(List.of(batch)).get(0);
+	}
+
+	// Three queries regardless of the number of batches and operations
+	public List<BatchSummaryDTO> getAllBatches() {
 		log.info("Retrieving all dispense batches");
-		return batchRepository.findAll().stream()
-				.map(this::convertBatchToDTO)
-				.collect(Collectors.toList());
+		return summarize(batchRepository.findAllWithPlate());
 	}
 
+	// Batch execution steps, each runs in its own short transaction (see BatchExecutionService)
+
 	@Transactional
-	public DispenseBatchDTO executeBatch(Long batchId) {
+	public BatchSummaryDTO beginBatchExecution(Long batchId) {
 		log.info("Executing batch with id: {}", batchId);
 
-		DispenseBatch batch = batchRepository.findById(batchId)
+		DispenseBatch batch = batchRepository.findWithPlateById(batchId)
 				.orElseThrow(() -> new IllegalArgumentException("Batch not found with id: " + batchId));
 
 		if (batch.getStatus() != DispenseBatch.BatchStatus.PLANNED) {
 			throw new IllegalStateException("Batch is not in PLANNED status: " + batch.getStatus());
 		}
 
-		if (batch.getOperations().isEmpty()) {
+		if (operationRepository.countByBatchId(batchId) == 0) {
 			throw new IllegalStateException("Batch has no operations to execute");
 		}
 
 		// Update batch status to EXECUTING
 		batch.setStatus(DispenseBatch.BatchStatus.EXECUTING);
 		batch.setExecutionStartedDate(LocalDateTime.now());
+		batch.setProgressCursor(0);
 		batchRepository.save(batch);
 
-		// Send WebSocket notification about batch execution start
-		sendWebSocketUpdate("BATCH_EXECUTION_STARTED", convertBatchToDTO(batch));
+		publishBatchEvent(batch);
+		return summarize(List.of(batch)).get(0);
+	}
 
-		// Execute operations sequentially with 0.5s delay
-		boolean allSuccess = true;
-		for (DispenseOperation operation : batch.getOperations()) {
-			try {
-				executeOperationInBatch(operation);
-				
-				// Add 0.5 second delay between operations
-				Thread.sleep(500);
-				
-			} catch (Exception e) {
-				log.error("Failed to execute operation with id: {}", operation.getId(), e);
-				allSuccess = false;
-				operation.setStatus(DispenseOperation.OperationStatus.FAILED);
-				operation.setErrorMessage(e.getMessage());
-				operation.setCompletedDate(LocalDateTime.now());
-				operationRepository.save(operation);
-				sendWebSocketUpdate("OPERATION_STATUS_CHANGE", convertToDTO(operation));
-			}
+	// Plans the head cycles of a batch. The plan is deterministic, so a progress cursor
+	// stays valid across restarts; only operations still PENDING are returned.
+	@Transactional(readOnly = true)
+	public List<List<DispenseCommand>> planBatchCycles(Long batchId) {
+		DispenseBatch batch = batchRepository.findWithOperationsById(batchId)
+				.orElseThrow(() -> new IllegalArgumentException("Batch not found with id: " + batchId));
+
+		String plateBarcode = batch.getPlate().getBarcode();
+		List<List<DispenseCommand>> cycles = new ArrayList<>();
+		for (List<DispenseOperation> cycle : channelPlanner.planCycles(batch.getOperations())) {
+			cycles.add(cycle.stream()
+					.filter(operation -> operation.getStatus() == DispenseOperation.OperationStatus.PENDING)
+					.map(operation -> new DispenseCommand(operation.getId(), plateBarcode,
+							operation.getWell().getPosition(), operation.getVolumeDispensed()))
+					.collect(Collectors.toList()));
 		}
+		return cycles;
+	}
+
+	public int getBatchProgressCursor(Long batchId) {
+		return batchRepository.findById(batchId)
+				.map(DispenseBatch::getProgressCursor)
+				.orElseThrow(() -> new IllegalArgumentException("Batch not found with id: " + batchId));
+	}
+
+	@Transactional
+	public void checkpointBatch(Long batchId, int progressCursor) {
+		batchRepository.updateProgressCursor(batchId, progressCursor);
+		log.debug("Batch {} checkpointed at cycle {}", batchId, progressCursor);
+	}
+
+	@Transactional
+	public DispenseBatchDTO finishBatchExecution(Long batchId) {
+		DispenseBatch batch = batchRepository.findWithOperationsById(batchId)
+				.orElseThrow(() -> new IllegalArgumentException("Batch not found with id: " + batchId));
+
+		// An operation whose completion or failure could not be recorded is failed with the batch
+		failInProgressOperations(batch, "Completion not recorded, dispensed volume unknown");
+		boolean allSuccess = batch.getOperations().stream()
+				.allMatch(operation -> operation.getStatus() == DispenseOperation.OperationStatus.COMPLETED);
 
 		// Update batch status
 		batch.setStatus(allSuccess ? DispenseBatch.BatchStatus.COMPLETED : DispenseBatch.BatchStatus.FAILED);
@@ -309,72 +384,195 @@ public class DispenseService {
 		DispenseBatch completedBatch = batchRepository.save(batch);
 
 		log.info("Completed batch execution with id: {}, status: {}", batchId, batch.getStatus());
-		sendWebSocketUpdate("BATCH_EXECUTION_COMPLETED", convertBatchToDTO(completedBatch));
-
+		publishBatchEvent(completedBatch);
 		return convertBatchToDTO(completedBatch);
 	}
 
-	private void executeOperationInBatch(DispenseOperation operation) throws Exception {
-		log.info("Executing operation with id: {} in batch", operation.getId());
+	// Undoes beginBatchExecution when the batch could not be scheduled, so it can be executed again later
+	@Transactional
+	public void abortBatchStart(Long batchId) {
+		DispenseBatch batch = batchRepository.findById(batchId)
+				.orElseThrow(() -> new IllegalArgumentException("Batch not found with id: " + batchId));
 
-		// Update status to IN_PROGRESS
-		operation.setStatus(DispenseOperation.OperationStatus.IN_PROGRESS);
-		operationRepository.save(operation);
-		sendWebSocketUpdate("OPERATION_STATUS_CHANGE", convertToDTO(operation));
+		batch.setStatus(DispenseBatch.BatchStatus.PLANNED);
+		batch.setExecutionStartedDate(null);
+		batchRepository.save(batch);
+		log.info("Batch with id: {} returned to PLANNED", batchId);
+	}
 
-		// Simulate dispense operation (in real system, this would communicate with hardware)
-		// No additional sleep here since we're adding 0.5s between operations
+	@Transactional
+	public DispenseBatchDTO cancelBatchExecution(Long batchId) {
+		DispenseBatch batch = batchRepository.findWithOperationsById(batchId)
+				.orElseThrow(() -> new IllegalArgumentException("Batch not found with id: " + batchId));
 
-		// Update well volume
-		Well well = operation.getWell();
-		Double currentVolume = well.getVolume() != null ? well.getVolume() : 0.0;
-		well.setVolume(currentVolume + operation.getVolumeDispensed());
-		wellRepository.save(well);
+		for (DispenseOperation operation : batch.getOperations()) {
+			if (operation.getStatus() == DispenseOperation.OperationStatus.PENDING) {
+				releaseReservation(operation);
+				operation.setStatus(DispenseOperation.OperationStatus.CANCELLED);
+				operation.setCompletedDate(LocalDateTime.now());
+				operationRepository.save(operation);
+			}
+		}
 
-		// Update reagent stock
-		Reagent reagent = operation.getReagent();
-		reagent.setStockVolume(reagent.getStockVolume() - operation.getVolumeDispensed());
-		reagentRepository.save(reagent);
+		batch.setStatus(DispenseBatch.BatchStatus.CANCELLED);
+		batch.setCompletedDate(LocalDateTime.now());
+		DispenseBatch cancelledBatch = batchRepository.save(batch);
 
-		// Update operation status to COMPLETED
-		operation.setStatus(DispenseOperation.OperationStatus.COMPLETED);
-		operation.setCompletedDate(LocalDateTime.now());
-		operationRepository.save(operation);
+		log.info("Cancelled batch execution with id: {}", batchId);
+		publishBatchEvent(cancelledBatch);
+		return convertBatchToDTO(cancelledBatch);
+	}
+
+	// Ends a batch whose execution stopped on an unexpected error, so it is not left EXECUTING. Operations
+	// IN_PROGRESS may or may not have been dispensed and are failed; PENDING ones are cancelled.
+	@Transactional
+	public DispenseBatchDTO failBatchExecution(Long batchId, String errorMessage) {
+		DispenseBatch batch = batchRepository.findWithOperationsById(batchId)
+				.orElseThrow(() -> new IllegalArgumentException("Batch not found with id: " + batchId));
+
+		failInProgressOperations(batch, errorMessage);
+		for (DispenseOperation operation : batch.getOperations()) {
+			if (operation.getStatus() == DispenseOperation.OperationStatus.PENDING) {
+				releaseReservation(operation);
+				operation.setStatus(DispenseOperation.OperationStatus.CANCELLED);
+				operation.setCompletedDate(LocalDateTime.now());
+				operationRepository.save(operation);
+			}
+		}
 
-		log.info("Completed operation with id: {}", operation.getId());
-		sendWebSocketUpdate("OPERATION_STATUS_CHANGE", convertToDTO(operation));
+		batch.setStatus(DispenseBatch.BatchStatus.FAILED);
+		batch.setCompletedDate(LocalDateTime.now());
+		DispenseBatch failedBatch = batchRepository.save(batch);
+
+		log.warn("Failed batch execution with id: {}: {}", batchId, errorMessage);
+		publishBatchEvent(failedBatch);
+		return convertBatchToDTO(failedBatch);
 	}
 
-	private void sendWebSocketUpdate(String messageType, DispenseBatchDTO batchDTO) {
-		WebSocketMessage message = WebSocketMessage.builder()
-				.type(messageType)
-				.payload(batchDTO)
-				.timestamp(LocalDateTime.now())
-				.build();
+	public List<Long> getInterruptedBatchIds() {
+		return batchRepository.findByStatus(DispenseBatch.BatchStatus.EXECUTING).stream()
+				.map(DispenseBatch::getId)
+				.collect(Collectors.toList());
+	}
 
-		messagingTemplate.convertAndSend("/topic/dispense-status", message);
-		log.debug("Sent WebSocket message: {}", messageType);
+	// Operations caught IN_PROGRESS by a crash may or may not have been dispensed, so they are
+	// failed rather than dispensed a second time.
+	@Transactional
+	public void failInterruptedOperations(Long batchId) {
+		DispenseBatch batch = batchRepository.findWithOperationsById(batchId)
+				.orElseThrow(() -> new IllegalArgumentException("Batch not found with id: " + batchId));
+
+		failInProgressOperations(batch, "Interrupted by restart, dispensed volume unknown");
 	}
 
-	private void sendWebSocketUpdate(String messageType, DispenseOperationDTO operationDTO) {
-		WebSocketMessage message = WebSocketMessage.builder()
-				.type(messageType)
-				.payload(operationDTO)
-				.timestamp(LocalDateTime.now())
-				.build();
+	private void failInProgressOperations(DispenseBatch batch, String errorMessage) {
+		for (DispenseOperation operation : batch.getOperations()) {
+			if (operation.getStatus() == DispenseOperation.OperationStatus.IN_PROGRESS) {
+				log.warn("Failing operation with id: {} left IN_PROGRESS in batch {}", operation.getId(), batch.getId());
+				releaseReservation(operation);
+				operation.setStatus(DispenseOperation.OperationStatus.FAILED);
+				operation.setErrorMessage(errorMessage);
+				operation.setCompletedDate(LocalDateTime.now());
+				operationRepository.save(operation);
+			}
+		}
+	}
+
+	// Operation counts and volumes come from two grouped queries over all given batches, plus two over the
+	// archive for finished batches (only their operations can have been archived)
+	private List<BatchSummaryDTO> summarize(List<DispenseBatch> batches) {
+		if (batches.isEmpty()) {
+			return List.of();
+		}
+		List<Long> batchIds = batches.stream().map(DispenseBatch::getId).collect(Collectors.toList());
+		List<Long> finishedBatchIds = batches.stream()
+				.filter(batch -> batch.getStatus() != DispenseBatch.BatchStatus.PLANNED &&
+						batch.getStatus() != DispenseBatch.BatchStatus.EXECUTING)
+				.map(DispenseBatch::getId)
+				.collect(Collectors.toList());
+
+		Map<Long, Map<String, Long>> countsByBatch = new HashMap<>();
+		List<BatchStatusCount> counts = new ArrayList<>(operationRepository.countByBatchAndStatus(batchIds));
+		counts.addAll(archiveRepository.countByBatchAndStatus(finishedBatchIds));
+		for (BatchStatusCount count : counts) {
+			countsByBatch.computeIfAbsent(count.getBatchId(), id -> new TreeMap<>())
+					.merge(count.getStatus().name(), count.getCount(), Long::sum);
+		}
+		// Keyed by reagent id, so reagents are listed in id order with live and archived volumes summed
+		Map<Long, Map<Long, ReagentVolumeDTO>> volumesByBatch = new HashMap<>();
+		List<BatchReagentVolume> volumes = new ArrayList<>(operationRepository.sumVolumeByBatchAndReagent(batchIds));
+		volumes.addAll(archiveRepository.sumVolumeByBatchAndReagent(finishedBatchIds));
+		for (BatchReagentVolume volume : volumes) {
+			volumesByBatch.computeIfAbsent(volume.getBatchId(), id -> new TreeMap<>())
+					.merge(volume.getReagentId(), ReagentVolumeDTO.builder()
+									.reagentId(volume.getReagentId())
+									.reagentName(volume.getReagentName())
+									.totalVolume(volume.getTotalVolume())
+									.build(),
+							(live, archived) -> {
+								live.setTotalVolume(live.getTotalVolume() + archived.getTotalVolume());
+								return live;
+							});
+		}
 
-		messagingTemplate.convertAndSend("/topic/dispense-status", message);
-		log.debug("Sent WebSocket message: {}", messageType);
+		return batches.stream()
+				.map(batch -> {
+					Map<String, Long> batchCounts = countsByBatch.getOrDefault(batch.getId(), Map.of());
+					List<ReagentVolumeDTO> batchVolumes = new ArrayList<>(
+							volumesByBatch.getOrDefault(batch.getId(), Map.of()).values());
+					return BatchSummaryDTO.builder()
+							.id(batch.getId())
+							.plateId(batch.getPlate().getId())
+							.plateBarcode(batch.getPlate().getBarcode())
+							.status(batch.getStatus().name())
+							.createdDate(batch.getCreatedDate())
+							.executionStartedDate(batch.getExecutionStartedDate())
+							.completedDate(batch.getCompletedDate())
+							.progressCursor(batch.getProgressCursor())
+							.operationCount(batchCounts.values().stream().mapToLong(Long::longValue).sum())
+							.operationCountsByStatus(batchCounts)
+							.totalVolume(batchVolumes.stream().mapToDouble(ReagentVolumeDTO::getTotalVolume).sum())
+							.reagentVolumes(batchVolumes)
+							.operationsUrl("/api/dispense/batch/" + batch.getId() + "/operations")
+							.build();
+				})
+				.collect(Collectors.toList());
+	}
+
+	private void releaseReservation(DispenseOperation operation) {
+		plateStateEngine.release(operation.getPlate().getId(), operation.getWell().getPosition(),
+				operation.getReagent().getId(), operation.getVolumeDispensed());
+	}
+
+	// Events go to the outbox within the caller's transaction and are published only after it commits
+	private void publishOperationEvent(DispenseOperation operation) {
+		eventOutbox.append(operation.getPlate().getBarcode(), DispenseEventDTO.builder()
+				.opId(operation.getId())
+				.batchId(operation.getBatch() != null ? operation.getBatch().getId() : null)
+				.plateId(operation.getPlate().getId())
+				.well(operation.getWell().getPosition())
+				.status(operation.getStatus().name())
+				.wellVolume(currentWellVolume(operation))
+				.error(operation.getErrorMessage())
+				.build());
+	}
+
+	private void publishBatchEvent(DispenseBatch batch) {
+		eventOutbox.append(batch.getPlate().getBarcode(), DispenseEventDTO.builder()
+				.batchId(batch.getId())
+				.plateId(batch.getPlate().getId())
+				.status(batch.getStatus().name())
+				.build());
 	}
 
-	private DispenseOperationDTO convertToDTO(DispenseOperation operation) {
+	DispenseOperationDTO convertToDTO(DispenseOperation operation) {
 		return DispenseOperationDTO.builder()
 				.id(operation.getId())
 				.plateId(operation.getPlate().getId())
 				.plateBarcode(operation.getPlate().getBarcode())
 				.wellId(operation.getWell().getId())
 				.wellPosition(operation.getWell().getPosition())
-				.wellVolume(operation.getWell().getVolume()) // Include current well volume
+				.wellVolume(currentWellVolume(operation)) // Include current well volume
 				.reagentId(operation.getReagent().getId())
 				.reagentName(operation.getReagent().getName())
 				.volumeDispensed(operation.getVolumeDispensed())
@@ -385,7 +583,24 @@ public class DispenseService {
 				.build();
 	}
 
-	private DispenseBatchDTO convertBatchToDTO(DispenseBatch batch) {
+	private DispenseOperationDTO convertNewOperationToDTO(DispenseOperation operation, PlateState plateState, int wellIndex) {
+		Long reagentId = operation.getReagent().getId();
+		return DispenseOperationDTO.builder()
+				.id(operation.getId())
+				.plateId(plateState.getPlateId())
+				.plateBarcode(plateState.getBarcode())
+				.wellId(plateState.getWellId(wellIndex))
+				.wellPosition(WellPosition.of(wellIndex / plateState.getColumns(), wellIndex % plateState.getColumns()))
+				.wellVolume(plateState.getVolume(wellIndex))
+				.reagentId(reagentId)
+				.reagentName(reagentCatalog.getReagent(reagentId).getName())
+				.volumeDispensed(operation.getVolumeDispensed())
+				.status(operation.getStatus().name())
+				.createdDate(operation.getCreatedDate())
+				.build();
+	}
+
+	DispenseBatchDTO convertBatchToDTO(DispenseBatch batch) {
 		return DispenseBatchDTO.builder()
 				.id(batch.getId())
 				.plateId(batch.getPlate().getId())
@@ -394,10 +609,17 @@ public class DispenseService {
 				.createdDate(batch.getCreatedDate())
 				.executionStartedDate(batch.getExecutionStartedDate())
 				.completedDate(batch.getCompletedDate())
+				.progressCursor(batch.getProgressCursor())
 				.operationCount(batch.getOperations().size())
 				.operations(batch.getOperations().stream()
 						.map(this::convertToDTO)
 						.collect(Collectors.toList()))
 				.build();
 	}
+
+	private Double currentWellVolume(DispenseOperation operation) {
+		OptionalDouble volume = plateStateEngine.findWellVolume(
+				operation.getPlate().getId(), operation.getWell().getPosition());
+		return volume.isPresent() ? volume.getAsDouble() : operation.getWell().getVolume();
+	}
 }
@@ -0,0 +1,83 @@
+package com.lab.reagentdispenser.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Counts STOMP subscriptions per destination so the event stream can skip serialising frames for
+// plates and batches nobody is watching. Pattern subscriptions (e.g. /topic/plates/*) match everything.
+// With the broker relay, subscribers of other nodes are unknown here, so every topic counts as watched.
+@Component
+public class DispenseTopicSubscriptions {
+
+	private final boolean relayed;
+
+	// Destination of every subscription, keyed by session id and then subscription id
+	private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+	private final Map<String, Integer> subscribersByDestination = new ConcurrentHashMap<>();
+	private final AtomicInteger patternSubscribers = new AtomicInteger();
+
+	public DispenseTopicSubscriptions(@Value("${dispenser.websocket.broker:simple}") String brokerMode) {
+		this.relayed = "relay".equalsIgnoreCase(brokerMode);
+	}
+
+	public boolean hasSubscribers(String destination) {
+		if (relayed || patternSubscribers.get() > 0) {
+			return true;
+		}
+		return subscribersByDestination.containsKey(destination);
+	}
+
+	@EventListener
+	public void onSubscribe(SessionSubscribeEvent event) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+		String destination = accessor.getDestination();
+		if (accessor.getSessionId() == null || accessor.getSubscriptionId() == null || destination == null) {
+			return;
+		}
+		sessions.computeIfAbsent(accessor.getSessionId(), id -> new ConcurrentHashMap<>())
+				.put(accessor.getSubscriptionId(), destination);
+		count(destination, 1);
+	}
+
+	@EventListener
+	public void onUnsubscribe(SessionUnsubscribeEvent event) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+		Map<String, String> subscriptions = accessor.getSessionId() != null ? sessions.get(accessor.getSessionId()) : null;
+		if (subscriptions != null && accessor.getSubscriptionId() != null) {
+			String destination = subscriptions.remove(accessor.getSubscriptionId());
+			if (destination != null) {
+				count(destination, -1);
+			}
+		}
+	}
+
+	@EventListener
+	public void onDisconnect(SessionDisconnectEvent event) {
+		Map<String, String> subscriptions = sessions.remove(event.getSessionId());
+		if (subscriptions != null) {
+			subscriptions.values().forEach(destination -> count(destination, -1));
+		}
+	}
+
+	private void count(String destination, int delta) {
+		if (isPattern(destination)) {
+			patternSubscribers.addAndGet(delta);
+		} else {
+			// Entries are removed at zero so finished batches do not accumulate
+			subscribersByDestination.merge(destination, delta, (current, d) -> current + d > 0 ? current + d : null);
+		}
+	}
+
+	private static boolean isPattern(String destination) {
+		return destination.indexOf('*') >= 0 || destination.indexOf('{') >= 0;
+	}
+}
@@ -0,0 +1,8 @@
+package com.lab.reagentdispenser.service;
+
+public class DispenserBusyException extends IllegalStateException {
+
+	public DispenserBusyException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,64 @@
+package com.lab.reagentdispenser.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+@Component
+@Slf4j
+public class DispenserHardware {
+
+	private final long dispenseTimeMs;
+	private final long cycleTimeMs;
+	private final AsyncTaskExecutor channelExecutor;
+
+	public DispenserHardware(
+			@Value("${dispenser.hardware.dispense-time-ms:2000}") long dispenseTimeMs,
+			@Value("${dispenser.hardware.cycle-time-ms:500}") long cycleTimeMs,
+			@Qualifier("channelExecutor") AsyncTaskExecutor channelExecutor) {
+		this.dispenseTimeMs = dispenseTimeMs;
+		this.cycleTimeMs = cycleTimeMs;
+		this.channelExecutor = channelExecutor;
+	}
+
+	// Simulate dispense operation (in real system, this would communicate with hardware)
+	public void dispense(String plateBarcode, String wellPosition, double volume) throws InterruptedException {
+		log.debug("Dispensing {} into {} on plate {}", volume, wellPosition, plateBarcode);
+		Thread.sleep(dispenseTimeMs);
+	}
+
+	// Simulate one multi-channel head cycle: every command is dispensed by its own channel at the same time.
+	// Returns the failures keyed by operation id; an empty map means every channel succeeded.
+	public Map<Long, Exception> dispenseCycle(List<DispenseCommand> commands) throws InterruptedException {
+		List<Future<?>> channels = new ArrayList<>(commands.size());
+		for (DispenseCommand command : commands) {
+			channels.add(channelExecutor.submit(() -> {
+				log.debug("Channel dispensing {} into {} on plate {}",
+						command.getVolume(), command.getWellPosition(), command.getPlateBarcode());
+				Thread.sleep(cycleTimeMs);
+				return null;
+			}));
+		}
+
+		Map<Long, Exception> failures = new LinkedHashMap<>();
+		for (int i = 0; i < commands.size(); i++) {
+			try {
+				channels.get(i).get();
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				failures.put(commands.get(i).getOperationId(),
+						cause instanceof Exception ? (Exception) cause : new IllegalStateException(cause));
+			}
+		}
+		return failures;
+	}
+}
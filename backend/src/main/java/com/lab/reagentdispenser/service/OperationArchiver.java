@@ -0,0 +1,71 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.repository.OperationArchiveRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+// Retention of the operation history: every dispenser.archive.interval-ms, operations that COMPLETED or
+// FAILED more than dispenser.archive.retention-days ago are moved to the archive table, in transactions of
+// dispenser.archive.batch-size rows. A run moves at most dispenser.archive.max-batches-per-run batches and
+// leaves the rest for the next run. Pending-work lookups then only scan recent operations, while the history
+// API still reads archived ones.
+@Component
+@Slf4j
+public class OperationArchiver {
+
+	private final OperationArchiveRepository archiveRepository;
+	private final boolean enabled;
+	private final int retentionDays;
+	private final int batchSize;
+	private final int maxBatchesPerRun;
+	private final Counter archived;
+
+	public OperationArchiver(
+			OperationArchiveRepository archiveRepository,
+			MeterRegistry meterRegistry,
+			@Value("${dispenser.archive.enabled:true}") boolean enabled,
+			@Value("${dispenser.archive.retention-days:30}") int retentionDays,
+			@Value("${dispenser.archive.batch-size:1000}") int batchSize,
+			@Value("${dispenser.archive.max-batches-per-run:50}") int maxBatchesPerRun) {
+		if (retentionDays < 0 || batchSize < 1 || maxBatchesPerRun < 1) {
+			throw new IllegalArgumentException(
+					"Archive retention must not be negative and the batch size and batches per run must be positive");
+		}
+		this.archiveRepository = archiveRepository;
+		this.enabled = enabled;
+		this.retentionDays = retentionDays;
+		this.batchSize = batchSize;
+		this.maxBatchesPerRun = maxBatchesPerRun;
+		this.archived = meterRegistry.counter(DispenseMetrics.OPERATIONS_ARCHIVED);
+	}
+
+	@Scheduled(initialDelayString = "${dispenser.archive.initial-delay-ms:60000}",
+			fixedDelayString = "${dispenser.archive.interval-ms:3600000}")
+	public void archiveExpired() {
+		if (enabled) {
+			archiveCompletedBefore(LocalDateTime.now().minusDays(retentionDays));
+		}
+	}
+
+	public int archiveCompletedBefore(LocalDateTime cutoff) {
+		int total = 0;
+		int moved;
+		int batches = 0;
+		do {
+			moved = archiveRepository.archive(cutoff, batchSize);
+			total += moved;
+			archived.increment(moved);
+		} while (moved == batchSize && ++batches < maxBatchesPerRun);
+
+		if (total > 0) {
+			log.info("Archived {} operations completed before {}", total, cutoff);
+		}
+		return total;
+	}
+}
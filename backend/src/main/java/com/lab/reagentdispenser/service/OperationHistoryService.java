@@ -0,0 +1,134 @@
+package com.lab.reagentdispenser.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lab.reagentdispenser.dto.DispenseOperationDTO;
+import com.lab.reagentdispenser.dto.OperationHistoryPageDTO;
+import com.lab.reagentdispenser.entity.DispenseOperation;
+import com.lab.reagentdispenser.repository.OperationHistoryFilter;
+import com.lab.reagentdispenser.repository.OperationHistoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.OptionalDouble;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OperationHistoryService {
+
+	public static final int DEFAULT_PAGE_SIZE = 100;
+	public static final int MAX_PAGE_SIZE = 1000;
+
+	private static final String CSV_HEADER = "id,plateId,plateBarcode,wellId,wellPosition,reagentId,reagentName," +
+			"volumeDispensed,status,createdDate,completedDate,errorMessage";
+
+	private final OperationHistoryRepository historyRepository;
+	private final PlateStateEngine plateStateEngine;
+	private final ObjectMapper objectMapper;
+
+	public OperationHistoryPageDTO getHistoryPage(OperationHistoryFilter filter, Long cursor, Integer limit) {
+		int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+		if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+			throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+		}
+		validate(filter);
+		log.info("Retrieving operation history page: {}, cursor: {}, limit: {}", filter, cursor, pageSize);
+
+		// One extra row tells whether an older page exists
+		List<DispenseOperationDTO> operations = historyRepository.findPage(filter, cursor, pageSize + 1);
+		Long nextCursor = null;
+		if (operations.size() > pageSize) {
+			operations = operations.subList(0, pageSize);
+			nextCursor = operations.get(pageSize - 1).getId();
+		}
+		operations.forEach(this::overlayWellVolume);
+
+		return OperationHistoryPageDTO.builder()
+				.operations(operations)
+				.nextCursor(nextCursor)
+				.build();
+	}
+
+	// Writes one JSON object per line; rows are written as they are read, so memory use is constant
+	public void exportNdjson(OperationHistoryFilter filter, OutputStream outputStream) throws IOException {
+		validate(filter);
+		Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+		historyRepository.stream(filter, operation -> {
+			try {
+				overlayWellVolume(operation);
+				writer.write(objectMapper.writeValueAsString(operation));
+				writer.write('\n');
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		writer.flush();
+	}
+
+	public void exportCsv(OperationHistoryFilter filter, OutputStream outputStream) throws IOException {
+		validate(filter);
+		Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+		writer.write(CSV_HEADER);
+		writer.write('\n');
+		historyRepository.stream(filter, operation -> {
+			try {
+				writer.write(toCsvLine(operation));
+				writer.write('\n');
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		writer.flush();
+	}
+
+	public void validate(OperationHistoryFilter filter) {
+		if (filter.getStatus() != null) {
+			DispenseOperation.OperationStatus.valueOf(filter.getStatus());
+		}
+		if (filter.getFrom() != null && filter.getTo() != null && !filter.getFrom().isBefore(filter.getTo())) {
+			throw new IllegalArgumentException("'from' must be before 'to'");
+		}
+	}
+
+	private void overlayWellVolume(DispenseOperationDTO operation) {
+		OptionalDouble volume = plateStateEngine.findWellVolume(operation.getPlateId(), operation.getWellPosition());
+		if (volume.isPresent()) {
+			operation.setWellVolume(volume.getAsDouble());
+		}
+	}
+
+	private static String toCsvLine(DispenseOperationDTO operation) {
+		return String.join(",",
+				String.valueOf(operation.getId()),
+				String.valueOf(operation.getPlateId()),
+				csvField(operation.getPlateBarcode()),
+				String.valueOf(operation.getWellId()),
+				operation.getWellPosition(),
+				String.valueOf(operation.getReagentId()),
+				csvField(operation.getReagentName()),
+				String.valueOf(operation.getVolumeDispensed()),
+				operation.getStatus(),
+				String.valueOf(operation.getCreatedDate()),
+				operation.getCompletedDate() != null ? operation.getCompletedDate().toString() : "",
+				csvField(operation.getErrorMessage()));
+	}
+
+	private static String csvField(String value) {
+		if (value == null) {
+			return "";
+		}
+		if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+			return "\"" + value.replace("\"", "\"\"") + "\"";
+		}
+		return value;
+	}
+}
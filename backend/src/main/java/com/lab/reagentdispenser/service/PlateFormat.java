@@ -0,0 +1,88 @@
+package com.lab.reagentdispenser.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+// Registry of supported plate formats. Wells are addressed by a compact index (row * columns + column);
+// position names are precomputed per format so encoding an index is a single array lookup.
+public enum PlateFormat {
+
+	WELL_96("96_WELL", 8, 12, 300.0),
+	WELL_384("384_WELL", 16, 24, 120.0),
+	WELL_1536("1536_WELL", 32, 48, 12.0);
+
+	private static final Map<String, PlateFormat> BY_TYPE = new HashMap<>();
+
+	static {
+		for (PlateFormat format : values()) {
+			BY_TYPE.put(format.type, format);
+		}
+	}
+
+	private final String type;
+	private final int rows;
+	private final int columns;
+	private final double maxWellVolume;
+	private final String[] positions;
+
+	PlateFormat(String type, int rows, int columns, double maxWellVolume) {
+		this.type = type;
+		this.rows = rows;
+		this.columns = columns;
+		this.maxWellVolume = maxWellVolume;
+		this.positions = new String[rows * columns];
+		for (int row = 0; row < rows; row++) {
+			for (int column = 0; column < columns; column++) {
+				positions[row * columns + column] = WellPosition.of(row, column);
+			}
+		}
+	}
+
+	public static Optional<PlateFormat> fromType(String type) {
+		return Optional.ofNullable(type != null ? BY_TYPE.get(type) : null);
+	}
+
+	public static Optional<PlateFormat> fromDimensions(int rows, int columns) {
+		for (PlateFormat format : values()) {
+			if (format.rows == rows && format.columns == columns) {
+				return Optional.of(format);
+			}
+		}
+		return Optional.empty();
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getColumns() {
+		return columns;
+	}
+
+	public int getWellCount() {
+		return positions.length;
+	}
+
+	public double getMaxWellVolume() {
+		return maxWellVolume;
+	}
+
+	public String positionOf(int index) {
+		return positions[index];
+	}
+
+	// Returns -1 when the position is not on this plate format
+	public int indexOf(String position) {
+		int row = WellPosition.rowIndex(position);
+		int column = WellPosition.columnIndex(position);
+		if (row < 0 || row >= rows || column < 0 || column >= columns) {
+			return -1;
+		}
+		return row * columns + column;
+	}
+}
@@ -1,6 +1,8 @@
 package com.lab.reagentdispenser.service;
 
+import com.lab.reagentdispenser.config.CacheConfig;
 import com.lab.reagentdispenser.dto.PlateDTO;
+import com.lab.reagentdispenser.dto.PlateSnapshotDTO;
 import com.lab.reagentdispenser.dto.WellDTO;
 import com.lab.reagentdispenser.entity.Plate;
 import com.lab.reagentdispenser.entity.Well;
@@ -8,11 +10,23 @@ import com.lab.reagentdispenser.repository.PlateRepository;
 import com.lab.reagentdispenser.repository.WellRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,9 +34,17 @@ import java.util.stream.Collectors;
 @Slf4j
 public class PlateService {
 
+	private static final int BULK_BATCH_SIZE = 500;
+	private static final int MAX_ROWS = 52;
+	private static final int MAX_COLUMNS = 99;
+	private static final double DEFAULT_MAX_WELL_VOLUME = 300.0;
+
 	private final PlateRepository plateRepository;
 	private final WellRepository wellRepository;
+	private final PlateStateEngine plateStateEngine;
+	private final EntityManager entityManager;
 
+	@Cacheable(cacheNames = CacheConfig.PLATE_LIST, key = "'all'")
 	public List<PlateDTO> getAllPlates() {
 		log.info("Retrieving all plates");
 		return plateRepository.findAll().stream()
@@ -30,6 +52,7 @@ public class PlateService {
 				.collect(Collectors.toList());
 	}
 
+	@Cacheable(cacheNames = CacheConfig.PLATES, key = "#id")
 	public PlateDTO getPlateById(Long id) {
 		log.info("Retrieving plate by id: {}", id);
 		Plate plate = plateRepository.findById(id)
@@ -37,6 +60,7 @@ public class PlateService {
 		return convertToDTO(plate);
 	}
 
+	@Cacheable(cacheNames = CacheConfig.PLATES_BY_BARCODE, key = "#barcode")
 	public PlateDTO getPlateByBarcode(String barcode) {
 		log.info("Retrieving plate by barcode: {}", barcode);
 		Plate plate = plateRepository.findByBarcode(barcode)
@@ -45,6 +69,7 @@ public class PlateService {
 	}
 
 	@Transactional
+	@CacheEvict(cacheNames = CacheConfig.PLATE_LIST, allEntries = true)
 	public PlateDTO createPlate(PlateDTO plateDTO) {
 		log.info("Creating new plate with barcode: {}", plateDTO.getBarcode());
 		
@@ -52,24 +77,22 @@ public class PlateService {
 			throw new IllegalArgumentException("Plate with barcode already exists: " + plateDTO.getBarcode());
 		}
 
-		Plate plate = Plate.builder()
-				.barcode(plateDTO.getBarcode())
-				.rows(plateDTO.getRows() != null ? plateDTO.getRows() : 8)
-				.columns(plateDTO.getColumns() != null ? plateDTO.getColumns() : 12)
-				.plateType(plateDTO.getPlateType() != null ? plateDTO.getPlateType() : "96_WELL")
-				.createdDate(LocalDateTime.now())
-				.build();
+		Plate plate = buildPlate(plateDTO, LocalDateTime.now());
 
 		Plate savedPlate = plateRepository.save(plate);
 		
 		// Create wells for the plate
-		createWellsForPlate(savedPlate);
+		int wellCount = createWells(savedPlate);
 		
-		log.info("Created plate with id: {}", savedPlate.getId());
+		log.info("Created plate with id: {} and {} wells", savedPlate.getId(), wellCount);
 		return convertToDTO(savedPlate);
 	}
 
+	// The old barcode is not known up front, so all barcode entries go
 	@Transactional
+	@Caching(evict = {
+			@CacheEvict(cacheNames = CacheConfig.PLATES, key = "#id"),
+			@CacheEvict(cacheNames = {CacheConfig.PLATES_BY_BARCODE, CacheConfig.PLATE_LIST}, allEntries = true)})
 	public PlateDTO updatePlate(Long id, PlateDTO plateDTO) {
 		log.info("Updating plate with id: {}", id);
 		
@@ -87,11 +110,15 @@ public class PlateService {
 		plate.setPlateType(plateDTO.getPlateType());
 
 		Plate updatedPlate = plateRepository.save(plate);
+		plateStateEngine.evictPlate(id);
 		log.info("Updated plate with id: {}", updatedPlate.getId());
 		return convertToDTO(updatedPlate);
 	}
 
 	@Transactional
+	@Caching(evict = {
+			@CacheEvict(cacheNames = CacheConfig.PLATES, key = "#id"),
+			@CacheEvict(cacheNames = {CacheConfig.PLATES_BY_BARCODE, CacheConfig.PLATE_LIST}, allEntries = true)})
 	public void deletePlate(Long id) {
 		log.info("Deleting plate with id: {}", id);
 		
@@ -99,6 +126,7 @@ public class PlateService {
 			throw new IllegalArgumentException("Plate not found with id: " + id);
 		}
 
+		plateStateEngine.evictPlate(id);
 		plateRepository.deleteById(id);
 		log.info("Deleted plate with id: {}", id);
 	}
@@ -113,24 +141,141 @@ public class PlateService {
 				.collect(Collectors.toList());
 	}
 
-	private void createWellsForPlate(Plate plate) {
-		log.info("Creating wells for plate: {}", plate.getBarcode());
-		
+	public PlateSnapshot getPlateSnapshot(Long plateId) {
+		return plateStateEngine.getPlateState(plateId).snapshot();
+	}
+
+	public PlateSnapshotDTO convertSnapshotToDTO(PlateSnapshot snapshot) {
+		float[] volumes = snapshot.getVolumes().clone();
+		List<Integer> missing = new ArrayList<>();
+		for (int i = 0; i < volumes.length; i++) {
+			if (Float.isNaN(volumes[i])) {
+				volumes[i] = 0f;
+				missing.add(i);
+			}
+		}
+		Float maxVolume = snapshot.getUniformMaxVolume();
+
+		return PlateSnapshotDTO.builder()
+				.plateId(snapshot.getPlateId())
+				.barcode(snapshot.getBarcode())
+				.plateType(snapshot.getPlateType())
+				.rows(snapshot.getRows())
+				.columns(snapshot.getColumns())
+				.volumes(volumes)
+				.maxVolume(maxVolume)
+				.maxVolumes(maxVolume == null ? withoutNaN(snapshot.getMaxVolumes()) : null)
+				.missingWells(missing.isEmpty() ? null : missing.stream().mapToInt(Integer::intValue).toArray())
+				.build();
+	}
+
+	// Little-endian float32 volumes in row-major order (NaN where there is no well), followed by the
+	// max volumes in the same layout when the wells differ in capacity
+	public byte[] encodeSnapshot(PlateSnapshot snapshot) {
+		float[] volumes = snapshot.getVolumes();
+		boolean withMaxVolumes = snapshot.getUniformMaxVolume() == null;
+		ByteBuffer buffer = ByteBuffer.allocate(Float.BYTES * volumes.length * (withMaxVolumes ? 2 : 1))
+				.order(ByteOrder.LITTLE_ENDIAN);
+		FloatBuffer floats = buffer.asFloatBuffer().put(volumes);
+		if (withMaxVolumes) {
+			floats.put(snapshot.getMaxVolumes());
+		}
+		return buffer.array();
+	}
+
+	@Transactional
+	@CacheEvict(cacheNames = CacheConfig.PLATE_LIST, allEntries = true)
+	public List<PlateDTO> createPlates(List<PlateDTO> plateDTOs) {
+		log.info("Creating {} plates in bulk", plateDTOs.size());
+
+		Set<String> barcodes = new HashSet<>();
+		for (PlateDTO plateDTO : plateDTOs) {
+			if (!barcodes.add(plateDTO.getBarcode())) {
+				throw new IllegalArgumentException("Duplicate barcode in request: " + plateDTO.getBarcode());
+			}
+		}
+		List<Plate> existing = plateRepository.findByBarcodeIn(barcodes);
+		if (!existing.isEmpty()) {
+			throw new IllegalArgumentException("Plate with barcode already exists: " + existing.get(0).getBarcode());
+		}
+
+		LocalDateTime now = LocalDateTime.now();
+		List<Plate> plates = plateDTOs.stream()
+				.map(plateDTO -> buildPlate(plateDTO, now))
+				.collect(Collectors.toList());
+
+		// Plates and wells take their ids from the pooled sequences and are inserted in JDBC batches. The
+		// persistence context is flushed and cleared every BULK_BATCH_SIZE rows, so large requests do not
+		// keep every well in memory.
+		int pendingRows = 0;
+		int wellCount = 0;
+		for (Plate plate : plates) {
+			plateRepository.save(plate);
+			int plateWells = createWells(plate);
+			wellCount += plateWells;
+			pendingRows += 1 + plateWells;
+			if (pendingRows >= BULK_BATCH_SIZE) {
+				entityManager.flush();
+				entityManager.clear();
+				pendingRows = 0;
+			}
+		}
+
+		log.info("Created {} plates with {} wells in bulk", plates.size(), wellCount);
+		return plates.stream()
+				.map(this::convertToDTO)
+				.collect(Collectors.toList());
+	}
+
+	// Wells are persisted without a round trip each: ids come in blocks from the wells sequence and the
+	// inserts are sent as JDBC batches when the session flushes
+	private int createWells(Plate plate) {
+		Optional<PlateFormat> format = PlateFormat.fromType(plate.getPlateType());
+		double maxVolume = format.map(PlateFormat::getMaxWellVolume).orElse(DEFAULT_MAX_WELL_VOLUME);
+		List<Well> wells = new ArrayList<>(plate.getRows() * plate.getColumns());
 		for (int row = 0; row < plate.getRows(); row++) {
-			char rowLetter = (char) ('A' + row);
-			for (int col = 1; col <= plate.getColumns(); col++) {
-				String position = rowLetter + String.valueOf(col);
-				Well well = Well.builder()
+			for (int col = 0; col < plate.getColumns(); col++) {
+				String position = format.isPresent()
+						? format.get().positionOf(row * plate.getColumns() + col)
+						: WellPosition.of(row, col);
+				wells.add(Well.builder()
 						.position(position)
 						.plate(plate)
 						.volume(0.0)
-						.maxVolume(300.0)
-						.build();
-				wellRepository.save(well);
+						.maxVolume(maxVolume)
+						.build());
 			}
 		}
-		
-		log.info("Created {} wells for plate", plate.getRows() * plate.getColumns());
+		wellRepository.saveAll(wells);
+		return wells.size();
+	}
+
+	// Known plate types fix the dimensions; without a type it is inferred from the dimensions, or CUSTOM
+	private Plate buildPlate(PlateDTO plateDTO, LocalDateTime createdDate) {
+		Optional<PlateFormat> format = PlateFormat.fromType(plateDTO.getPlateType());
+		int rows = plateDTO.getRows() != null ? plateDTO.getRows() : format.map(PlateFormat::getRows).orElse(8);
+		int columns = plateDTO.getColumns() != null
+				? plateDTO.getColumns() : format.map(PlateFormat::getColumns).orElse(12);
+
+		if (format.isPresent() && (rows != format.get().getRows() || columns != format.get().getColumns())) {
+			throw new IllegalArgumentException("Plate type " + format.get().getType() + " requires " +
+					format.get().getRows() + " rows and " + format.get().getColumns() + " columns");
+		}
+		if (rows > MAX_ROWS || columns > MAX_COLUMNS) {
+			throw new IllegalArgumentException(
+					"Plates can have at most " + MAX_ROWS + " rows and " + MAX_COLUMNS + " columns");
+		}
+
+		String plateType = plateDTO.getPlateType() != null ? plateDTO.getPlateType()
+				: PlateFormat.fromDimensions(rows, columns).map(PlateFormat::getType).orElse("CUSTOM");
+
+		return Plate.builder()
+				.barcode(plateDTO.getBarcode())
+				.rows(rows)
+				.columns(columns)
+				.plateType(plateType)
+				.createdDate(createdDate)
+				.build();
 	}
 
 	private PlateDTO convertToDTO(Plate plate) {
@@ -149,8 +294,23 @@ public class PlateService {
 				.id(well.getId())
 				.position(well.getPosition())
 				.plateId(well.getPlate().getId())
-				.volume(well.getVolume())
+				.volume(currentVolume(well))
 				.maxVolume(well.getMaxVolume())
 				.build();
 	}
+
+	private static float[] withoutNaN(float[] values) {
+		float[] copy = values.clone();
+		for (int i = 0; i < copy.length; i++) {
+			if (Float.isNaN(copy[i])) {
+				copy[i] = 0f;
+			}
+		}
+		return copy;
+	}
+
+	private Double currentVolume(Well well) {
+		OptionalDouble volume = plateStateEngine.findWellVolume(well.getPlate().getId(), well.getPosition());
+		return volume.isPresent() ? volume.getAsDouble() : well.getVolume();
+	}
 }
@@ -0,0 +1,47 @@
+package com.lab.reagentdispenser.service;
+
+import lombok.Getter;
+
+// Consistent copy of a plate's well volumes as float32, indexed by row * columns + column like PlateState.
+// Positions without a well are NaN. The version changes whenever a volume of the plate changes or the
+// plate state is reloaded, so it can serve as an ETag.
+@Getter
+public class PlateSnapshot {
+
+	private final Long plateId;
+	private final String barcode;
+	private final String plateType;
+	private final int rows;
+	private final int columns;
+	private final String version;
+	private final float[] volumes;
+	private final float[] maxVolumes;
+
+	PlateSnapshot(Long plateId, String barcode, String plateType, int rows, int columns,
+			String version, float[] volumes, float[] maxVolumes) {
+		this.plateId = plateId;
+		this.barcode = barcode;
+		this.plateType = plateType;
+		this.rows = rows;
+		this.columns = columns;
+		this.version = version;
+		this.volumes = volumes;
+		this.maxVolumes = maxVolumes;
+	}
+
+	// Returns null when the wells of the plate differ in capacity
+	public Float getUniformMaxVolume() {
+		Float uniform = null;
+		for (float maxVolume : maxVolumes) {
+			if (Float.isNaN(maxVolume)) {
+				continue;
+			}
+			if (uniform == null) {
+				uniform = maxVolume;
+			} else if (uniform != maxVolume) {
+				return null;
+			}
+		}
+		return uniform;
+	}
+}
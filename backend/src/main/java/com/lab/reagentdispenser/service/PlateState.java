@@ -0,0 +1,120 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.entity.Plate;
+import com.lab.reagentdispenser.entity.Well;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Compact in-memory copy of a plate's wells. Arrays are indexed by row * columns + column;
+// a well id of 0 marks a position that has no well row in the database. Reserved volumes are
+// held for PENDING and IN_PROGRESS operations that have not been dispensed yet.
+@Getter
+public class PlateState {
+
+	// Seeded with the clock so snapshot versions of a reloaded plate or a restarted node do not repeat
+	private static final AtomicLong GENERATIONS = new AtomicLong(System.currentTimeMillis());
+
+	private final Long plateId;
+	private final String barcode;
+	private final String plateType;
+	private final int rows;
+	private final int columns;
+	private final long[] wellIds;
+	private final double[] volumes;
+	private final double[] maxVolumes;
+	private final double[] reserved;
+	private final long generation = GENERATIONS.incrementAndGet();
+
+	@Getter(AccessLevel.NONE)
+	private long volumeVersion;
+
+	PlateState(Plate plate, List<Well> wells) {
+		this.plateId = plate.getId();
+		this.barcode = plate.getBarcode();
+		this.plateType = plate.getPlateType();
+		this.rows = plate.getRows();
+		this.columns = plate.getColumns();
+		this.wellIds = new long[rows * columns];
+		this.volumes = new double[rows * columns];
+		this.maxVolumes = new double[rows * columns];
+		this.reserved = new double[rows * columns];
+
+		for (Well well : wells) {
+			int index = positionIndex(well.getPosition());
+			if (index >= 0) {
+				wellIds[index] = well.getId();
+				volumes[index] = well.getVolume() != null ? well.getVolume() : 0.0;
+				maxVolumes[index] = well.getMaxVolume();
+			}
+		}
+	}
+
+	// Returns -1 when the position is outside the plate or has no well
+	public int indexOf(String position) {
+		int index = positionIndex(position);
+		return index >= 0 && wellIds[index] != 0 ? index : -1;
+	}
+
+	private int positionIndex(String position) {
+		int row = WellPosition.rowIndex(position);
+		int column = WellPosition.columnIndex(position);
+		if (row < 0 || row >= rows || column < 0 || column >= columns) {
+			return -1;
+		}
+		return row * columns + column;
+	}
+
+	public synchronized double getVolume(int index) {
+		return volumes[index];
+	}
+
+	public double getMaxVolume(int index) {
+		return maxVolumes[index];
+	}
+
+	public long getWellId(int index) {
+		return wellIds[index];
+	}
+
+	public synchronized double getReservedVolume(int index) {
+		return reserved[index];
+	}
+
+	synchronized void checkCapacity(int index, double volume) {
+		if (volumes[index] + reserved[index] + volume > maxVolumes[index]) {
+			throw new IllegalArgumentException(
+					"Volume exceeds well capacity. Current: " + volumes[index] +
+					", Reserved: " + reserved[index] +
+					", Requested: " + volume +
+					", Max: " + maxVolumes[index]);
+		}
+	}
+
+	synchronized void reserve(int index, double volume) {
+		reserved[index] += volume;
+	}
+
+	synchronized void release(int index, double volume) {
+		reserved[index] = Math.max(0.0, reserved[index] - volume);
+	}
+
+	synchronized double add(int index, double volume) {
+		volumes[index] += volume;
+		volumeVersion++;
+		return volumes[index];
+	}
+
+	synchronized PlateSnapshot snapshot() {
+		float[] volumeCopy = new float[volumes.length];
+		float[] maxVolumeCopy = new float[volumes.length];
+		for (int i = 0; i < volumes.length; i++) {
+			volumeCopy[i] = wellIds[i] != 0 ? (float) volumes[i] : Float.NaN;
+			maxVolumeCopy[i] = wellIds[i] != 0 ? (float) maxVolumes[i] : Float.NaN;
+		}
+		return new PlateSnapshot(plateId, barcode, plateType, rows, columns,
+				generation + "-" + volumeVersion, volumeCopy, maxVolumeCopy);
+	}
+}
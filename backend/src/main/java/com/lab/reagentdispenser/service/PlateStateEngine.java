@@ -0,0 +1,416 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.entity.Plate;
+import com.lab.reagentdispenser.entity.Reagent;
+import com.lab.reagentdispenser.repository.PlateRepository;
+import com.lab.reagentdispenser.repository.ReagentRepository;
+import com.lab.reagentdispenser.repository.WellRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Keeps well volumes and reagent stock of active plates in memory so dispense validation needs no
+// database round trip. Volume changes are applied in memory immediately and written to the database
+// as accumulated deltas every dispenser.state.flush-interval-ms. This assumes a single application node.
+//
+// It also is the reservation ledger: volume of PENDING and IN_PROGRESS operations is reserved per well
+// and per reagent, so planning cannot oversubscribe a well or the stock. Reservations are rebuilt from
+// the operations table whenever a plate or reagent is loaded.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PlateStateEngine {
+
+	private final PlateRepository plateRepository;
+	private final WellRepository wellRepository;
+	private final ReagentRepository reagentRepository;
+	private final JdbcTemplate jdbcTemplate;
+	private final MeterRegistry meterRegistry;
+	private final PlatformTransactionManager transactionManager;
+
+	private final Map<Long, PlateState> plates = new ConcurrentHashMap<>();
+	private final Map<String, Long> plateIdsByBarcode = new ConcurrentHashMap<>();
+	private final Map<Long, ReagentBalance> reagentBalances = new ConcurrentHashMap<>();
+
+	// Serializes check-and-reserve so concurrent planners cannot both pass the same check
+	private final Object reservationLock = new Object();
+
+	// Pending write-behind deltas keyed by well id and reagent id
+	private final Map<Long, Double> pendingWellDeltas = new ConcurrentHashMap<>();
+	private final Map<Long, Double> pendingReagentDeltas = new ConcurrentHashMap<>();
+
+	public PlateState getPlateState(String barcode) {
+		Long plateId = plateIdsByBarcode.get(barcode);
+		if (plateId != null) {
+			PlateState state = plates.get(plateId);
+			if (state != null) {
+				return state;
+			}
+		}
+
+		Plate plate = plateRepository.findByBarcode(barcode)
+				.orElseThrow(() -> new IllegalArgumentException("Plate not found with barcode: " + barcode));
+		return load(plate);
+	}
+
+	public PlateState getPlateState(Long plateId) {
+		PlateState state = plates.get(plateId);
+		if (state != null) {
+			return state;
+		}
+		return load(plateRepository.findById(plateId)
+				.orElseThrow(() -> new IllegalArgumentException("Plate not found with id: " + plateId)));
+	}
+
+	public PlateState getPlateState(Plate plate) {
+		PlateState state = plates.get(plate.getId());
+		return state != null ? state : load(plate);
+	}
+
+	public int findWellIndex(PlateState state, String position) {
+		int index = state.indexOf(position);
+		if (index < 0) {
+			throw new IllegalArgumentException("Well not found at position: " + position);
+		}
+		return index;
+	}
+
+	// Validates well capacity and reagent stock in memory, net of reservations; throws IllegalArgumentException
+	// when either is exceeded
+	public void validateDispense(PlateState state, int wellIndex, Long reagentId, double volume) {
+		state.checkCapacity(wellIndex, volume);
+		getReagentBalance(reagentId).checkAvailable(volume);
+	}
+
+	// Validates and reserves the volume of a new operation. The reservation is released again if the
+	// surrounding transaction rolls back.
+	public void reserve(PlateState state, int wellIndex, Long reagentId, double volume) {
+		checkVolume(volume);
+		ReagentBalance balance = getReagentBalance(reagentId);
+		synchronized (reservationLock) {
+			state.checkCapacity(wellIndex, volume);
+			balance.checkAvailable(volume);
+			state.reserve(wellIndex, volume);
+			balance.reserve(volume);
+		}
+		onRollback(() -> {
+			state.release(wellIndex, volume);
+			balance.release(volume);
+		});
+	}
+
+	// Reserves the summed demand of a whole dispense map at once: either every well and reagent
+	// has room for its total, or nothing is reserved. wellDemand is indexed like the plate state.
+	public void reserveAll(PlateState state, double[] wellDemand, Map<Long, Double> reagentDemand) {
+		for (double demand : wellDemand) {
+			checkVolume(demand);
+		}
+		reagentDemand.values().forEach(PlateStateEngine::checkVolume);
+		Map<Long, ReagentBalance> balances = new LinkedHashMap<>();
+		reagentDemand.keySet().forEach(reagentId -> balances.put(reagentId, getReagentBalance(reagentId)));
+
+		synchronized (reservationLock) {
+			for (int index = 0; index < wellDemand.length; index++) {
+				if (wellDemand[index] > 0) {
+					state.checkCapacity(index, wellDemand[index]);
+				}
+			}
+			balances.forEach((reagentId, balance) -> balance.checkAvailable(reagentDemand.get(reagentId)));
+
+			for (int index = 0; index < wellDemand.length; index++) {
+				if (wellDemand[index] > 0) {
+					state.reserve(index, wellDemand[index]);
+				}
+			}
+			balances.forEach((reagentId, balance) -> balance.reserve(reagentDemand.get(reagentId)));
+		}
+		onRollback(() -> {
+			for (int index = 0; index < wellDemand.length; index++) {
+				if (wellDemand[index] > 0) {
+					state.release(index, wellDemand[index]);
+				}
+			}
+			balances.forEach((reagentId, balance) -> balance.release(reagentDemand.get(reagentId)));
+		});
+	}
+
+	// Releases the reservation of an operation that ends without dispensing (failed or cancelled)
+	public void release(Long plateId, String position, Long reagentId, double volume) {
+		PlateState state = plates.get(plateId);
+		if (state != null) {
+			int index = state.indexOf(position);
+			if (index >= 0) {
+				state.release(index, volume);
+			}
+		}
+		ReagentBalance balance = reagentBalances.get(reagentId);
+		if (balance != null) {
+			balance.release(volume);
+		}
+	}
+
+	// Applies a completed dispense, consuming its reservation, and returns the new well volume.
+	// The volume is added before the reservation is released so concurrent checks never under-count.
+	// It is undone if the surrounding transaction rolls back; negative deltas offset a flush in between.
+	public double applyDispense(Long plateId, String position, Long reagentId, double volume) {
+		PlateState state = getPlateState(plateId);
+		int index = findWellIndex(state, position);
+		ReagentBalance balance = getReagentBalance(reagentId);
+		long wellId = state.getWellId(index);
+
+		double newVolume = state.add(index, volume);
+		state.release(index, volume);
+		balance.consume(volume);
+		pendingWellDeltas.merge(wellId, volume, Double::sum);
+		pendingReagentDeltas.merge(reagentId, volume, Double::sum);
+
+		onRollback(() -> {
+			state.reserve(index, volume);
+			state.add(index, -volume);
+			balance.unconsume(volume);
+			pendingWellDeltas.merge(wellId, -volume, Double::sum);
+			pendingReagentDeltas.merge(reagentId, -volume, Double::sum);
+		});
+		return newVolume;
+	}
+
+	public OptionalDouble findWellVolume(Long plateId, String position) {
+		PlateState state = plates.get(plateId);
+		if (state == null) {
+			return OptionalDouble.empty();
+		}
+		int index = state.indexOf(position);
+		return index >= 0 ? OptionalDouble.of(state.getVolume(index)) : OptionalDouble.empty();
+	}
+
+	public OptionalDouble findReagentStock(Long reagentId) {
+		ReagentBalance balance = reagentBalances.get(reagentId);
+		return balance != null ? OptionalDouble.of(balance.getStock()) : OptionalDouble.empty();
+	}
+
+	public OptionalDouble findReagentReserved(Long reagentId) {
+		ReagentBalance balance = reagentBalances.get(reagentId);
+		return balance != null ? OptionalDouble.of(balance.getReserved()) : OptionalDouble.empty();
+	}
+
+	// Writes pending volume deltas with two JDBC batch statements. Deltas (not absolute values)
+	// are written as atomic in-database increments, so rows changed by other writers in the meantime
+	// are not overwritten; the version bump makes a concurrent JPA update of a stale entity fail instead.
+	// The drained deltas are committed on their own, so a caller's transaction that rolls back cannot take them
+	// with it (rolled back dispenses are offset by negative deltas instead).
+	@Scheduled(fixedDelayString = "${dispenser.state.flush-interval-ms:250}")
+	@Transactional(propagation = Propagation.REQUIRES_NEW)
+	public synchronized void flush() {
+		List<Object[]> wellUpdates = drain(pendingWellDeltas);
+		List<Object[]> reagentUpdates = drain(pendingReagentDeltas);
+		if (wellUpdates.isEmpty() && reagentUpdates.isEmpty()) {
+			return;
+		}
+
+		long start = System.nanoTime();
+		try {
+			if (!wellUpdates.isEmpty()) {
+				jdbcTemplate.batchUpdate("UPDATE wells SET volume = COALESCE(volume, 0) + ?, version = version + 1 WHERE id = ?", wellUpdates);
+			}
+			if (!reagentUpdates.isEmpty()) {
+				jdbcTemplate.batchUpdate("UPDATE reagents SET stock_volume = stock_volume - ?, version = version + 1 WHERE id = ?", reagentUpdates);
+			}
+		} catch (DataAccessException e) {
+			// Keep the deltas so the next flush retries them
+			log.error("Failed to flush volume changes, will retry", e);
+			restore(pendingWellDeltas, wellUpdates);
+			restore(pendingReagentDeltas, reagentUpdates);
+			meterRegistry.timer(DispenseMetrics.STATE_FLUSH, DispenseMetrics.TAG_OUTCOME, "error")
+					.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			return;
+		}
+		meterRegistry.timer(DispenseMetrics.STATE_FLUSH, DispenseMetrics.TAG_OUTCOME, "success")
+				.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		log.debug("Flushed {} well and {} reagent volume changes", wellUpdates.size(), reagentUpdates.size());
+	}
+
+	@PreDestroy
+	public void flushOnShutdown() {
+		flush();
+	}
+
+	// Pending deltas are flushed first so a reload from the database sees them. Evicted again after commit,
+	// otherwise a dispense racing the caller's update would reload the old plate and keep it cached.
+	public void evictPlate(Long plateId) {
+		flushInNewTransaction();
+		removePlate(plateId);
+		afterCommit(() -> removePlate(plateId));
+	}
+
+	// Evicted again after commit, otherwise a dispense racing the caller's update would reload the old stock
+	public void evictReagent(Long reagentId) {
+		flushInNewTransaction();
+		reagentBalances.remove(reagentId);
+		afterCommit(() -> reagentBalances.remove(reagentId));
+	}
+
+	private void removePlate(Long plateId) {
+		PlateState state = plates.remove(plateId);
+		if (state != null) {
+			plateIdsByBarcode.remove(state.getBarcode(), plateId);
+		}
+	}
+
+	// Calls within this class bypass the transactional proxy of flush()
+	private void flushInNewTransaction() {
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		transactionTemplate.executeWithoutResult(status -> flush());
+	}
+
+	private PlateState load(Plate plate) {
+		return plates.computeIfAbsent(plate.getId(), id -> {
+			log.debug("Loading plate state for plate: {}", plate.getBarcode());
+			PlateState state = new PlateState(plate, wellRepository.findByPlate(plate));
+			jdbcTemplate.query(
+					"SELECT w.position, SUM(o.volume_dispensed) FROM dispense_operations o " +
+							"JOIN wells w ON w.id = o.well_id " +
+							"WHERE o.plate_id = ? AND o.status IN ('PENDING', 'IN_PROGRESS') GROUP BY w.position",
+					(RowCallbackHandler) rs -> {
+						int index = state.indexOf(rs.getString(1));
+						if (index >= 0) {
+							state.reserve(index, rs.getDouble(2));
+						}
+					},
+					id);
+			plateIdsByBarcode.put(plate.getBarcode(), id);
+			return state;
+		});
+	}
+
+	private ReagentBalance getReagentBalance(Long reagentId) {
+		return reagentBalances.computeIfAbsent(reagentId, id -> {
+			Reagent reagent = reagentRepository.findById(id)
+					.orElseThrow(() -> new IllegalArgumentException("Reagent not found with id: " + id));
+			Double reserved = jdbcTemplate.queryForObject(
+					"SELECT SUM(volume_dispensed) FROM dispense_operations " +
+							"WHERE reagent_id = ? AND status IN ('PENDING', 'IN_PROGRESS')",
+					Double.class, id);
+			// Dispenses not flushed yet are not in the loaded stock
+			double stock = reagent.getStockVolume() - pendingReagentDeltas.getOrDefault(id, 0.0);
+			return new ReagentBalance(stock, reserved != null ? reserved : 0.0);
+		});
+	}
+
+	// A NaN reservation would make every later stock check pass, so it must never reach a balance
+	private static void checkVolume(double volume) {
+		if (!Double.isFinite(volume) || volume < 0) {
+			throw new IllegalArgumentException("Volume must be a finite, non-negative number: " + volume);
+		}
+	}
+
+	private static void afterCommit(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
+
+	private static void onRollback(Runnable undo) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				if (status == STATUS_ROLLED_BACK) {
+					undo.run();
+				}
+			}
+		});
+	}
+
+	private static List<Object[]> drain(Map<Long, Double> pending) {
+		List<Object[]> updates = new ArrayList<>(pending.size());
+		for (Long id : pending.keySet()) {
+			Double delta = pending.remove(id);
+			if (delta != null) {
+				updates.add(new Object[] {delta, id});
+			}
+		}
+		return updates;
+	}
+
+	private static void restore(Map<Long, Double> pending, List<Object[]> updates) {
+		for (Object[] update : updates) {
+			pending.merge((Long) update[1], (Double) update[0], Double::sum);
+		}
+	}
+
+	private static final class ReagentBalance {
+
+		private double stock;
+		private double reserved;
+
+		ReagentBalance(double stock, double reserved) {
+			this.stock = stock;
+			this.reserved = reserved;
+		}
+
+		synchronized double getStock() {
+			return stock;
+		}
+
+		synchronized double getReserved() {
+			return reserved;
+		}
+
+		synchronized void checkAvailable(double volume) {
+			if (stock - reserved < volume) {
+				throw new IllegalArgumentException(
+						"Insufficient reagent stock. Available: " + (stock - reserved) +
+						", Reserved: " + reserved +
+						", Requested: " + volume);
+			}
+		}
+
+		synchronized void reserve(double volume) {
+			reserved += volume;
+		}
+
+		synchronized void release(double volume) {
+			reserved = Math.max(0.0, reserved - volume);
+		}
+
+		synchronized void consume(double volume) {
+			stock -= volume;
+			reserved = Math.max(0.0, reserved - volume);
+		}
+
+		synchronized void unconsume(double volume) {
+			stock += volume;
+			reserved += volume;
+		}
+	}
+}
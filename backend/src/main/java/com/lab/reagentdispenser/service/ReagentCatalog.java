@@ -0,0 +1,47 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.config.CacheConfig;
+import com.lab.reagentdispenser.dto.ReagentDTO;
+import com.lab.reagentdispenser.entity.Reagent;
+import com.lab.reagentdispenser.repository.ReagentRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Cached reagent metadata, evicted by ReagentService when a reagent changes. The stock volume of a cached
+// reagent is the one read from the database; callers that show stock replace it with the live value
+// from PlateStateEngine.
+@Component
+@RequiredArgsConstructor
+public class ReagentCatalog {
+
+	private final ReagentRepository reagentRepository;
+
+	@Cacheable(cacheNames = CacheConfig.REAGENTS, key = "#id")
+	public ReagentDTO getReagent(Long id) {
+		Reagent reagent = reagentRepository.findById(id)
+				.orElseThrow(() -> new IllegalArgumentException("Reagent not found with id: " + id));
+		return convertToDTO(reagent);
+	}
+
+	@Cacheable(cacheNames = CacheConfig.REAGENT_LIST, key = "'all'")
+	public List<ReagentDTO> getAllReagents() {
+		return reagentRepository.findAll().stream()
+				.map(ReagentCatalog::convertToDTO)
+				.collect(Collectors.toList());
+	}
+
+	static ReagentDTO convertToDTO(Reagent reagent) {
+		return ReagentDTO.builder()
+				.id(reagent.getId())
+				.name(reagent.getName())
+				.description(reagent.getDescription())
+				.concentration(reagent.getConcentration())
+				.stockVolume(reagent.getStockVolume())
+				.unit(reagent.getUnit())
+				.build();
+	}
+}
@@ -1,14 +1,18 @@
 package com.lab.reagentdispenser.service;
 
+import com.lab.reagentdispenser.config.CacheConfig;
 import com.lab.reagentdispenser.dto.ReagentDTO;
 import com.lab.reagentdispenser.entity.Reagent;
 import com.lab.reagentdispenser.repository.ReagentRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.OptionalDouble;
 import java.util.stream.Collectors;
 
 @Service
@@ -17,22 +21,23 @@ import java.util.stream.Collectors;
 public class ReagentService {
 
 	private final ReagentRepository reagentRepository;
+	private final PlateStateEngine plateStateEngine;
+	private final ReagentCatalog reagentCatalog;
 
 	public List<ReagentDTO> getAllReagents() {
 		log.info("Retrieving all reagents");
-		return reagentRepository.findAll().stream()
-				.map(this::convertToDTO)
+		return reagentCatalog.getAllReagents().stream()
+				.map(this::withCurrentStock)
 				.collect(Collectors.toList());
 	}
 
 	public ReagentDTO getReagentById(Long id) {
 		log.info("Retrieving reagent by id: {}", id);
-		Reagent reagent = reagentRepository.findById(id)
-				.orElseThrow(() -> new IllegalArgumentException("Reagent not found with id: " + id));
-		return convertToDTO(reagent);
+		return withCurrentStock(reagentCatalog.getReagent(id));
 	}
 
 	@Transactional
+	@CacheEvict(cacheNames = CacheConfig.REAGENT_LIST, allEntries = true)
 	public ReagentDTO createReagent(ReagentDTO reagentDTO) {
 		log.info("Creating new reagent: {}", reagentDTO.getName());
 		
@@ -50,9 +55,19 @@ public class ReagentService {
 	}
 
 	@Transactional
+	@Caching(evict = {
+			@CacheEvict(cacheNames = CacheConfig.REAGENTS, key = "#id"),
+			@CacheEvict(cacheNames = CacheConfig.REAGENT_LIST, allEntries = true)})
 	public ReagentDTO updateReagent(Long id, ReagentDTO reagentDTO) {
 		log.info("Updating reagent with id: {}", id);
 		
+		if (!reagentRepository.existsById(id)) {
+			throw new IllegalArgumentException("Reagent not found with id: " + id);
+		}
+
+		// Write pending stock changes first so they are not lost or applied on top of the new stock. The
+		// reagent is loaded afterwards, with the version the flush left.
+		plateStateEngine.evictReagent(id);
 		Reagent reagent = reagentRepository.findById(id)
 				.orElseThrow(() -> new IllegalArgumentException("Reagent not found with id: " + id));
 
@@ -68,6 +83,9 @@ public class ReagentService {
 	}
 
 	@Transactional
+	@Caching(evict = {
+			@CacheEvict(cacheNames = CacheConfig.REAGENTS, key = "#id"),
+			@CacheEvict(cacheNames = CacheConfig.REAGENT_LIST, allEntries = true)})
 	public void deleteReagent(Long id) {
 		log.info("Deleting reagent with id: {}", id);
 		
@@ -75,18 +93,20 @@ public class ReagentService {
 			throw new IllegalArgumentException("Reagent not found with id: " + id);
 		}
 
+		plateStateEngine.evictReagent(id);
 		reagentRepository.deleteById(id);
 		log.info("Deleted reagent with id: {}", id);
 	}
 
 	private ReagentDTO convertToDTO(Reagent reagent) {
-		return ReagentDTO.builder()
-				.id(reagent.getId())
-				.name(reagent.getName())
-				.description(reagent.getDescription())
-				.concentration(reagent.getConcentration())
-				.stockVolume(reagent.getStockVolume())
-				.unit(reagent.getUnit())
+		return withCurrentStock(ReagentCatalog.convertToDTO(reagent));
+	}
+
+	// Returns a copy, so cached DTOs are never changed
+	private ReagentDTO withCurrentStock(ReagentDTO reagent) {
+		OptionalDouble stock = plateStateEngine.findReagentStock(reagent.getId());
+		return reagent.toBuilder()
+				.stockVolume(stock.isPresent() ? stock.getAsDouble() : reagent.getStockVolume())
 				.build();
 	}
 }
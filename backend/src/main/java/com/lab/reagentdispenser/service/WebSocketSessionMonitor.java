@@ -0,0 +1,90 @@
+package com.lab.reagentdispenser.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Counts WebSocket sessions and the ones closed for being too slow. Sessions whose pending sends exceed
+// dispenser.websocket.send-time-limit-ms or send-buffer-size-limit are closed by Spring with
+// SESSION_NOT_RELIABLE; the client reconnects and resyncs from the event history. Sessions whose outbound
+// message was rejected by a full outbound channel queue are closed the same way.
+@Component
+@Slf4j
+public class WebSocketSessionMonitor {
+
+	private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+	private final AtomicLong evictedSessions = new AtomicLong();
+	private final AtomicLong droppedMessages = new AtomicLong();
+
+	public WebSocketSessionMonitor(MeterRegistry meterRegistry) {
+		Gauge.builder(DispenseMetrics.WEBSOCKET_SESSIONS, sessions, Map::size).register(meterRegistry);
+		FunctionCounter.builder(DispenseMetrics.WEBSOCKET_EVICTED, evictedSessions, AtomicLong::get).register(meterRegistry);
+		FunctionCounter.builder(DispenseMetrics.WEBSOCKET_DROPPED, droppedMessages, AtomicLong::get).register(meterRegistry);
+	}
+
+	public WebSocketHandler decorate(WebSocketHandler handler) {
+		return new WebSocketHandlerDecorator(handler) {
+
+			@Override
+			public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+				sessions.put(session.getId(), session);
+				super.afterConnectionEstablished(session);
+			}
+
+			@Override
+			public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+				sessions.remove(session.getId());
+				if (CloseStatus.SESSION_NOT_RELIABLE.equalsCode(closeStatus)) {
+					evictedSessions.incrementAndGet();
+					log.warn("Evicted slow WebSocket session {}: {}", session.getId(), closeStatus.getReason());
+				}
+				super.afterConnectionClosed(session, closeStatus);
+			}
+		};
+	}
+
+	// Rejection handler of the outbound channel executor. With publish order preserved, a session's next message
+	// is only sent after the current send finishes, so a dropped send would stall the session for good; it is
+	// closed instead.
+	public void rejectOutboundMessage(Runnable task) {
+		droppedMessages.incrementAndGet();
+		if (!(task instanceof MessageHandlingRunnable)) {
+			return;
+		}
+		String sessionId = SimpMessageHeaderAccessor.getSessionId(((MessageHandlingRunnable) task).getMessage().getHeaders());
+		WebSocketSession session = sessionId != null ? sessions.get(sessionId) : null;
+		if (session == null) {
+			return;
+		}
+		try {
+			session.close(CloseStatus.SESSION_NOT_RELIABLE.withReason("Outbound queue full"));
+		} catch (IOException e) {
+			log.debug("Failed to close WebSocket session {}", sessionId, e);
+		}
+	}
+
+	public int getActiveSessions() {
+		return sessions.size();
+	}
+
+	public long getEvictedSessions() {
+		return evictedSessions.get();
+	}
+
+	public long getDroppedMessages() {
+		return droppedMessages.get();
+	}
+}
@@ -0,0 +1,42 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.dto.WebSocketStatsDTO;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+@Service
+public class WebSocketStatsService {
+
+	private final WebSocketSessionMonitor sessionMonitor;
+	private final ThreadPoolTaskExecutor inboundExecutor;
+	private final ThreadPoolTaskExecutor outboundExecutor;
+	private final String brokerMode;
+
+	public WebSocketStatsService(
+			WebSocketSessionMonitor sessionMonitor,
+			@Qualifier("webSocketInboundExecutor") ThreadPoolTaskExecutor inboundExecutor,
+			@Qualifier("webSocketOutboundExecutor") ThreadPoolTaskExecutor outboundExecutor,
+			@Value("${dispenser.websocket.broker:simple}") String brokerMode) {
+		this.sessionMonitor = sessionMonitor;
+		this.inboundExecutor = inboundExecutor;
+		this.outboundExecutor = outboundExecutor;
+		this.brokerMode = brokerMode;
+	}
+
+	public WebSocketStatsDTO getStats() {
+		return WebSocketStatsDTO.builder()
+				.brokerMode(brokerMode)
+				.activeSessions(sessionMonitor.getActiveSessions())
+				.evictedSessions(sessionMonitor.getEvictedSessions())
+				.droppedMessages(sessionMonitor.getDroppedMessages())
+				.inboundPoolSize(inboundExecutor.getPoolSize())
+				.inboundActiveCount(inboundExecutor.getActiveCount())
+				.inboundQueueDepth(inboundExecutor.getThreadPoolExecutor().getQueue().size())
+				.outboundPoolSize(outboundExecutor.getPoolSize())
+				.outboundActiveCount(outboundExecutor.getActiveCount())
+				.outboundQueueDepth(outboundExecutor.getThreadPoolExecutor().getQueue().size())
+				.build();
+	}
+}
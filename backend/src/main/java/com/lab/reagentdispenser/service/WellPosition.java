@@ -0,0 +1,47 @@
+package com.lab.reagentdispenser.service;
+
+// Converts between well positions ("A1", "H12", "AF48") and zero-based row/column indexes
+public final class WellPosition {
+
+	private WellPosition() {
+	}
+
+	// Returns -1 when the position has no valid row letters
+	public static int rowIndex(String position) {
+		int row = 0;
+		int i = 0;
+		while (i < position.length() && position.charAt(i) >= 'A' && position.charAt(i) <= 'Z') {
+			row = row * 26 + (position.charAt(i) - 'A' + 1);
+			i++;
+		}
+		return i == 0 ? -1 : row - 1;
+	}
+
+	// Returns -1 when the position has no valid column number
+	public static int columnIndex(String position) {
+		int i = 0;
+		while (i < position.length() && position.charAt(i) >= 'A' && position.charAt(i) <= 'Z') {
+			i++;
+		}
+		if (i == 0 || i == position.length() || position.length() - i > 4) {
+			return -1;
+		}
+		int column = 0;
+		for (; i < position.length(); i++) {
+			char c = position.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			column = column * 10 + (c - '0');
+		}
+		return column - 1;
+	}
+
+	public static String of(int rowIndex, int columnIndex) {
+		StringBuilder row = new StringBuilder(2);
+		for (int n = rowIndex + 1; n > 0; n = (n - 1) / 26) {
+			row.insert(0, (char) ('A' + (n - 1) % 26));
+		}
+		return row.append(columnIndex + 1).toString();
+	}
+}
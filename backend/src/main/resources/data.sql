@@ -74,3 +74,10 @@ INSERT INTO dispense_operations (plate_id, well_id, reagent_id, volume_dispensed
 (1, 3, 2, 100.0, 'COMPLETED', CURRENT_TIMESTAMP - INTERVAL '1' HOUR, CURRENT_TIMESTAMP - INTERVAL '1' HOUR),
 (1, 4, 2, 100.0, 'IN_PROGRESS', CURRENT_TIMESTAMP - INTERVAL '5' MINUTE, NULL),
 (1, 5, 3, 25.0, 'PENDING', CURRENT_TIMESTAMP, NULL);
+
+-- Continue the id sequences after the sample rows (a sequence value is the top of the next id block)
+ALTER SEQUENCE plates_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM plates);
+ALTER SEQUENCE wells_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 500 FROM wells);
+ALTER SEQUENCE reagents_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM reagents);
+ALTER SEQUENCE dispense_batches_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM dispense_batches);
+ALTER SEQUENCE dispense_operations_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 500 FROM dispense_operations);
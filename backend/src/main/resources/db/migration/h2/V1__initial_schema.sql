@@ -0,0 +1,92 @@
+-- Initial schema, identical to schema.sql (which the default in-memory setup recreates on every start).
+-- Migrations are applied once and never drop data; later schema changes go into new versioned files.
+
+-- Create plates table
+CREATE TABLE plates (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    barcode VARCHAR(255) NOT NULL UNIQUE,
+    rows INT NOT NULL DEFAULT 8,
+    columns INT NOT NULL DEFAULT 12,
+    plate_type VARCHAR(50) NOT NULL DEFAULT '96_WELL',
+    created_date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Create wells table
+CREATE TABLE wells (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    position VARCHAR(10) NOT NULL,
+    plate_id BIGINT NOT NULL,
+    volume DOUBLE,
+    max_volume DOUBLE NOT NULL DEFAULT 300.0,
+    version BIGINT NOT NULL DEFAULT 0,
+    FOREIGN KEY (plate_id) REFERENCES plates(id) ON DELETE CASCADE,
+    CONSTRAINT unique_plate_position UNIQUE (plate_id, position)
+);
+
+-- Create reagents table
+CREATE TABLE reagents (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    description VARCHAR(1000),
+    concentration VARCHAR(100),
+    stock_volume DOUBLE NOT NULL DEFAULT 0.0,
+    unit VARCHAR(10) NOT NULL DEFAULT 'μL',
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+-- Create dispense_batches table
+CREATE TABLE dispense_batches (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    plate_id BIGINT NOT NULL,
+    status VARCHAR(50) NOT NULL DEFAULT 'PLANNED',
+    created_date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    execution_started_date TIMESTAMP,
+    completed_date TIMESTAMP,
+    progress_cursor INT NOT NULL DEFAULT 0,
+    FOREIGN KEY (plate_id) REFERENCES plates(id)
+);
+
+-- Create dispense_operations table
+CREATE TABLE dispense_operations (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    plate_id BIGINT NOT NULL,
+    well_id BIGINT NOT NULL,
+    reagent_id BIGINT NOT NULL,
+    batch_id BIGINT,
+    volume_dispensed DOUBLE NOT NULL,
+    status VARCHAR(50) NOT NULL DEFAULT 'PENDING',
+    created_date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    completed_date TIMESTAMP,
+    error_message VARCHAR(1000),
+    FOREIGN KEY (plate_id) REFERENCES plates(id),
+    FOREIGN KEY (well_id) REFERENCES wells(id),
+    FOREIGN KEY (reagent_id) REFERENCES reagents(id),
+    FOREIGN KEY (batch_id) REFERENCES dispense_batches(id)
+);
+
+-- Dispense events written in the same transaction as the state change; drained after commit
+-- by the event outbox publisher. Columns mirror DispenseEventDTO, so nothing is serialised on write.
+CREATE TABLE dispense_event_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    plate_barcode VARCHAR(255) NOT NULL,
+    plate_id BIGINT NOT NULL,
+    operation_id BIGINT,
+    batch_id BIGINT,
+    well_position VARCHAR(10),
+    status VARCHAR(50) NOT NULL,
+    well_volume DOUBLE,
+    error_message VARCHAR(1000),
+    created_date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Create indexes
+CREATE INDEX idx_plate_barcode ON plates(barcode);
+CREATE INDEX idx_well_plate ON wells(plate_id);
+-- History filters combine with keyset paging on id (newest first)
+CREATE INDEX idx_operation_status ON dispense_operations(status, id);
+CREATE INDEX idx_operation_plate ON dispense_operations(plate_id, id);
+CREATE INDEX idx_operation_reagent ON dispense_operations(reagent_id, id);
+CREATE INDEX idx_operation_created ON dispense_operations(created_date, id);
+CREATE INDEX idx_operation_batch ON dispense_operations(batch_id, id);
+CREATE INDEX idx_batch_plate ON dispense_batches(plate_id);
+CREATE INDEX idx_batch_status ON dispense_batches(status);
@@ -0,0 +1,16 @@
+-- Entity ids move from identity columns to pooled sequences, so Hibernate can batch inserts. Each sequence
+-- continues after the existing rows; a sequence value is the top of the next block of INCREMENT BY ids.
+CREATE SEQUENCE plates_seq START WITH 50 INCREMENT BY 50;
+ALTER SEQUENCE plates_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM plates);
+
+CREATE SEQUENCE wells_seq START WITH 500 INCREMENT BY 500;
+ALTER SEQUENCE wells_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 500 FROM wells);
+
+CREATE SEQUENCE reagents_seq START WITH 50 INCREMENT BY 50;
+ALTER SEQUENCE reagents_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM reagents);
+
+CREATE SEQUENCE dispense_batches_seq START WITH 50 INCREMENT BY 50;
+ALTER SEQUENCE dispense_batches_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM dispense_batches);
+
+CREATE SEQUENCE dispense_operations_seq START WITH 500 INCREMENT BY 500;
+ALTER SEQUENCE dispense_operations_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 500 FROM dispense_operations);
@@ -0,0 +1,26 @@
+-- Completed and failed operations past the retention period, moved out of dispense_operations by the
+-- operation archiver so the live table and its indexes only hold recent work. Plate barcode, well position
+-- and reagent name are copied, so archived rows stay readable after their plate or reagent is deleted.
+CREATE TABLE dispense_operations_archive (
+    id BIGINT PRIMARY KEY,
+    plate_id BIGINT NOT NULL,
+    plate_barcode VARCHAR(255) NOT NULL,
+    well_id BIGINT NOT NULL,
+    well_position VARCHAR(10) NOT NULL,
+    reagent_id BIGINT NOT NULL,
+    reagent_name VARCHAR(255) NOT NULL,
+    batch_id BIGINT,
+    volume_dispensed DOUBLE NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    created_date TIMESTAMP NOT NULL,
+    completed_date TIMESTAMP,
+    error_message VARCHAR(1000),
+    archived_date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- The archive is filtered like the live history
+CREATE INDEX idx_archive_status ON dispense_operations_archive(status, id);
+CREATE INDEX idx_archive_plate ON dispense_operations_archive(plate_id, id);
+CREATE INDEX idx_archive_reagent ON dispense_operations_archive(reagent_id, id);
+CREATE INDEX idx_archive_created ON dispense_operations_archive(created_date, id);
+CREATE INDEX idx_archive_batch ON dispense_operations_archive(batch_id, id);
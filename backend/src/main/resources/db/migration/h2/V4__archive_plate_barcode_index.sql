@@ -0,0 +1,4 @@
+-- The history's plate filter matches archived rows by their copied barcode, so rows of deleted plates are
+-- still found; the plate id index is not used by any archive query
+DROP INDEX idx_archive_plate;
+CREATE INDEX idx_archive_plate_barcode ON dispense_operations_archive(plate_barcode, id);
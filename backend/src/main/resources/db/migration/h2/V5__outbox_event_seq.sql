@@ -0,0 +1,6 @@
+-- Events are numbered when the outbox publisher first reads them, in the order they become visible, and the
+-- number is kept in the row: an event published again after a crash keeps its sequence number, and numbering
+-- continues after a restart
+CREATE SEQUENCE dispense_event_seq;
+ALTER TABLE dispense_event_outbox ADD COLUMN seq BIGINT;
+CREATE INDEX idx_outbox_seq ON dispense_event_outbox(seq);
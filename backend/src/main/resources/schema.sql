@@ -1,9 +1,20 @@
+-- Schema of the in-memory database, recreated on every start. The persistent datastore profiles build the
+-- same schema from the Flyway migrations in db/migration; add every schema change there as a new version too.
+
 -- Drop tables if they exist
+DROP TABLE IF EXISTS dispense_operations_archive;
+DROP TABLE IF EXISTS dispense_event_outbox;
 DROP TABLE IF EXISTS dispense_operations;
 DROP TABLE IF EXISTS dispense_batches;
 DROP TABLE IF EXISTS wells;
 DROP TABLE IF EXISTS plates;
 DROP TABLE IF EXISTS reagents;
+DROP SEQUENCE IF EXISTS plates_seq;
+DROP SEQUENCE IF EXISTS wells_seq;
+DROP SEQUENCE IF EXISTS reagents_seq;
+DROP SEQUENCE IF EXISTS dispense_batches_seq;
+DROP SEQUENCE IF EXISTS dispense_operations_seq;
+DROP SEQUENCE IF EXISTS dispense_event_seq;
 
 -- Create plates table
 CREATE TABLE plates (
@@ -22,6 +33,7 @@ CREATE TABLE wells (
     plate_id BIGINT NOT NULL,
     volume DOUBLE,
     max_volume DOUBLE NOT NULL DEFAULT 300.0,
+    version BIGINT NOT NULL DEFAULT 0,
     FOREIGN KEY (plate_id) REFERENCES plates(id) ON DELETE CASCADE,
     CONSTRAINT unique_plate_position UNIQUE (plate_id, position)
 );
@@ -33,7 +45,8 @@ CREATE TABLE reagents (
     description VARCHAR(1000),
     concentration VARCHAR(100),
     stock_volume DOUBLE NOT NULL DEFAULT 0.0,
-    unit VARCHAR(10) NOT NULL DEFAULT 'μL'
+    unit VARCHAR(10) NOT NULL DEFAULT 'μL',
+    version BIGINT NOT NULL DEFAULT 0
 );
 
 -- Create dispense_batches table
@@ -44,6 +57,7 @@ CREATE TABLE dispense_batches (
     created_date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     execution_started_date TIMESTAMP,
     completed_date TIMESTAMP,
+    progress_cursor INT NOT NULL DEFAULT 0,
     FOREIGN KEY (plate_id) REFERENCES plates(id)
 );
 
@@ -65,11 +79,69 @@ CREATE TABLE dispense_operations (
     FOREIGN KEY (batch_id) REFERENCES dispense_batches(id)
 );
 
+-- Dispense events written in the same transaction as the state change; drained after commit
+-- by the event outbox publisher. Columns mirror DispenseEventDTO, so nothing is serialised on write.
+-- seq is assigned by the publisher from dispense_event_seq when it first reads the committed row.
+CREATE TABLE dispense_event_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    seq BIGINT,
+    plate_barcode VARCHAR(255) NOT NULL,
+    plate_id BIGINT NOT NULL,
+    operation_id BIGINT,
+    batch_id BIGINT,
+    well_position VARCHAR(10),
+    status VARCHAR(50) NOT NULL,
+    well_volume DOUBLE,
+    error_message VARCHAR(1000),
+    created_date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Completed and failed operations past the retention period, moved out of dispense_operations by the
+-- operation archiver so the live table and its indexes only hold recent work. Plate barcode, well position
+-- and reagent name are copied, so archived rows stay readable after their plate or reagent is deleted.
+CREATE TABLE dispense_operations_archive (
+    id BIGINT PRIMARY KEY,
+    plate_id BIGINT NOT NULL,
+    plate_barcode VARCHAR(255) NOT NULL,
+    well_id BIGINT NOT NULL,
+    well_position VARCHAR(10) NOT NULL,
+    reagent_id BIGINT NOT NULL,
+    reagent_name VARCHAR(255) NOT NULL,
+    batch_id BIGINT,
+    volume_dispensed DOUBLE NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    created_date TIMESTAMP NOT NULL,
+    completed_date TIMESTAMP,
+    error_message VARCHAR(1000),
+    archived_date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Id sequences of the entities. Hibernate allocates ids in blocks of INCREMENT BY (which must match the
+-- entity's allocationSize), so inserts need no generated-key round trip and can be batched. The
+-- AUTO_INCREMENT columns only number rows inserted without an id, i.e. the sample data.
+CREATE SEQUENCE plates_seq START WITH 50 INCREMENT BY 50;
+CREATE SEQUENCE wells_seq START WITH 500 INCREMENT BY 500;
+CREATE SEQUENCE reagents_seq START WITH 50 INCREMENT BY 50;
+CREATE SEQUENCE dispense_batches_seq START WITH 50 INCREMENT BY 50;
+CREATE SEQUENCE dispense_operations_seq START WITH 500 INCREMENT BY 500;
+-- Sequence numbers of dispense events, kept across restarts
+CREATE SEQUENCE dispense_event_seq;
+
 -- Create indexes
 CREATE INDEX idx_plate_barcode ON plates(barcode);
 CREATE INDEX idx_well_plate ON wells(plate_id);
-CREATE INDEX idx_operation_status ON dispense_operations(status);
-CREATE INDEX idx_operation_plate ON dispense_operations(plate_id);
-CREATE INDEX idx_operation_batch ON dispense_operations(batch_id);
+-- History filters combine with keyset paging on id (newest first)
+CREATE INDEX idx_operation_status ON dispense_operations(status, id);
+CREATE INDEX idx_operation_plate ON dispense_operations(plate_id, id);
+CREATE INDEX idx_operation_reagent ON dispense_operations(reagent_id, id);
+CREATE INDEX idx_operation_created ON dispense_operations(created_date, id);
+CREATE INDEX idx_operation_batch ON dispense_operations(batch_id, id);
 CREATE INDEX idx_batch_plate ON dispense_batches(plate_id);
 CREATE INDEX idx_batch_status ON dispense_batches(status);
+CREATE INDEX idx_outbox_seq ON dispense_event_outbox(seq);
+-- The archive is filtered like the live history
+CREATE INDEX idx_archive_status ON dispense_operations_archive(status, id);
+CREATE INDEX idx_archive_plate_barcode ON dispense_operations_archive(plate_barcode, id);
+CREATE INDEX idx_archive_reagent ON dispense_operations_archive(reagent_id, id);
+CREATE INDEX idx_archive_created ON dispense_operations_archive(created_date, id);
+CREATE INDEX idx_archive_batch ON dispense_operations_archive(batch_id, id);
@@ -0,0 +1,82 @@
+package com.lab.reagentdispenser.controller;
+
+import com.lab.reagentdispenser.repository.OperationHistoryRepository;
+import com.lab.reagentdispenser.service.BatchExecutionService;
+import com.lab.reagentdispenser.service.DispenseDispatcher;
+import com.lab.reagentdispenser.service.DispenseEventStream;
+import com.lab.reagentdispenser.service.DispenseService;
+import com.lab.reagentdispenser.service.OperationHistoryService;
+import com.lab.reagentdispenser.service.PlateStateEngine;
+import com.lab.reagentdispenser.service.WebSocketStatsService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(DispenseController.class)
+@Import(OperationHistoryService.class)
+class DispenseControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private OperationHistoryRepository historyRepository;
+
+	@MockBean
+	private PlateStateEngine plateStateEngine;
+
+	@MockBean
+	private DispenseService dispenseService;
+
+	@MockBean
+	private DispenseDispatcher dispenseDispatcher;
+
+	@MockBean
+	private BatchExecutionService batchExecutionService;
+
+	@MockBean
+	private DispenseEventStream eventStream;
+
+	@MockBean
+	private WebSocketStatsService webSocketStatsService;
+
+	@Test
+	void shouldRejectExportWithUnknownStatusBeforeStreaming() throws Exception {
+		// Act & Assert
+		mockMvc.perform(get("/api/dispense/history/export").param("status", "BOGUS"))
+				.andExpect(request().asyncNotStarted())
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.status").value(400));
+
+		verifyNoInteractions(historyRepository);
+	}
+
+	@Test
+	void shouldRejectCsvExportWithReversedRangeBeforeStreaming() throws Exception {
+		// Act & Assert
+		mockMvc.perform(get("/api/dispense/history/export")
+						.param("format", "csv")
+						.param("from", "2024-02-01T00:00:00")
+						.param("to", "2024-01-01T00:00:00"))
+				.andExpect(request().asyncNotStarted())
+				.andExpect(status().isBadRequest());
+
+		verifyNoInteractions(historyRepository);
+	}
+
+	@Test
+	void shouldStreamExportForValidFilter() throws Exception {
+		// Act & Assert
+		mockMvc.perform(get("/api/dispense/history/export").param("status", "COMPLETED"))
+				.andExpect(request().asyncStarted());
+	}
+}
@@ -0,0 +1,323 @@
+package com.lab.reagentdispenser.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lab.reagentdispenser.dto.AddOperationToBatchRequestDTO;
+import com.lab.reagentdispenser.dto.BulkBatchOperationsRequestDTO;
+import com.lab.reagentdispenser.dto.CreateBatchRequestDTO;
+import com.lab.reagentdispenser.dto.DispenseEventDTO;
+import com.lab.reagentdispenser.dto.DispenseEventFrameDTO;
+import com.lab.reagentdispenser.dto.PlateDTO;
+import com.lab.reagentdispenser.dto.ReagentDTO;
+import com.lab.reagentdispenser.service.DispenseEventStream;
+import com.lab.reagentdispenser.service.PlateFormat;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Drives mixed REST traffic (plate creation, batch planning, execution and history queries) from
+// load.concurrency workers against the app with a fast hardware simulator, and follows every executed batch
+// on its WebSocket topic. After load.warmup-seconds of warm-up it measures for load.duration-seconds and
+// reports count, ops/sec and p50/p99/p99.9 latency per endpoint, also written to
+// target/load-test/dispense-api-load.csv. Run with:
+//   mvn test -P load-test -Dtest=DispenseApiLoadTest -Dload.concurrency=32 -Dload.duration-seconds=60
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=jdbc:h2:mem:loadtest",
+		"dispenser.hardware.dispense-time-ms=1",
+		"dispenser.hardware.cycle-time-ms=1",
+		"dispenser.batch.queue-capacity=64",
+		"logging.level.com.lab.reagentdispenser=WARN",
+		"logging.level.org.springframework.web=WARN",
+		"logging.level.org.hibernate.SQL=WARN"})
+class DispenseApiLoadTest {
+
+	private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 16);
+	private static final int WARMUP_SECONDS = Integer.getInteger("load.warmup-seconds", 5);
+	private static final int DURATION_SECONDS = Integer.getInteger("load.duration-seconds", 30);
+	private static final int OPERATIONS_PER_BATCH = Integer.getInteger("load.operations-per-batch", 96);
+
+	private static final String WS_FIRST_EVENT = "WS batch first event after execute";
+	private static final String WS_COMPLETED = "WS batch completed after execute";
+	private static final Set<String> FINAL_BATCH_STATUSES = Set.of("COMPLETED", "FAILED", "CANCELLED");
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+	private final AtomicLong plateNumbers = new AtomicLong();
+
+	private final List<String> plates = Collections.synchronizedList(new ArrayList<>());
+	private final List<Long> batches = Collections.synchronizedList(new ArrayList<>());
+	private final ConcurrentLinkedQueue<Long> plannedBatches = new ConcurrentLinkedQueue<>();
+	private final Map<Long, BatchWatch> watches = new ConcurrentHashMap<>();
+
+	private Long reagentId;
+	private StompSession stompSession;
+
+	@Test
+	void mixedTrafficReportsLatencyPerEndpoint() throws Exception {
+		WebSocketStompClient stompClient = new WebSocketStompClient(
+				new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+		stompSession = stompClient.connect("http://localhost:" + port + "/ws", new StompSessionHandlerAdapter() {})
+				.get(10, TimeUnit.SECONDS);
+		reagentId = post("/api/reagents", ReagentDTO.builder()
+				.name("Load test buffer")
+				.stockVolume(1e12)
+				.unit("μL")
+				.build(), new LatencyRecorder(), "setup").path("id").asLong();
+
+		runPhase(new LatencyRecorder(), WARMUP_SECONDS);
+		LatencyRecorder recorder = new LatencyRecorder();
+		runPhase(recorder, DURATION_SECONDS);
+		long unfinished = awaitExecutedBatches();
+		stompSession.disconnect();
+		stompClient.stop();
+
+		System.out.printf("%nconcurrency %d, %d s measured, %d operations per batch%n",
+				CONCURRENCY, DURATION_SECONDS, OPERATIONS_PER_BATCH);
+		recorder.print();
+		recorder.writeCsv(Path.of("target", "load-test", "dispense-api-load.csv"));
+
+		assertThat(recorder.errors()).isZero();
+		assertThat(unfinished).isZero();
+		assertThat(recorder.count(WS_COMPLETED)).isPositive();
+	}
+
+	private void runPhase(LatencyRecorder recorder, int seconds) throws Exception {
+		ExecutorService workers = Executors.newFixedThreadPool(CONCURRENCY);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		recorder.start();
+		List<Future<?>> results = new ArrayList<>();
+		for (int i = 0; i < CONCURRENCY; i++) {
+			results.add(workers.submit(() -> {
+				while (System.nanoTime() < deadline) {
+					nextRequest(recorder);
+				}
+				return null;
+			}));
+		}
+		for (Future<?> result : results) {
+			result.get();
+		}
+		workers.shutdown();
+		recorder.stop();
+	}
+
+	// Weighted mix; plates and batches are created on demand so every request has something to work on
+	private void nextRequest(LatencyRecorder recorder) throws Exception {
+		int roll = ThreadLocalRandom.current().nextInt(100);
+		if (plates.size() < CONCURRENCY || roll < 8) {
+			createPlate(recorder);
+		} else if (batches.isEmpty() || roll < 20) {
+			planBatch(recorder);
+		} else if (roll < 30 && !plannedBatches.isEmpty()) {
+			executeBatch(recorder);
+		} else if (roll < 60) {
+			get("/api/dispense/history?limit=50" + (roll % 2 == 0 ? "&plateBarcode=" + randomOf(plates) : ""),
+					recorder, "GET /api/dispense/history");
+		} else if (roll < 75) {
+			get("/api/dispense/batch/" + randomOf(batches), recorder, "GET /api/dispense/batch/{id}");
+		} else if (roll < 88) {
+			get("/api/dispense/batch/" + randomOf(batches) + "/operations?limit=100",
+					recorder, "GET /api/dispense/batch/{id}/operations");
+		} else {
+			get("/api/plates/barcode/" + randomOf(plates), recorder, "GET /api/plates/barcode/{barcode}");
+		}
+	}
+
+	private void createPlate(LatencyRecorder recorder) throws Exception {
+		PlateFormat format = PlateFormat.WELL_96;
+		String barcode = "LOAD-" + plateNumbers.incrementAndGet();
+		JsonNode plate = post("/api/plates", PlateDTO.builder()
+				.barcode(barcode)
+				.rows(format.getRows())
+				.columns(format.getColumns())
+				.plateType(format.getType())
+				.build(), recorder, "POST /api/plates");
+		if (plate != null) {
+			plates.add(barcode);
+		}
+	}
+
+	// Subscribes to the batch topic while planning, well before anyone can execute the batch
+	private void planBatch(LatencyRecorder recorder) throws Exception {
+		JsonNode batch = post("/api/dispense/batch", CreateBatchRequestDTO.builder()
+				.plateBarcode(randomOf(plates))
+				.build(), recorder, "POST /api/dispense/batch");
+		if (batch == null) {
+			return;
+		}
+		long batchId = batch.path("id").asLong();
+		BatchWatch watch = new BatchWatch(batchId);
+		watch.subscription = stompSession.subscribe(DispenseEventStream.BATCH_TOPIC_PREFIX + batchId, watch);
+		watches.put(batchId, watch);
+
+		PlateFormat format = PlateFormat.WELL_96;
+		List<AddOperationToBatchRequestDTO> operations = new ArrayList<>();
+		for (int i = 0; i < OPERATIONS_PER_BATCH; i++) {
+			operations.add(AddOperationToBatchRequestDTO.builder()
+					.wellPosition(format.positionOf(i % format.getWellCount()))
+					.reagentId(reagentId)
+					.volume(0.1)
+					.build());
+		}
+		if (post("/api/dispense/batch/" + batchId + "/operations", BulkBatchOperationsRequestDTO.builder()
+				.operations(operations)
+				.build(), recorder, "POST /api/dispense/batch/{id}/operations") != null) {
+			batches.add(batchId);
+			plannedBatches.add(batchId);
+		}
+	}
+
+	private void executeBatch(LatencyRecorder recorder) throws Exception {
+		Long batchId = plannedBatches.poll();
+		if (batchId == null) {
+			return;
+		}
+		String endpoint = "POST /api/dispense/batch/{id}/execute";
+		BatchWatch watch = watches.get(batchId);
+		watch.recorder = recorder;
+		watch.executeNanos = System.nanoTime();
+		HttpResponse<byte[]> response = send(HttpRequest.newBuilder(uri("/api/dispense/batch/" + batchId + "/execute"))
+				.POST(HttpRequest.BodyPublishers.noBody()), recorder, endpoint);
+		if (response.statusCode() == 503) {
+			// Batch queue full: back-pressure, not an error; the batch is tried again later
+			recorder.recordRejected(endpoint);
+			watch.executeNanos = 0;
+			plannedBatches.add(batchId);
+		} else if (response.statusCode() != 200) {
+			recorder.recordError(endpoint);
+			watches.remove(batchId).subscription.unsubscribe();
+		}
+	}
+
+	// Waits for the batches executed so far to report a final status; returns how many never did
+	private long awaitExecutedBatches() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 60000;
+		while (System.currentTimeMillis() < deadline && watches.values().stream().anyMatch(w -> w.executeNanos != 0)) {
+			Thread.sleep(50);
+		}
+		return watches.values().stream().filter(w -> w.executeNanos != 0).count();
+	}
+
+	private JsonNode post(String path, Object body, LatencyRecorder recorder, String endpoint) throws Exception {
+		HttpResponse<byte[]> response = send(HttpRequest.newBuilder(uri(path))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body))), recorder, endpoint);
+		if (response.statusCode() / 100 != 2) {
+			recorder.recordError(endpoint);
+			return null;
+		}
+		return objectMapper.readTree(response.body());
+	}
+
+	private void get(String path, LatencyRecorder recorder, String endpoint) throws Exception {
+		HttpResponse<byte[]> response = send(HttpRequest.newBuilder(uri(path)).GET(), recorder, endpoint);
+		if (response.statusCode() != 200) {
+			recorder.recordError(endpoint);
+		}
+	}
+
+	private HttpResponse<byte[]> send(HttpRequest.Builder request, LatencyRecorder recorder, String endpoint)
+			throws IOException, InterruptedException {
+		long start = System.nanoTime();
+		HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+		recorder.record(endpoint, System.nanoTime() - start);
+		return response;
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://localhost:" + port + path);
+	}
+
+	private static <T> T randomOf(List<T> values) {
+		synchronized (values) {
+			return values.get(ThreadLocalRandom.current().nextInt(values.size()));
+		}
+	}
+
+	private class BatchWatch implements StompFrameHandler {
+
+		private final long batchId;
+		private volatile StompSession.Subscription subscription;
+		private volatile LatencyRecorder recorder;
+		private volatile long executeNanos;
+		private volatile boolean firstEventSeen;
+
+		private BatchWatch(long batchId) {
+			this.batchId = batchId;
+		}
+
+		@Override
+		public Type getPayloadType(StompHeaders headers) {
+			return byte[].class;
+		}
+
+		@Override
+		public void handleFrame(StompHeaders headers, Object payload) {
+			long executed = executeNanos;
+			if (executed == 0) {
+				return;
+			}
+			long elapsed = System.nanoTime() - executed;
+			if (!firstEventSeen) {
+				firstEventSeen = true;
+				recorder.record(WS_FIRST_EVENT, elapsed);
+			}
+			try {
+				DispenseEventFrameDTO frame = objectMapper.readValue((byte[]) payload, DispenseEventFrameDTO.class);
+				for (DispenseEventDTO event : frame.getEvents()) {
+					if (event.getOpId() == null && FINAL_BATCH_STATUSES.contains(event.getStatus())) {
+						recorder.record(WS_COMPLETED, elapsed);
+						if (!"COMPLETED".equals(event.getStatus())) {
+							recorder.recordError(WS_COMPLETED);
+						}
+						executeNanos = 0;
+						watches.remove(batchId);
+						subscription.unsubscribe();
+						return;
+					}
+				}
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package com.lab.reagentdispenser.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency histograms (microseconds, 3 significant digits) and error counts per endpoint for one load phase
+class LatencyRecorder {
+
+	private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+	private final Map<String, Endpoint> endpoints = new ConcurrentSkipListMap<>();
+	private volatile long startNanos = System.nanoTime();
+	private volatile long endNanos;
+
+	void start() {
+		startNanos = System.nanoTime();
+	}
+
+	void stop() {
+		endNanos = System.nanoTime();
+	}
+
+	void record(String endpoint, long elapsedNanos) {
+		endpoint(endpoint).histogram.recordValue(
+				Math.min(TimeUnit.NANOSECONDS.toMicros(elapsedNanos), HIGHEST_TRACKABLE_MICROS));
+	}
+
+	void recordError(String endpoint) {
+		endpoint(endpoint).errors.increment();
+	}
+
+	void recordRejected(String endpoint) {
+		endpoint(endpoint).rejected.increment();
+	}
+
+	long errors() {
+		return endpoints.values().stream().mapToLong(e -> e.errors.sum()).sum();
+	}
+
+	long count(String endpoint) {
+		Endpoint stats = endpoints.get(endpoint);
+		return stats != null ? stats.histogram.getTotalCount() : 0;
+	}
+
+	void print() {
+		double seconds = (endNanos - startNanos) / 1e9;
+		System.out.printf("%n%-44s %8s %7s %8s %10s %9s %9s %9s %9s%n",
+				"endpoint", "count", "errors", "rejected", "ops/sec", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+		endpoints.forEach((name, e) -> {
+			Histogram h = e.histogram;
+			System.out.printf("%-44s %8d %7d %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+					name, h.getTotalCount(), e.errors.sum(), e.rejected.sum(), h.getTotalCount() / seconds,
+					millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(99)),
+					millis(h.getValueAtPercentile(99.9)), millis(h.getMaxValue()));
+		});
+	}
+
+	void writeCsv(Path file) throws IOException {
+		double seconds = (endNanos - startNanos) / 1e9;
+		Files.createDirectories(file.getParent());
+		try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+			out.println("endpoint,count,errors,rejected,ops_per_sec,p50_ms,p99_ms,p999_ms,max_ms");
+			endpoints.forEach((name, e) -> {
+				Histogram h = e.histogram;
+				out.printf("\"%s\",%d,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f%n",
+						name, h.getTotalCount(), e.errors.sum(), e.rejected.sum(), h.getTotalCount() / seconds,
+						millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(99)),
+						millis(h.getValueAtPercentile(99.9)), millis(h.getMaxValue()));
+			});
+		}
+	}
+
+	private Endpoint endpoint(String name) {
+		return endpoints.computeIfAbsent(name, n -> new Endpoint());
+	}
+
+	private static double millis(long micros) {
+		return micros / 1000.0;
+	}
+
+	private static class Endpoint {
+
+		private final Histogram histogram = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+		private final LongAdder errors = new LongAdder();
+		private final LongAdder rejected = new LongAdder();
+	}
+}
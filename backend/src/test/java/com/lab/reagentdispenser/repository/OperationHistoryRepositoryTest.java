@@ -0,0 +1,103 @@
+package com.lab.reagentdispenser.repository;
+
+import com.lab.reagentdispenser.dto.DispenseOperationDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({OperationHistoryRepository.class, OperationArchiveRepository.class, SimpleMeterRegistry.class})
+class OperationHistoryRepositoryTest {
+
+	private static final OperationHistoryFilter NO_FILTER = OperationHistoryFilter.builder().build();
+
+	@Autowired
+	private OperationHistoryRepository historyRepository;
+
+	@Autowired
+	private OperationArchiveRepository archiveRepository;
+
+	@Test
+	void shouldPageNewestFirstWithKeysetCursor() {
+		// Act
+		List<DispenseOperationDTO> firstPage = historyRepository.findPage(NO_FILTER, null, 2);
+		List<DispenseOperationDTO> secondPage = historyRepository.findPage(NO_FILTER, firstPage.get(1).getId(), 2);
+
+		// Assert
+		assertThat(firstPage).extracting(DispenseOperationDTO::getId).containsExactly(5L, 4L);
+		assertThat(secondPage).extracting(DispenseOperationDTO::getId).containsExactly(3L, 2L);
+		assertThat(firstPage.get(0).getPlateBarcode()).isEqualTo("PLATE-001");
+		assertThat(firstPage.get(0).getWellPosition()).isEqualTo("A5");
+		assertThat(firstPage.get(0).getReagentName()).isEqualTo("Trypsin-EDTA");
+	}
+
+	@Test
+	void shouldApplyPlateStatusReagentAndTimeFilters() {
+		// Act
+		List<DispenseOperationDTO> completedDmso = historyRepository.findPage(OperationHistoryFilter.builder()
+				.plateBarcode("PLATE-001")
+				.status("COMPLETED")
+				.reagentId(1L)
+				.build(), null, 10);
+		List<DispenseOperationDTO> lastHalfHour = historyRepository.findPage(OperationHistoryFilter.builder()
+				.from(LocalDateTime.now().minusMinutes(30))
+				.build(), null, 10);
+		List<DispenseOperationDTO> otherPlate = historyRepository.findPage(OperationHistoryFilter.builder()
+				.plateBarcode("PLATE-002")
+				.build(), null, 10);
+
+		// Assert
+		assertThat(completedDmso).extracting(DispenseOperationDTO::getId).containsExactly(2L, 1L);
+		assertThat(lastHalfHour).extracting(DispenseOperationDTO::getId).containsExactly(5L, 4L);
+		assertThat(otherPlate).isEmpty();
+	}
+
+	@Test
+	void shouldStreamAllMatchingRows() {
+		// Act
+		List<Long> streamed = new ArrayList<>();
+		historyRepository.stream(OperationHistoryFilter.builder().reagentId(2L).build(),
+				operation -> streamed.add(operation.getId()));
+
+		// Assert
+		assertThat(streamed).containsExactly(4L, 3L);
+	}
+
+	// Runs without a test transaction so the archiver commits while the export is reading; the context is
+	// rebuilt afterwards because the sample operations stay archived
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	@DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+	void shouldStreamEveryRowOnceWhileArchiverMovesRows() {
+		// Arrange
+		List<Long> streamed = new ArrayList<>();
+
+		// Act: operations 1 to 3 move to the archive after the first live row has been read
+		historyRepository.stream(NO_FILTER, operation -> {
+			if (streamed.isEmpty()) {
+				CompletableFuture.supplyAsync(() -> archiveRepository.archive(LocalDateTime.now().minusMinutes(30), 10))
+						.orTimeout(5, TimeUnit.SECONDS)
+						.join();
+			}
+			streamed.add(operation.getId());
+		});
+
+		// Assert
+		assertThat(streamed).containsExactly(5L, 4L, 3L, 2L, 1L);
+		assertThat(historyRepository.findPage(NO_FILTER, null, 10)).extracting(DispenseOperationDTO::getId)
+				.containsExactly(5L, 4L, 3L, 2L, 1L);
+	}
+}
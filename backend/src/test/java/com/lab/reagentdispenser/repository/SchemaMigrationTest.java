@@ -0,0 +1,59 @@
+package com.lab.reagentdispenser.repository;
+
+import com.lab.reagentdispenser.entity.Plate;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Same settings as the persistent datastore profiles: the schema comes from the Flyway migrations only and
+// Hibernate validates the entity mappings against it when the context starts
+@DataJpaTest(properties = {
+		"spring.flyway.enabled=true",
+		"spring.sql.init.mode=never",
+		"spring.jpa.hibernate.ddl-auto=validate"
+})
+class SchemaMigrationTest {
+
+	@Autowired
+	private Flyway flyway;
+
+	@Autowired
+	private PlateRepository plateRepository;
+
+	@Autowired
+	private ReagentRepository reagentRepository;
+
+	@Test
+	void shouldMigrateEmptyDatabaseToSchemaMatchingTheEntities() {
+		// Act
+		MigrationInfo current = flyway.info().current();
+
+		// Assert
+		assertThat(current).isNotNull();
+		assertThat(flyway.info().pending()).isEmpty();
+		assertThat(plateRepository.count()).isZero();
+		assertThat(reagentRepository.count()).isZero();
+	}
+
+	@Test
+	void shouldKeepDataWhenMigratingAgain() {
+		// Arrange
+		plateRepository.saveAndFlush(Plate.builder()
+				.barcode("MIGRATE-001")
+				.rows(8)
+				.columns(12)
+				.plateType("96_WELL")
+				.build());
+
+		// Act
+		int applied = flyway.migrate().migrationsExecuted;
+
+		// Assert
+		assertThat(applied).isZero();
+		assertThat(plateRepository.findByBarcode("MIGRATE-001")).isPresent();
+	}
+}
@@ -0,0 +1,230 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.dto.DispenseBatchDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchExecutionServiceTest {
+
+	@Mock
+	private DispenseService dispenseService;
+
+	@Mock
+	private DispenserHardware dispenserHardware;
+
+	@Mock
+	private BatchExecutionScheduler batchExecutionScheduler;
+
+	@Spy
+	private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@InjectMocks
+	private BatchExecutionService batchExecutionService;
+
+	@Test
+	void shouldCommitEachOperationAndCheckpointEveryCycle() throws Exception {
+		// Arrange
+		List<List<DispenseCommand>> cycles = List.of(
+				List.of(command(1L, "A1"), command(2L, "B1")),
+				List.of(command(3L, "A2")));
+		when(dispenseService.planBatchCycles(10L)).thenReturn(cycles);
+		when(dispenseService.getBatchProgressCursor(10L)).thenReturn(0);
+		when(dispenserHardware.dispenseCycle(any())).thenReturn(Collections.emptyMap());
+
+		// Act
+		batchExecutionService.runBatch(10L, () -> false);
+
+		// Assert
+		InOrder inOrder = inOrder(dispenseService);
+		inOrder.verify(dispenseService).completeOperation(1L);
+		inOrder.verify(dispenseService).completeOperation(2L);
+		inOrder.verify(dispenseService).checkpointBatch(10L, 1);
+		inOrder.verify(dispenseService).completeOperation(3L);
+		inOrder.verify(dispenseService).checkpointBatch(10L, 2);
+		inOrder.verify(dispenseService).finishBatchExecution(10L);
+	}
+
+	@Test
+	void shouldResumeFromPersistedCursor() throws Exception {
+		// Arrange
+		List<List<DispenseCommand>> cycles = List.of(
+				List.of(command(1L, "A1")),
+				List.of(command(2L, "A2")),
+				List.of(command(3L, "A3")));
+		when(dispenseService.planBatchCycles(10L)).thenReturn(cycles);
+		when(dispenseService.getBatchProgressCursor(10L)).thenReturn(2);
+		when(dispenserHardware.dispenseCycle(any())).thenReturn(Collections.emptyMap());
+
+		// Act
+		batchExecutionService.runBatch(10L, () -> false);
+
+		// Assert
+		verify(dispenseService, never()).startOperation(1L);
+		verify(dispenseService, never()).startOperation(2L);
+		verify(dispenseService).completeOperation(3L);
+		verify(dispenseService).checkpointBatch(10L, 3);
+		verify(dispenseService, times(1)).checkpointBatch(eq(10L), anyInt());
+	}
+
+	@Test
+	void shouldFailOnlyTheChannelThatFailed() throws Exception {
+		// Arrange
+		when(dispenseService.planBatchCycles(10L)).thenReturn(List.of(List.of(command(1L, "A1"), command(2L, "B1"))));
+		when(dispenseService.getBatchProgressCursor(10L)).thenReturn(0);
+		when(dispenserHardware.dispenseCycle(any())).thenReturn(Map.of(2L, new IllegalStateException("Tip missing")));
+
+		// Act
+		batchExecutionService.runBatch(10L, () -> false);
+
+		// Assert
+		verify(dispenseService).completeOperation(1L);
+		verify(dispenseService).failOperation(2L, "Tip missing");
+		verify(dispenseService, never()).completeOperation(2L);
+		verify(dispenseService, never()).failOperation(eq(1L), any());
+	}
+
+	@Test
+	void shouldFailOperationWhoseCompletionThrowsAndContinue() throws Exception {
+		// Arrange
+		when(dispenseService.planBatchCycles(10L)).thenReturn(List.of(List.of(command(1L, "A1"), command(2L, "B1"))));
+		when(dispenseService.getBatchProgressCursor(10L)).thenReturn(0);
+		when(dispenserHardware.dispenseCycle(any())).thenReturn(Collections.emptyMap());
+		when(dispenseService.completeOperation(1L)).thenThrow(new IllegalArgumentException("Outbox unavailable"));
+		lenient().when(dispenseService.startOperation(2L)).thenThrow(new IllegalArgumentException("Operation not found with id: 2"));
+
+		// Act
+		batchExecutionService.runBatch(10L, () -> false);
+
+		// Assert
+		verify(dispenseService).failOperation(1L, "Outbox unavailable");
+		verify(dispenseService).failOperation(2L, "Operation not found with id: 2");
+		verify(dispenseService).checkpointBatch(10L, 1);
+		verify(dispenseService).finishBatchExecution(10L);
+		verify(dispenseService, never()).failBatchExecution(eq(10L), any());
+	}
+
+	@Test
+	void shouldFailBatchWhenExecutionStopsOnAnError() throws Exception {
+		// Arrange
+		when(dispenseService.planBatchCycles(10L)).thenReturn(List.of(List.of(command(1L, "A1")), List.of(command(2L, "A2"))));
+		when(dispenseService.getBatchProgressCursor(10L)).thenReturn(0);
+		when(dispenserHardware.dispenseCycle(any())).thenReturn(Collections.emptyMap());
+		doThrow(new IllegalStateException("Connection is closed")).when(dispenseService).checkpointBatch(10L, 1);
+		when(dispenseService.failBatchExecution(eq(10L), any())).thenReturn(DispenseBatchDTO.builder().status("FAILED").build());
+
+		// Act & Assert
+		assertThatThrownBy(() -> batchExecutionService.runBatch(10L, () -> false))
+				.hasMessage("Connection is closed");
+		verify(dispenseService).failBatchExecution(eq(10L), any());
+		verify(dispenseService, never()).startOperation(2L);
+		verify(dispenseService, never()).finishBatchExecution(10L);
+		assertThat(meterRegistry.find(DispenseMetrics.BATCH_EXECUTE).tags(DispenseMetrics.TAG_OUTCOME, "FAILED").timer())
+				.isNotNull();
+	}
+
+	@Test
+	void shouldLeaveInterruptedBatchExecutingForResume() throws Exception {
+		// Arrange
+		when(dispenseService.planBatchCycles(10L)).thenReturn(List.of(List.of(command(1L, "A1"))));
+		when(dispenseService.getBatchProgressCursor(10L)).thenReturn(0);
+		when(dispenserHardware.dispenseCycle(any())).thenThrow(new InterruptedException());
+
+		// Act & Assert
+		assertThatThrownBy(() -> batchExecutionService.runBatch(10L, () -> false))
+				.isInstanceOf(InterruptedException.class);
+		verify(dispenseService).failOperation(1L, "Dispense interrupted");
+		verify(dispenseService, never()).failBatchExecution(eq(10L), any());
+	}
+
+	@Test
+	void shouldStopAtCycleBoundaryWhenCancelled() throws Exception {
+		// Arrange
+		List<List<DispenseCommand>> cycles = List.of(
+				List.of(command(1L, "A1")),
+				List.of(command(2L, "A2")));
+		when(dispenseService.planBatchCycles(10L)).thenReturn(cycles);
+		when(dispenseService.getBatchProgressCursor(10L)).thenReturn(0);
+		when(dispenserHardware.dispenseCycle(any())).thenReturn(Collections.emptyMap());
+		AtomicBoolean cancelRequested = new AtomicBoolean();
+		when(dispenseService.completeOperation(1L)).thenAnswer(invocation -> {
+			cancelRequested.set(true);
+			return null;
+		});
+
+		// Act
+		batchExecutionService.runBatch(10L, cancelRequested::get);
+
+		// Assert
+		verify(dispenseService).checkpointBatch(10L, 1);
+		verify(dispenseService, never()).startOperation(2L);
+		verify(dispenseService).cancelBatchExecution(10L);
+		verify(dispenseService, never()).finishBatchExecution(10L);
+	}
+
+	@Test
+	void shouldTimeBatchAndCyclePhasesTaggedByPlateTypeAndBatchSize() throws Exception {
+		// Arrange
+		when(dispenseService.planBatchCycles(10L)).thenReturn(List.of(
+				List.of(command(1L, "A1"), command(2L, "B1")),
+				List.of(command(3L, "A2"))));
+		when(dispenseService.getBatchProgressCursor(10L)).thenReturn(0);
+		when(dispenseService.getPlateType("TEST-PLATE-001")).thenReturn("96_WELL");
+		when(dispenserHardware.dispenseCycle(any())).thenReturn(Collections.emptyMap());
+		when(dispenseService.finishBatchExecution(10L)).thenReturn(DispenseBatchDTO.builder().status("COMPLETED").build());
+
+		// Act
+		batchExecutionService.runBatch(10L, () -> false);
+
+		// Assert
+		Timer batch = meterRegistry.find(DispenseMetrics.BATCH_EXECUTE)
+				.tags(DispenseMetrics.TAG_PLATE_TYPE, "96_WELL", DispenseMetrics.TAG_BATCH_SIZE, "<=96",
+						DispenseMetrics.TAG_OUTCOME, "COMPLETED")
+				.timer();
+		assertThat(batch).isNotNull();
+		assertThat(batch.count()).isEqualTo(1);
+		for (String phase : List.of("start", "dispense", "complete", "checkpoint")) {
+			Timer cycle = meterRegistry.find(DispenseMetrics.BATCH_CYCLE)
+					.tags(DispenseMetrics.TAG_PHASE, phase, DispenseMetrics.TAG_PLATE_TYPE, "96_WELL")
+					.timer();
+			assertThat(cycle).as(phase).isNotNull();
+			assertThat(cycle.count()).as(phase).isEqualTo(2);
+		}
+	}
+
+	@Test
+	void shouldRevertBatchWhenSchedulerIsFull() {
+		// Arrange
+		doThrow(new DispenserBusyException("Batch execution queue is full"))
+				.when(batchExecutionScheduler).submit(eq(10L), any());
+
+		// Act & Assert
+		assertThatThrownBy(() -> batchExecutionService.startBatch(10L)).isInstanceOf(DispenserBusyException.class);
+		verify(dispenseService).beginBatchExecution(10L);
+		verify(dispenseService).abortBatchStart(10L);
+	}
+
+	private static DispenseCommand command(Long operationId, String position) {
+		return new DispenseCommand(operationId, "TEST-PLATE-001", position, 10.0);
+	}
+}
@@ -0,0 +1,83 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.entity.DispenseOperation;
+import com.lab.reagentdispenser.entity.Well;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DispenseChannelPlannerTest {
+
+	private long nextId = 1;
+
+	@Test
+	void shouldGroupFullPlateIntoOneCyclePerColumn() {
+		// Arrange
+		DispenseChannelPlanner planner = new DispenseChannelPlanner(8, DispenseChannelPlanner.ChannelLayout.COLUMN);
+		List<DispenseOperation> operations = new ArrayList<>();
+		for (int col = 12; col >= 1; col--) {
+			for (char row = 'A'; row <= 'H'; row++) {
+				operations.add(operation(row + String.valueOf(col)));
+			}
+		}
+
+		// Act
+		List<List<DispenseOperation>> cycles = planner.planCycles(operations);
+
+		// Assert
+		assertThat(cycles).hasSize(12);
+		assertThat(positions(cycles.get(0))).containsExactly("A1", "B1", "C1", "D1", "E1", "F1", "G1", "H1");
+		assertThat(positions(cycles.get(11))).containsExactly("A12", "B12", "C12", "D12", "E12", "F12", "G12", "H12");
+	}
+
+	@Test
+	void shouldSplitRowsBeyondChannelCountAndRepeatedWells() {
+		// Arrange
+		DispenseChannelPlanner planner = new DispenseChannelPlanner(8, DispenseChannelPlanner.ChannelLayout.COLUMN);
+		List<DispenseOperation> operations = new ArrayList<>();
+		for (int row = 0; row < 16; row++) {
+			operations.add(operation((char) ('A' + row) + "3"));
+		}
+		DispenseOperation repeat = operation("A3");
+		repeat.getWell().setId(operations.get(0).getWell().getId());
+		operations.add(repeat);
+
+		// Act
+		List<List<DispenseOperation>> cycles = planner.planCycles(operations);
+
+		// Assert
+		assertThat(cycles).hasSize(3);
+		assertThat(cycles.get(0)).hasSize(8);
+		assertThat(positions(cycles.get(1))).hasSize(8).startsWith("A3", "I3");
+		assertThat(positions(cycles.get(2))).containsExactly("P3");
+	}
+
+	@Test
+	void shouldGroupByRowForRowLayout() {
+		// Arrange
+		DispenseChannelPlanner planner = new DispenseChannelPlanner(12, DispenseChannelPlanner.ChannelLayout.ROW);
+		List<DispenseOperation> operations = List.of(
+				operation("B2"), operation("A10"), operation("A2"), operation("B1"));
+
+		// Act
+		List<List<DispenseOperation>> cycles = planner.planCycles(operations);
+
+		// Assert
+		assertThat(cycles).hasSize(2);
+		assertThat(positions(cycles.get(0))).containsExactly("A2", "A10");
+		assertThat(positions(cycles.get(1))).containsExactly("B1", "B2");
+	}
+
+	private DispenseOperation operation(String position) {
+		Well well = Well.builder().id(nextId++).position(position).build();
+		return DispenseOperation.builder().id(nextId++).well(well).volumeDispensed(10.0).build();
+	}
+
+	private static List<String> positions(List<DispenseOperation> cycle) {
+		return cycle.stream().map(operation -> operation.getWell().getPosition()).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,89 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.dto.DispenseOperationDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DispenseDispatcherTest {
+
+	@Mock
+	private DispenseService dispenseService;
+
+	@Mock
+	private DispenserHardware dispenserHardware;
+
+	private DispenseOperationDTO inProgress;
+
+	@BeforeEach
+	void setUp() {
+		inProgress = DispenseOperationDTO.builder()
+				.id(1L)
+				.plateBarcode("TEST-PLATE-001")
+				.wellPosition("A1")
+				.volumeDispensed(25.0)
+				.status("IN_PROGRESS")
+				.build();
+	}
+
+	@Test
+	void shouldReturnInProgressAndCompleteOnExecutor() throws Exception {
+		// Arrange
+		TaskExecutor inlineExecutor = Runnable::run;
+		DispenseDispatcher dispatcher = new DispenseDispatcher(dispenseService, dispenserHardware, inlineExecutor, new SimpleMeterRegistry());
+		when(dispenseService.startOperation(1L)).thenReturn(inProgress);
+
+		// Act
+		DispenseOperationDTO result = dispatcher.dispatch(1L);
+
+		// Assert
+		assertThat(result.getStatus()).isEqualTo("IN_PROGRESS");
+		verify(dispenserHardware).dispense("TEST-PLATE-001", "A1", 25.0);
+		verify(dispenseService).completeOperation(1L);
+		verify(dispenseService, never()).failOperation(eq(1L), anyString());
+	}
+
+	@Test
+	void shouldFailOperationWhenHardwareFails() throws Exception {
+		// Arrange
+		TaskExecutor inlineExecutor = Runnable::run;
+		DispenseDispatcher dispatcher = new DispenseDispatcher(dispenseService, dispenserHardware, inlineExecutor, new SimpleMeterRegistry());
+		when(dispenseService.startOperation(1L)).thenReturn(inProgress);
+		doThrow(new RuntimeException("Nozzle clogged"))
+				.when(dispenserHardware).dispense(anyString(), anyString(), anyDouble());
+
+		// Act
+		dispatcher.dispatch(1L);
+
+		// Assert
+		verify(dispenseService).failOperation(1L, "Nozzle clogged");
+		verify(dispenseService, never()).completeOperation(1L);
+	}
+
+	@Test
+	void shouldFailOperationWhenExecutorRejects() {
+		// Arrange
+		TaskExecutor rejectingExecutor = task -> {
+			throw new TaskRejectedException("Queue full");
+		};
+		DispenseDispatcher dispatcher = new DispenseDispatcher(dispenseService, dispenserHardware, rejectingExecutor, new SimpleMeterRegistry());
+		when(dispenseService.startOperation(1L)).thenReturn(inProgress);
+
+		// Act & Assert
+		assertThatThrownBy(() -> dispatcher.dispatch(1L)).isInstanceOf(IllegalStateException.class);
+		verify(dispenseService).failOperation(eq(1L), anyString());
+	}
+}
@@ -0,0 +1,202 @@
+package com.lab.reagentdispenser.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lab.reagentdispenser.dto.DispenseEventDTO;
+import com.lab.reagentdispenser.dto.DispenseEventFrameDTO;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Connects a growing number of STOMP clients, each watching one of PLATES plate topics, publishes the same
+// event load every round and reports the payload bytes each client received and the CPU time spent on the
+// broker and outbound channel threads. Run with: mvn test -P load-test
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class DispenseEventFanOutLoadTest {
+
+	private static final int[] CLIENT_COUNTS = {10, 50, 200};
+	private static final int PLATES = 10;
+	private static final int ROUNDS = 40;
+	private static final int EVENTS_PER_PLATE_PER_ROUND = 5;
+
+	private static final String[] BROKER_THREAD_PREFIXES = {
+			"clientInboundChannel", "clientOutboundChannel", "brokerChannel", "MessageBroker", "scheduling"};
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private DispenseEventStream eventStream;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final AtomicLong opIds = new AtomicLong();
+
+	@Test
+	void bytesPerClientStayConstantAsClientsGrow() throws Exception {
+		WebSocketStompClient stompClient = new WebSocketStompClient(
+				new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+		List<Double> bytesPerClient = new ArrayList<>();
+
+		System.out.printf("%8s %14s %16s %20s %14s%n",
+				"clients", "events/client", "bytes/client", "broadcast bytes/client", "broker CPU ms");
+		for (int clientCount : CLIENT_COUNTS) {
+			List<Client> clients = connect(stompClient, clientCount);
+			warmUp(clients);
+
+			long cpuBefore = brokerCpuNanos();
+			for (int round = 0; round < ROUNDS; round++) {
+				for (int plate = 0; plate < PLATES; plate++) {
+					for (int i = 0; i < EVENTS_PER_PLATE_PER_ROUND; i++) {
+						eventStream.publish(barcode(plate), DispenseEventDTO.builder()
+								.opId(opIds.incrementAndGet())
+								.plateId((long) plate)
+								.well("A1")
+								.status("COMPLETED")
+								.wellVolume(25.0)
+								.build());
+					}
+				}
+				Thread.sleep(10);
+			}
+			long expectedEvents = (long) ROUNDS * EVENTS_PER_PLATE_PER_ROUND;
+			awaitEvents(clients, expectedEvents);
+			long cpuMillis = TimeUnit.NANOSECONDS.toMillis(brokerCpuNanos() - cpuBefore);
+
+			double averageBytes = clients.stream().mapToLong(c -> c.bytes.get()).average().orElse(0);
+			bytesPerClient.add(averageBytes);
+			System.out.printf("%8d %14d %16.0f %20.0f %14d%n",
+					clientCount, expectedEvents, averageBytes, averageBytes * PLATES, cpuMillis);
+
+			for (Client client : clients) {
+				assertThat(client.events.get()).isEqualTo(expectedEvents);
+				assertThat(client.foreignEvents.get()).isZero();
+				client.session.disconnect();
+			}
+		}
+		stompClient.stop();
+
+		// Each client only receives its own plate's traffic, however many other clients are connected
+		double min = bytesPerClient.stream().mapToDouble(Double::doubleValue).min().orElse(0);
+		double max = bytesPerClient.stream().mapToDouble(Double::doubleValue).max().orElse(0);
+		assertThat(max).isLessThan(min * 1.5);
+	}
+
+	private List<Client> connect(WebSocketStompClient stompClient, int clientCount) throws Exception {
+		List<Client> clients = new ArrayList<>();
+		for (int i = 0; i < clientCount; i++) {
+			Client client = new Client(i % PLATES);
+			client.session = stompClient.connect("http://localhost:" + port + "/ws", new StompSessionHandlerAdapter() {})
+					.get(10, TimeUnit.SECONDS);
+			client.session.subscribe(DispenseEventStream.PLATE_TOPIC_PREFIX + barcode(client.plate), client);
+			clients.add(client);
+		}
+		return clients;
+	}
+
+	// Subscriptions are registered asynchronously; publish until every client has received a frame
+	private void warmUp(List<Client> clients) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (clients.stream().anyMatch(c -> c.events.get() == 0)) {
+			assertThat(System.currentTimeMillis()).isLessThan(deadline);
+			for (int plate = 0; plate < PLATES; plate++) {
+				eventStream.publish(barcode(plate), DispenseEventDTO.builder()
+						.opId(opIds.incrementAndGet()).plateId((long) plate).status("PENDING").build());
+			}
+			Thread.sleep(100);
+		}
+		Thread.sleep(200);
+		clients.forEach(Client::reset);
+	}
+
+	private void awaitEvents(List<Client> clients, long expectedEvents) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 30000;
+		while (clients.stream().anyMatch(c -> c.events.get() < expectedEvents)
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+		}
+	}
+
+	private static long brokerCpuNanos() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		long total = 0;
+		for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+			if (info == null) {
+				continue;
+			}
+			for (String prefix : BROKER_THREAD_PREFIXES) {
+				if (info.getThreadName().startsWith(prefix)) {
+					total += Math.max(0, threads.getThreadCpuTime(info.getThreadId()));
+					break;
+				}
+			}
+		}
+		return total;
+	}
+
+	private static String barcode(int plate) {
+		return "LOAD-PLATE-" + plate;
+	}
+
+	private class Client implements StompFrameHandler {
+
+		private final int plate;
+		private final AtomicLong bytes = new AtomicLong();
+		private final AtomicLong events = new AtomicLong();
+		private final AtomicLong foreignEvents = new AtomicLong();
+		private StompSession session;
+
+		private Client(int plate) {
+			this.plate = plate;
+		}
+
+		@Override
+		public Type getPayloadType(StompHeaders headers) {
+			return byte[].class;
+		}
+
+		@Override
+		public void handleFrame(StompHeaders headers, Object payload) {
+			byte[] body = (byte[]) payload;
+			try {
+				DispenseEventFrameDTO frame = objectMapper.readValue(body, DispenseEventFrameDTO.class);
+				bytes.addAndGet(body.length);
+				for (DispenseEventDTO event : frame.getEvents()) {
+					if (event.getPlateId() != plate) {
+						foreignEvents.incrementAndGet();
+					}
+				}
+				events.addAndGet(frame.getEvents().size());
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		private void reset() {
+			bytes.set(0);
+			events.set(0);
+			foreignEvents.set(0);
+		}
+	}
+}
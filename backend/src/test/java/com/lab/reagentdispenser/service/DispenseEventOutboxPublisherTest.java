@@ -0,0 +1,161 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.dto.DispenseEventDTO;
+import com.lab.reagentdispenser.repository.DispenseEventOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// Runs without a test transaction so outbox rows are only visible to the publisher once committed
+@DataJpaTest
+@Import({DispenseEventOutboxRepository.class, DispenseEventOutboxPublisher.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DispenseEventOutboxPublisherTest {
+
+	@Autowired
+	private DispenseEventOutboxRepository outboxRepository;
+
+	@Autowired
+	private DispenseEventOutboxPublisher publisher;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@MockBean
+	private DispenseEventStream eventStream;
+
+	private TransactionTemplate transactionTemplate;
+
+	@BeforeEach
+	void setUp() {
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		publisher.publishPending();
+		reset(eventStream);
+	}
+
+	@Test
+	void shouldPublishCommittedEventsOnceAndSkipRolledBackOnes() {
+		// Arrange
+		transactionTemplate.executeWithoutResult(status -> {
+			outboxRepository.append("PLATE-001", event(1L, "FAILED"));
+			status.setRollbackOnly();
+		});
+		transactionTemplate.executeWithoutResult(status -> {
+			outboxRepository.append("PLATE-001", event(2L, "IN_PROGRESS"));
+			outboxRepository.append("PLATE-001", event(2L, "COMPLETED"));
+		});
+
+		// Act
+		publisher.publishPending();
+		publisher.publishPending();
+
+		// Assert
+		ArgumentCaptor<DispenseEventDTO> events = ArgumentCaptor.forClass(DispenseEventDTO.class);
+		InOrder inOrder = inOrder(eventStream);
+		inOrder.verify(eventStream, times(2)).publish(eq("PLATE-001"), events.capture());
+		inOrder.verify(eventStream, atLeastOnce()).flush();
+		assertThat(events.getAllValues()).extracting(DispenseEventDTO::getStatus).containsExactly("IN_PROGRESS", "COMPLETED");
+		assertThat(events.getAllValues()).extracting(DispenseEventDTO::getOpId).containsOnly(2L);
+		assertThat(events.getAllValues().get(1).getWellVolume()).isEqualTo(25.0);
+		verify(eventStream, never()).publish(anyString(), argThatOp(1L));
+	}
+
+	@Test
+	void shouldPublishEventOfSlowTransactionAfterItCommits() throws Exception {
+		// Arrange: the slow transaction takes the lower outbox id but commits last
+		CountDownLatch appended = new CountDownLatch(1);
+		CountDownLatch commit = new CountDownLatch(1);
+		CompletableFuture<Void> slow = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+			outboxRepository.append("PLATE-001", event(3L, "COMPLETED"));
+			appended.countDown();
+			await(commit);
+		}));
+		assertThat(appended.await(5, TimeUnit.SECONDS)).isTrue();
+		transactionTemplate.executeWithoutResult(status -> outboxRepository.append("PLATE-001", event(4L, "COMPLETED")));
+
+		// Act
+		publisher.publishPending();
+		commit.countDown();
+		slow.get(5, TimeUnit.SECONDS);
+		publisher.publishPending();
+
+		// Assert
+		InOrder inOrder = inOrder(eventStream);
+		inOrder.verify(eventStream).publish(eq("PLATE-001"), argThatOp(4L));
+		inOrder.verify(eventStream).publish(eq("PLATE-001"), argThatOp(3L));
+		ArgumentCaptor<DispenseEventDTO> events = ArgumentCaptor.forClass(DispenseEventDTO.class);
+		verify(eventStream, times(2)).publish(anyString(), events.capture());
+		// Numbered when first read, so the late commit gets the higher sequence number despite its lower id
+		assertThat(events.getAllValues().get(1).getSeq()).isGreaterThan(events.getAllValues().get(0).getSeq());
+	}
+
+	@Test
+	void shouldPublishAgainWithTheSameSequenceNumberAfterAFailure() {
+		// Arrange
+		transactionTemplate.executeWithoutResult(status -> {
+			outboxRepository.append("PLATE-001", event(5L, "COMPLETED"));
+			outboxRepository.append("PLATE-001", event(6L, "COMPLETED"));
+		});
+		doThrow(new IllegalStateException("Broker unavailable")).doNothing()
+				.when(eventStream).publish(eq("PLATE-001"), argThatOp(6L));
+
+		// Act
+		assertThatThrownBy(() -> publisher.publishPending()).isInstanceOf(IllegalStateException.class);
+		transactionTemplate.executeWithoutResult(status -> outboxRepository.append("PLATE-001", event(7L, "COMPLETED")));
+		publisher.publishPending();
+
+		// Assert
+		ArgumentCaptor<DispenseEventDTO> events = ArgumentCaptor.forClass(DispenseEventDTO.class);
+		verify(eventStream, times(5)).publish(eq("PLATE-001"), events.capture());
+		List<DispenseEventDTO> published = events.getAllValues();
+		assertThat(published).extracting(DispenseEventDTO::getOpId).containsExactly(5L, 6L, 5L, 6L, 7L);
+		assertThat(published.get(2).getSeq()).isEqualTo(published.get(0).getSeq());
+		assertThat(published.get(3).getSeq()).isEqualTo(published.get(1).getSeq());
+		assertThat(published.get(4).getSeq()).isGreaterThan(published.get(3).getSeq());
+		assertThat(outboxRepository.findOldest(10)).isEmpty();
+	}
+
+	private static DispenseEventDTO event(Long opId, String status) {
+		return DispenseEventDTO.builder()
+				.opId(opId)
+				.plateId(1L)
+				.well("A1")
+				.status(status)
+				.wellVolume("COMPLETED".equals(status) ? 25.0 : null)
+				.build();
+	}
+
+	private static DispenseEventDTO argThatOp(Long opId) {
+		return argThat(event -> event != null && opId.equals(event.getOpId()));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.dto.DispenseEventDTO;
+import com.lab.reagentdispenser.dto.DispenseEventFrameDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DispenseEventStreamTest {
+
+	private static final String PLATE_TOPIC = DispenseEventStream.PLATE_TOPIC_PREFIX + "PLATE-001";
+
+	@Mock
+	private SimpMessagingTemplate messagingTemplate;
+
+	@Mock
+	private DispenseTopicSubscriptions subscriptions;
+
+	private DispenseEventStream eventStream;
+
+	@BeforeEach
+	void setUp() {
+		eventStream = new DispenseEventStream(messagingTemplate, subscriptions, new SimpleMeterRegistry(), 3);
+	}
+
+	@Test
+	void shouldCoalesceUpdatesOfTheSameOperationIntoOneFrame() {
+		// Arrange
+		when(subscriptions.hasSubscribers(PLATE_TOPIC)).thenReturn(true);
+		eventStream.publish("PLATE-001", operationEvent(1L, "IN_PROGRESS", null));
+		eventStream.publish("PLATE-001", operationEvent(2L, "IN_PROGRESS", null));
+		eventStream.publish("PLATE-001", operationEvent(1L, "COMPLETED", 25.0));
+
+		// Act
+		eventStream.flush();
+		eventStream.flush();
+
+		// Assert
+		ArgumentCaptor<DispenseEventFrameDTO> frameCaptor = ArgumentCaptor.forClass(DispenseEventFrameDTO.class);
+		verify(messagingTemplate, times(1)).convertAndSend(eq(PLATE_TOPIC), frameCaptor.capture());
+		DispenseEventFrameDTO frame = frameCaptor.getValue();
+		assertThat(frame.getPrevSeq()).isEqualTo(0L);
+		assertThat(frame.getToSeq()).isEqualTo(3L);
+		assertThat(frame.getEvents()).extracting(DispenseEventDTO::getOpId).containsExactly(2L, 1L);
+		assertThat(frame.getEvents().get(1).getStatus()).isEqualTo("COMPLETED");
+		assertThat(frame.getEvents().get(1).getWellVolume()).isEqualTo(25.0);
+		assertThat(frame.getEvents().get(1).getSeq()).isEqualTo(3L);
+	}
+
+	@Test
+	void shouldSendFramesOnlyToTopicsOfTheAffectedPlateAndBatch() {
+		// Arrange
+		String batchTopic = DispenseEventStream.BATCH_TOPIC_PREFIX + "7";
+		String otherPlateTopic = DispenseEventStream.PLATE_TOPIC_PREFIX + "PLATE-002";
+		when(subscriptions.hasSubscribers(PLATE_TOPIC)).thenReturn(true);
+		when(subscriptions.hasSubscribers(batchTopic)).thenReturn(true);
+		when(subscriptions.hasSubscribers(otherPlateTopic)).thenReturn(false);
+		eventStream.publish("PLATE-001", operationEvent(1L, "COMPLETED", 25.0).toBuilder().batchId(7L).build());
+		eventStream.publish("PLATE-002", operationEvent(2L, "COMPLETED", 10.0));
+		eventStream.flush();
+
+		// Act
+		eventStream.publish("PLATE-001", DispenseEventDTO.builder().batchId(7L).plateId(1L).status("COMPLETED").build());
+		eventStream.flush();
+
+		// Assert
+		ArgumentCaptor<DispenseEventFrameDTO> plateFrames = ArgumentCaptor.forClass(DispenseEventFrameDTO.class);
+		verify(messagingTemplate, times(2)).convertAndSend(eq(PLATE_TOPIC), plateFrames.capture());
+		assertThat(plateFrames.getAllValues().get(1).getPrevSeq()).isEqualTo(1L);
+		assertThat(plateFrames.getAllValues().get(1).getToSeq()).isEqualTo(3L);
+		verify(messagingTemplate, times(2)).convertAndSend(eq(batchTopic), any(DispenseEventFrameDTO.class));
+		// Nobody watches the other plate, so its frame is never serialised
+		verify(messagingTemplate, never()).convertAndSend(eq(otherPlateTopic), any(DispenseEventFrameDTO.class));
+	}
+
+	@Test
+	void shouldResyncUncoalescedEventsFromHistory() {
+		// Arrange
+		eventStream.publish("PLATE-001", operationEvent(1L, "IN_PROGRESS", null));
+		eventStream.publish("PLATE-002", operationEvent(2L, "COMPLETED", 10.0));
+		eventStream.publish("PLATE-001", operationEvent(1L, "COMPLETED", 25.0));
+
+		// Act
+		DispenseEventFrameDTO frame = eventStream.getEventsSince(1L, "PLATE-001", null);
+
+		// Assert
+		assertThat(frame.getPrevSeq()).isEqualTo(1L);
+		assertThat(frame.getToSeq()).isEqualTo(3L);
+		assertThat(frame.getEvents()).extracting(DispenseEventDTO::getSeq).containsExactly(3L);
+		assertThat(eventStream.getEventsSince(1L, null, null).getEvents()).hasSize(2);
+		assertThat(eventStream.getEventsSince(3L, null, null).getEvents()).isEmpty();
+	}
+
+	@Test
+	void shouldRejectResyncOlderThanHistory() {
+		// Arrange
+		for (long op = 1; op <= 5; op++) {
+			eventStream.publish("PLATE-001", operationEvent(op, "PENDING", null));
+		}
+
+		// Act & Assert
+		assertThat(eventStream.getEventsSince(2L, null, null).getEvents()).hasSize(3);
+		assertThatThrownBy(() -> eventStream.getEventsSince(1L, null, null))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("no longer available");
+		assertThatThrownBy(() -> eventStream.getEventsSince(6L, null, null))
+				.isInstanceOf(IllegalArgumentException.class);
+		verify(messagingTemplate, never()).convertAndSend(any(String.class), any(Object.class));
+	}
+
+	@Test
+	void shouldSkipRedeliveredEventsAndKeepTheirSequenceNumbers() {
+		// Arrange: the stream starts after a restart, with numbering continuing from the outbox
+		when(subscriptions.hasSubscribers(PLATE_TOPIC)).thenReturn(true);
+		eventStream.publish("PLATE-001", operationEvent(1L, "COMPLETED", 25.0).toBuilder().seq(41L).build());
+		eventStream.publish("PLATE-001", operationEvent(2L, "COMPLETED", 30.0).toBuilder().seq(42L).build());
+
+		// Act: the outbox rows were not deleted, so both are published again before the next event
+		eventStream.publish("PLATE-001", operationEvent(1L, "COMPLETED", 25.0).toBuilder().seq(41L).build());
+		eventStream.publish("PLATE-001", operationEvent(2L, "COMPLETED", 30.0).toBuilder().seq(42L).build());
+		eventStream.publish("PLATE-001", operationEvent(3L, "COMPLETED", 35.0).toBuilder().seq(45L).build());
+		eventStream.flush();
+
+		// Assert
+		ArgumentCaptor<DispenseEventFrameDTO> frameCaptor = ArgumentCaptor.forClass(DispenseEventFrameDTO.class);
+		verify(messagingTemplate).convertAndSend(eq(PLATE_TOPIC), frameCaptor.capture());
+		assertThat(frameCaptor.getValue().getEvents()).extracting(DispenseEventDTO::getSeq).containsExactly(41L, 42L, 45L);
+		assertThat(eventStream.getEventsSince(42L, null, null).getEvents()).extracting(DispenseEventDTO::getSeq)
+				.containsExactly(45L);
+		// Events before the first one seen since the restart are unknown
+		assertThatThrownBy(() -> eventStream.getEventsSince(39L, null, null))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	private DispenseEventDTO operationEvent(Long opId, String status, Double wellVolume) {
+		return DispenseEventDTO.builder()
+				.opId(opId)
+				.plateId(1L)
+				.well("A1")
+				.status(status)
+				.wellVolume(wellVolume)
+				.build();
+	}
+}
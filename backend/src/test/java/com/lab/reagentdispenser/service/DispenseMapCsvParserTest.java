@@ -0,0 +1,52 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.dto.AddOperationToBatchRequestDTO;
+import org.junit.jupiter.api.Test;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DispenseMapCsvParserTest {
+
+	private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+
+	@Test
+	void shouldParseLinesAndSkipHeaderAndBlankLines() {
+		// Act
+		List<AddOperationToBatchRequestDTO> operations = DispenseMapCsvParser.parse(
+				"wellPosition,reagentId,volume\r\nA1,1,25.5\n\nAF48, 2, 3\n", VALIDATOR);
+
+		// Assert
+		assertThat(operations).extracting(AddOperationToBatchRequestDTO::getWellPosition).containsExactly("A1", "AF48");
+		assertThat(operations).extracting(AddOperationToBatchRequestDTO::getReagentId).containsExactly(1L, 2L);
+		assertThat(operations).extracting(AddOperationToBatchRequestDTO::getVolume).containsExactly(25.5, 3.0);
+	}
+
+	@Test
+	void shouldReportLineNumberOfMalformedLine() {
+		// Act & Assert
+		assertThatThrownBy(() -> DispenseMapCsvParser.parse("A1,1,10\nA2,x,10", VALIDATOR))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageStartingWith("Line 2");
+		assertThatThrownBy(() -> DispenseMapCsvParser.parse("A1,1", VALIDATOR))
+				.hasMessageContaining("expected wellPosition,reagentId,volume");
+	}
+
+	@Test
+	void shouldRejectNonFiniteAndNegativeVolumesWithLineNumber() {
+		// Act & Assert
+		assertThatThrownBy(() -> DispenseMapCsvParser.parse("A1,1,10\nA2,1,NaN", VALIDATOR))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Line 2: volume must be a finite number");
+		assertThatThrownBy(() -> DispenseMapCsvParser.parse("A1,1,Infinity", VALIDATOR))
+				.hasMessage("Line 1: volume must be a finite number");
+		assertThatThrownBy(() -> DispenseMapCsvParser.parse("well,reagent,volume\nA1,1,-5", VALIDATOR))
+				.hasMessage("Line 2: Volume must be positive");
+		assertThatThrownBy(() -> DispenseMapCsvParser.parse(" ,1,5", VALIDATOR))
+				.hasMessage("Line 1: Well position is required");
+	}
+}
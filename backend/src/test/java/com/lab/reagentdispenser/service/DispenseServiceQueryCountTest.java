@@ -0,0 +1,133 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.dto.BatchSummaryDTO;
+import com.lab.reagentdispenser.dto.DispenseOperationDTO;
+import com.lab.reagentdispenser.dto.ReagentVolumeDTO;
+import com.lab.reagentdispenser.entity.DispenseBatch;
+import com.lab.reagentdispenser.entity.DispenseOperation;
+import com.lab.reagentdispenser.entity.Plate;
+import com.lab.reagentdispenser.entity.Reagent;
+import com.lab.reagentdispenser.entity.Well;
+import com.lab.reagentdispenser.repository.DispenseBatchRepository;
+import com.lab.reagentdispenser.repository.DispenseEventOutboxRepository;
+import com.lab.reagentdispenser.repository.OperationArchiveRepository;
+import com.lab.reagentdispenser.repository.PlateRepository;
+import com.lab.reagentdispenser.repository.ReagentRepository;
+import com.lab.reagentdispenser.repository.WellRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Fails when a list or summary view starts loading associations or operations row by row again
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({DispenseService.class, DispenseChannelPlanner.class, PlateStateEngine.class, ReagentCatalog.class, OperationArchiveRepository.class, SimpleMeterRegistry.class})
+class DispenseServiceQueryCountTest {
+
+	private static final int BATCHES = 5;
+	private static final int OPERATIONS_PER_BATCH = 8;
+
+	@Autowired
+	private DispenseService dispenseService;
+
+	@Autowired
+	private DispenseBatchRepository batchRepository;
+
+	@Autowired
+	private PlateRepository plateRepository;
+
+	@Autowired
+	private WellRepository wellRepository;
+
+	@Autowired
+	private ReagentRepository reagentRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@MockBean
+	private DispenseEventOutboxRepository eventOutbox;
+
+	private Statistics statistics;
+
+	private Long firstBatchId;
+
+	@BeforeEach
+	void setUp() {
+		Plate plate = plateRepository.findByBarcode("PLATE-001").orElseThrow();
+		List<Well> wells = wellRepository.findByPlate(plate);
+		List<Reagent> reagents = reagentRepository.findAll();
+
+		for (int b = 0; b < BATCHES; b++) {
+			DispenseBatch batch = DispenseBatch.builder().plate(plate).build();
+			for (int i = 0; i < OPERATIONS_PER_BATCH; i++) {
+				batch.addOperation(DispenseOperation.builder()
+						.plate(plate)
+						.well(wells.get(b * OPERATIONS_PER_BATCH + i))
+						.reagent(reagents.get(i % reagents.size()))
+						.volumeDispensed(10.0)
+						.build());
+			}
+			DispenseBatch saved = batchRepository.save(batch);
+			if (firstBatchId == null) {
+				firstBatchId = saved.getId();
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void shouldListBatchSummariesWithConstantQueries() {
+		// Act
+		List<BatchSummaryDTO> batches = dispenseService.getAllBatches();
+
+		// Assert
+		assertThat(batches).hasSize(BATCHES);
+		assertThat(batches).allSatisfy(batch -> {
+			assertThat(batch.getOperationCount()).isEqualTo(OPERATIONS_PER_BATCH);
+			assertThat(batch.getOperationCountsByStatus()).containsEntry("PENDING", (long) OPERATIONS_PER_BATCH);
+			assertThat(batch.getTotalVolume()).isEqualTo(OPERATIONS_PER_BATCH * 10.0);
+			assertThat(batch.getReagentVolumes()).extracting(ReagentVolumeDTO::getReagentName).doesNotContainNull();
+		});
+		// Batches with plates, operation counts by status, volumes by reagent
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+	}
+
+	@Test
+	void shouldLoadBatchSummaryWithConstantQueries() {
+		// Act
+		BatchSummaryDTO batch = dispenseService.getBatchById(firstBatchId);
+
+		// Assert
+		assertThat(batch.getOperationCount()).isEqualTo(OPERATIONS_PER_BATCH);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+	}
+
+	@Test
+	void shouldListOperationsByStatusWithOneQuery() {
+		// Act
+		List<DispenseOperationDTO> operations = dispenseService.getOperationsByStatus("PENDING");
+
+		// Assert
+		assertThat(operations).hasSizeGreaterThanOrEqualTo(BATCHES * OPERATIONS_PER_BATCH);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+}
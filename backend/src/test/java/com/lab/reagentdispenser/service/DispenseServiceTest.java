@@ -1,28 +1,43 @@
 package com.lab.reagentdispenser.service;
 
+import com.lab.reagentdispenser.dto.AddOperationToBatchRequestDTO;
+import com.lab.reagentdispenser.dto.BatchPlanResultDTO;
+import com.lab.reagentdispenser.dto.BatchSummaryDTO;
+import com.lab.reagentdispenser.dto.DispenseEventDTO;
 import com.lab.reagentdispenser.dto.DispenseOperationDTO;
+import com.lab.reagentdispenser.entity.DispenseBatch;
 import com.lab.reagentdispenser.entity.DispenseOperation;
 import com.lab.reagentdispenser.entity.Plate;
 import com.lab.reagentdispenser.entity.Reagent;
 import com.lab.reagentdispenser.entity.Well;
+import com.lab.reagentdispenser.repository.BatchStatusCount;
 import com.lab.reagentdispenser.repository.DispenseBatchRepository;
+import com.lab.reagentdispenser.repository.DispenseEventOutboxRepository;
 import com.lab.reagentdispenser.repository.DispenseOperationRepository;
+import com.lab.reagentdispenser.repository.OperationArchiveRepository;
 import com.lab.reagentdispenser.repository.PlateRepository;
 import com.lab.reagentdispenser.repository.ReagentRepository;
 import com.lab.reagentdispenser.repository.WellRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -45,13 +60,22 @@ class DispenseServiceTest {
 	private ReagentRepository reagentRepository;
 
 	@Mock
-	private SimpMessagingTemplate messagingTemplate;
+	private DispenseEventOutboxRepository eventOutbox;
+
+	@Mock
+	private PlateStateEngine plateStateEngine;
+
+	@Mock
+	private OperationArchiveRepository archiveRepository;
+
+	@Spy
+	private MeterRegistry meterRegistry = new SimpleMeterRegistry();
 
 	@InjectMocks
 	private DispenseService dispenseService;
 
 	@Test
-	void shouldIncludeWellVolumeInDTOAfterExecutingOperation() throws Exception {
+	void shouldIncludeWellVolumeInDTOAfterCompletingOperation() {
 		// Arrange
 		Plate plate = Plate.builder()
 				.id(1L)
@@ -85,7 +109,7 @@ class DispenseServiceTest {
 				.build();
 
 		// Mock repository calls
-		when(operationRepository.findById(1L)).thenReturn(Optional.of(operation));
+		when(operationRepository.findWithDetailsById(1L)).thenReturn(Optional.of(operation));
 		when(operationRepository.save(any(DispenseOperation.class))).thenAnswer(invocation -> {
 			DispenseOperation op = invocation.getArgument(0);
 			// Update well volume when operation is saved as COMPLETED
@@ -94,13 +118,13 @@ class DispenseServiceTest {
 			}
 			return op;
 		});
-		when(wellRepository.save(any(Well.class))).thenAnswer(invocation -> invocation.getArgument(0));
-		when(reagentRepository.save(any(Reagent.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
 		// Act
-		DispenseOperationDTO result = dispenseService.executeOperation(1L);
+		DispenseOperationDTO started = dispenseService.startOperation(1L);
+		DispenseOperationDTO result = dispenseService.completeOperation(1L);
 
 		// Assert
+		assertThat(started.getStatus()).isEqualTo("IN_PROGRESS");
 		assertThat(result).isNotNull();
 		assertThat(result.getWellVolume()).isNotNull();
 		assertThat(result.getWellVolume()).isEqualTo(75.0); // Should reflect updated volume
@@ -108,8 +132,16 @@ class DispenseServiceTest {
 		assertThat(result.getWellPosition()).isEqualTo("A1");
 		assertThat(result.getVolumeDispensed()).isEqualTo(25.0);
 
-		// Verify WebSocket message was sent
-		verify(messagingTemplate, atLeastOnce()).convertAndSend(eq("/topic/dispense-status"), any(Object.class));
+		// Verify volumes were applied through the plate state engine
+		verify(plateStateEngine).applyDispense(1L, "A1", 1L, 25.0);
+
+		// Verify compact status events were written to the outbox for both transitions
+		ArgumentCaptor<DispenseEventDTO> eventCaptor = ArgumentCaptor.forClass(DispenseEventDTO.class);
+		verify(eventOutbox, times(2)).append(eq("TEST-PLATE-001"), eventCaptor.capture());
+		DispenseEventDTO completed = eventCaptor.getAllValues().get(1);
+		assertThat(completed.getOpId()).isEqualTo(1L);
+		assertThat(completed.getStatus()).isEqualTo("COMPLETED");
+		assertThat(completed.getWellVolume()).isEqualTo(75.0);
 	}
 
 	@Test
@@ -147,7 +179,7 @@ class DispenseServiceTest {
 				.completedDate(LocalDateTime.now())
 				.build();
 
-		when(operationRepository.findById(1L)).thenReturn(Optional.of(operation));
+		when(operationRepository.findWithDetailsById(1L)).thenReturn(Optional.of(operation));
 
 		// Act
 		DispenseOperationDTO result = dispenseService.getOperationById(1L);
@@ -158,4 +190,103 @@ class DispenseServiceTest {
 		assertThat(result.getWellPosition()).isEqualTo("B3");
 		assertThat(result.getVolumeDispensed()).isEqualTo(50.0);
 	}
+
+	@Test
+	void shouldSaveDispenseMapWithOneSaveAll() {
+		// Arrange
+		Plate plate = Plate.builder().id(1L).barcode("TEST-PLATE-001").rows(1).columns(2).build();
+		DispenseBatch batch = DispenseBatch.builder().id(7L).plate(plate).build();
+		PlateState plateState = new PlateState(plate, List.of(
+				Well.builder().id(11L).position("A1").volume(0.0).maxVolume(100.0).build(),
+				Well.builder().id(12L).position("A2").volume(0.0).maxVolume(100.0).build()));
+
+		when(batchRepository.findById(7L)).thenReturn(Optional.of(batch));
+		when(plateStateEngine.getPlateState(plate)).thenReturn(plateState);
+		when(plateStateEngine.findWellIndex(any(PlateState.class), anyString())).thenCallRealMethod();
+		when(operationRepository.countByBatchId(7L)).thenReturn(3L);
+
+		// Act
+		BatchPlanResultDTO result = dispenseService.addOperationsToBatch(7L, List.of(
+				AddOperationToBatchRequestDTO.builder().wellPosition("A1").reagentId(1L).volume(40.0).build(),
+				AddOperationToBatchRequestDTO.builder().wellPosition("A1").reagentId(2L).volume(60.0).build(),
+				AddOperationToBatchRequestDTO.builder().wellPosition("A2").reagentId(1L).volume(10.0).build()));
+
+		// Assert
+		assertThat(result.getOperationsAdded()).isEqualTo(3);
+		assertThat(result.getOperationCount()).isEqualTo(3L);
+		assertThat(result.getReagentDemand()).containsEntry(1L, 50.0).containsEntry(2L, 60.0);
+		verify(plateStateEngine).reserveAll(eq(plateState), eq(new double[] {100.0, 10.0}),
+				eq(Map.of(1L, 50.0, 2L, 60.0)));
+		verify(operationRepository).saveAll(argThat((List<DispenseOperation> operations) -> operations.size() == 3 &&
+				operations.stream().allMatch(operation -> operation.getBatch() == batch &&
+						operation.getStatus() == DispenseOperation.OperationStatus.PENDING)));
+		verify(wellRepository, times(2)).getById(11L);
+		verify(wellRepository).getById(12L);
+	}
+
+	@Test
+	void shouldNotInsertDispenseMapWhenReservationFails() {
+		// Arrange
+		Plate plate = Plate.builder().id(1L).barcode("TEST-PLATE-001").rows(1).columns(1).build();
+		DispenseBatch batch = DispenseBatch.builder().id(7L).plate(plate).build();
+		PlateState plateState = new PlateState(plate, List.of(
+				Well.builder().id(11L).position("A1").volume(20.0).maxVolume(100.0).build()));
+
+		when(batchRepository.findById(7L)).thenReturn(Optional.of(batch));
+		when(plateStateEngine.getPlateState(plate)).thenReturn(plateState);
+		when(plateStateEngine.findWellIndex(any(PlateState.class), anyString())).thenCallRealMethod();
+		doThrow(new IllegalArgumentException("Volume exceeds well capacity"))
+				.when(plateStateEngine).reserveAll(any(), any(), any());
+
+		// Act & Assert
+		assertThatThrownBy(() -> dispenseService.addOperationsToBatch(7L, List.of(
+				AddOperationToBatchRequestDTO.builder().wellPosition("A1").reagentId(1L).volume(50.0).build(),
+				AddOperationToBatchRequestDTO.builder().wellPosition("A1").reagentId(1L).volume(50.0).build())))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("exceeds well capacity");
+		verify(operationRepository, never()).saveAll(any());
+	}
+
+	@Test
+	void shouldStartBatchWithSummaryInsteadOfOperations() {
+		// Arrange
+		Plate plate = Plate.builder().id(1L).barcode("TEST-PLATE-001").rows(1).columns(1).build();
+		DispenseBatch batch = DispenseBatch.builder().id(7L).plate(plate)
+				.status(DispenseBatch.BatchStatus.PLANNED).build();
+		BatchStatusCount pending = mock(BatchStatusCount.class);
+		when(pending.getBatchId()).thenReturn(7L);
+		when(pending.getStatus()).thenReturn(DispenseOperation.OperationStatus.PENDING);
+		when(pending.getCount()).thenReturn(10000L);
+
+		when(batchRepository.findWithPlateById(7L)).thenReturn(Optional.of(batch));
+		when(operationRepository.countByBatchId(7L)).thenReturn(10000L);
+		when(operationRepository.countByBatchAndStatus(List.of(7L))).thenReturn(List.of(pending));
+
+		// Act
+		BatchSummaryDTO result = dispenseService.beginBatchExecution(7L);
+
+		// Assert
+		assertThat(result.getStatus()).isEqualTo("EXECUTING");
+		assertThat(result.getProgressCursor()).isZero();
+		assertThat(result.getOperationCount()).isEqualTo(10000L);
+		assertThat(result.getOperationsUrl()).isEqualTo("/api/dispense/batch/7/operations");
+		verify(batchRepository, never()).findWithOperationsById(any());
+		verify(batchRepository).save(batch);
+	}
+
+	@Test
+	void shouldNotStartBatchWithoutOperations() {
+		// Arrange
+		Plate plate = Plate.builder().id(1L).barcode("TEST-PLATE-001").rows(1).columns(1).build();
+		DispenseBatch batch = DispenseBatch.builder().id(7L).plate(plate)
+				.status(DispenseBatch.BatchStatus.PLANNED).build();
+		when(batchRepository.findWithPlateById(7L)).thenReturn(Optional.of(batch));
+		when(operationRepository.countByBatchId(7L)).thenReturn(0L);
+
+		// Act & Assert
+		assertThatThrownBy(() -> dispenseService.beginBatchExecution(7L))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("no operations");
+		verify(batchRepository, never()).save(any());
+	}
 }
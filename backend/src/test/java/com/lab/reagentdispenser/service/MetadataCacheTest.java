@@ -0,0 +1,143 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.config.CacheConfig;
+import com.lab.reagentdispenser.dto.DispenseOperationDTO;
+import com.lab.reagentdispenser.dto.DispenseRequestDTO;
+import com.lab.reagentdispenser.dto.PlateDTO;
+import com.lab.reagentdispenser.dto.ReagentDTO;
+import com.lab.reagentdispenser.repository.DispenseEventOutboxRepository;
+import com.lab.reagentdispenser.repository.OperationArchiveRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Runs without a test transaction: cache puts and evictions only take effect once a transaction commits
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({PlateService.class, ReagentService.class, ReagentCatalog.class, OperationArchiveRepository.class, DispenseService.class,
+		DispenseChannelPlanner.class, PlateStateEngine.class, CacheConfig.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MetadataCacheTest {
+
+	@Autowired
+	private PlateService plateService;
+
+	@Autowired
+	private ReagentService reagentService;
+
+	@Autowired
+	private DispenseService dispenseService;
+
+	@Autowired
+	private PlateStateEngine plateStateEngine;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@MockBean
+	private DispenseEventOutboxRepository eventOutbox;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void shouldServeRepeatedPlateReadsFromCacheUntilThePlateChanges() {
+		// Arrange
+		PlateDTO plate = plateService.createPlate(PlateDTO.builder().barcode("CACHE-001").build());
+		plateService.getPlateById(plate.getId());
+		plateService.getPlateByBarcode("CACHE-001");
+		plateService.getAllPlates();
+		statistics.clear();
+
+		// Act
+		PlateDTO byId = plateService.getPlateById(plate.getId());
+		PlateDTO byBarcode = plateService.getPlateByBarcode("CACHE-001");
+		int plateCount = plateService.getAllPlates().size();
+
+		// Assert
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+		assertThat(byId.getBarcode()).isEqualTo("CACHE-001");
+		assertThat(byBarcode.getId()).isEqualTo(plate.getId());
+
+		plate.setBarcode("CACHE-001-RENAMED");
+		plateService.updatePlate(plate.getId(), plate);
+		assertThat(plateService.getPlateById(plate.getId()).getBarcode()).isEqualTo("CACHE-001-RENAMED");
+		assertThat(plateService.getPlateByBarcode("CACHE-001-RENAMED").getId()).isEqualTo(plate.getId());
+		assertThatThrownBy(() -> plateService.getPlateByBarcode("CACHE-001"))
+				.isInstanceOf(IllegalArgumentException.class);
+
+		plateService.createPlate(PlateDTO.builder().barcode("CACHE-002").build());
+		assertThat(plateService.getAllPlates()).hasSize(plateCount + 1);
+	}
+
+	@Test
+	void shouldCacheReagentMetadataButReportLiveStock() {
+		// Arrange
+		ReagentDTO reagent = reagentService.createReagent(ReagentDTO.builder()
+				.name("Cache Buffer")
+				.stockVolume(1000.0)
+				.build());
+		reagentService.getReagentById(reagent.getId());
+		dispenseService.createOperation(request("C1", reagent.getId()));
+		plateStateEngine.applyDispense(1L, "C1", reagent.getId(), 10.0);
+		statistics.clear();
+
+		// Act
+		ReagentDTO cached = reagentService.getReagentById(reagent.getId());
+
+		// Assert
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+		assertThat(cached.getName()).isEqualTo("Cache Buffer");
+		assertThat(cached.getStockVolume()).isEqualTo(990.0);
+
+		reagent.setName("Cache Buffer 2");
+		reagent.setStockVolume(500.0);
+		reagentService.updateReagent(reagent.getId(), reagent);
+		ReagentDTO updated = reagentService.getReagentById(reagent.getId());
+		assertThat(updated.getName()).isEqualTo("Cache Buffer 2");
+		assertThat(updated.getStockVolume()).isEqualTo(500.0);
+		assertThat(reagentService.getAllReagents()).extracting(ReagentDTO::getName).contains("Cache Buffer 2");
+	}
+
+	@Test
+	void shouldCreateOperationWithOnlyTheInsert() {
+		// Arrange: the first operation loads the plate state and the reagent metadata
+		dispenseService.createOperation(request("H12", 2L));
+		statistics.clear();
+
+		// Act
+		DispenseOperationDTO created = dispenseService.createOperation(request("H11", 2L));
+
+		// Assert
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(created.getPlateBarcode()).isEqualTo("PLATE-001");
+		assertThat(created.getWellPosition()).isEqualTo("H11");
+		assertThat(created.getReagentName()).isNotBlank();
+		assertThat(created.getStatus()).isEqualTo("PENDING");
+	}
+
+	private static DispenseRequestDTO request(String wellPosition, Long reagentId) {
+		return DispenseRequestDTO.builder()
+				.plateBarcode("PLATE-001")
+				.wellPosition(wellPosition)
+				.reagentId(reagentId)
+				.volume(5.0)
+				.build();
+	}
+}
@@ -0,0 +1,203 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.dto.BatchSummaryDTO;
+import com.lab.reagentdispenser.dto.DispenseOperationDTO;
+import com.lab.reagentdispenser.entity.DispenseBatch;
+import com.lab.reagentdispenser.entity.DispenseOperation;
+import com.lab.reagentdispenser.entity.Plate;
+import com.lab.reagentdispenser.entity.Reagent;
+import com.lab.reagentdispenser.entity.Well;
+import com.lab.reagentdispenser.repository.DispenseBatchRepository;
+import com.lab.reagentdispenser.repository.DispenseEventOutboxRepository;
+import com.lab.reagentdispenser.repository.DispenseOperationRepository;
+import com.lab.reagentdispenser.repository.OperationArchiveRepository;
+import com.lab.reagentdispenser.repository.OperationHistoryFilter;
+import com.lab.reagentdispenser.repository.OperationHistoryRepository;
+import com.lab.reagentdispenser.repository.PlateRepository;
+import com.lab.reagentdispenser.repository.ReagentRepository;
+import com.lab.reagentdispenser.repository.WellRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "dispenser.archive.batch-size=2")
+@Import({OperationArchiver.class, OperationArchiveRepository.class, OperationHistoryRepository.class, DispenseService.class,
+		DispenseChannelPlanner.class, PlateStateEngine.class, ReagentCatalog.class, SimpleMeterRegistry.class})
+class OperationArchiverTest {
+
+	private static final OperationHistoryFilter NO_FILTER = OperationHistoryFilter.builder().build();
+
+	@Autowired
+	private OperationArchiver archiver;
+
+	@Autowired
+	private OperationArchiveRepository archiveRepository;
+
+	@Autowired
+	private OperationHistoryRepository historyRepository;
+
+	@Autowired
+	private DispenseService dispenseService;
+
+	@Autowired
+	private DispenseOperationRepository operationRepository;
+
+	@Autowired
+	private DispenseBatchRepository batchRepository;
+
+	@Autowired
+	private PlateRepository plateRepository;
+
+	@Autowired
+	private WellRepository wellRepository;
+
+	@Autowired
+	private ReagentRepository reagentRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@MockBean
+	private DispenseEventOutboxRepository eventOutbox;
+
+	@Test
+	void shouldMoveOnlyFinishedOperationsOlderThanCutoff() {
+		// Act: the sample operations completed one and two hours ago; two are in progress or pending
+		int archived = archiver.archiveCompletedBefore(LocalDateTime.now().minusMinutes(30));
+
+		// Assert
+		assertThat(archived).isEqualTo(3);
+		assertThat(operationRepository.findAll()).extracting(DispenseOperation::getId).containsExactlyInAnyOrder(4L, 5L);
+		assertThat(meterRegistry.counter(DispenseMetrics.OPERATIONS_ARCHIVED).count()).isEqualTo(3.0);
+		assertThat(archiver.archiveCompletedBefore(LocalDateTime.now().minusMinutes(30))).isZero();
+	}
+
+	@Test
+	void shouldLeaveBacklogBeyondBatchesPerRunForNextRun() {
+		// Arrange
+		OperationArchiver capped = new OperationArchiver(archiveRepository, meterRegistry, true, 0, 2, 1);
+		LocalDateTime cutoff = LocalDateTime.now().minusMinutes(30);
+
+		// Act
+		int firstRun = capped.archiveCompletedBefore(cutoff);
+		int secondRun = capped.archiveCompletedBefore(cutoff);
+
+		// Assert
+		assertThat(firstRun).isEqualTo(2);
+		assertThat(secondRun).isEqualTo(1);
+	}
+
+	@Test
+	void shouldKeepArchivedOperationsInHistory() {
+		// Arrange
+		archiver.archiveCompletedBefore(LocalDateTime.now().minusMinutes(30));
+
+		// Act
+		List<DispenseOperationDTO> firstPage = historyRepository.findPage(NO_FILTER, null, 3);
+		List<DispenseOperationDTO> secondPage = historyRepository.findPage(NO_FILTER, firstPage.get(2).getId(), 3);
+		List<DispenseOperationDTO> completed = historyRepository.findPage(
+				OperationHistoryFilter.builder().status("COMPLETED").plateBarcode("PLATE-001").build(), null, 10);
+		List<DispenseOperationDTO> streamed = new ArrayList<>();
+		historyRepository.stream(NO_FILTER, streamed::add);
+
+		// Assert
+		assertThat(firstPage).extracting(DispenseOperationDTO::getId).containsExactly(5L, 4L, 3L);
+		assertThat(secondPage).extracting(DispenseOperationDTO::getId).containsExactly(2L, 1L);
+		assertThat(secondPage.get(1).getPlateBarcode()).isEqualTo("PLATE-001");
+		assertThat(secondPage.get(1).getWellPosition()).isEqualTo("A1");
+		assertThat(secondPage.get(1).getReagentName()).isNotNull();
+		assertThat(completed).extracting(DispenseOperationDTO::getId).containsExactly(3L, 2L, 1L);
+		assertThat(streamed).extracting(DispenseOperationDTO::getId).containsExactlyInAnyOrder(1L, 2L, 3L, 4L, 5L);
+	}
+
+	@Test
+	void shouldFindArchivedOperationsOfDeletedPlateByBarcode() {
+		// Arrange
+		Plate plate = Plate.builder().barcode("ARCHIVE-001").build();
+		Well well = Well.builder().plate(plate).position("A1").volume(10.0).maxVolume(300.0).build();
+		plate.getWells().add(well);
+		plateRepository.save(plate);
+		DispenseOperation operation = operationRepository.save(DispenseOperation.builder()
+				.plate(plate)
+				.well(well)
+				.reagent(reagentRepository.findAll().get(0))
+				.volumeDispensed(10.0)
+				.status(DispenseOperation.OperationStatus.COMPLETED)
+				.completedDate(LocalDateTime.now().minusDays(1))
+				.build());
+		entityManager.flush();
+		archiver.archiveCompletedBefore(LocalDateTime.now().minusMinutes(30));
+		plateRepository.delete(plate);
+		entityManager.flush();
+
+		// Act
+		OperationHistoryFilter byBarcode = OperationHistoryFilter.builder().plateBarcode("ARCHIVE-001").build();
+		List<DispenseOperationDTO> page = historyRepository.findPage(byBarcode, null, 10);
+		List<DispenseOperationDTO> streamed = new ArrayList<>();
+		historyRepository.stream(byBarcode, streamed::add);
+
+		// Assert
+		assertThat(plateRepository.findByBarcode("ARCHIVE-001")).isEmpty();
+		assertThat(page).extracting(DispenseOperationDTO::getId).containsExactly(operation.getId());
+		assertThat(page.get(0).getPlateBarcode()).isEqualTo("ARCHIVE-001");
+		assertThat(page.get(0).getWellPosition()).isEqualTo("A1");
+		assertThat(page.get(0).getWellVolume()).isNull();
+		assertThat(streamed).extracting(DispenseOperationDTO::getId).containsExactly(operation.getId());
+	}
+
+	@Test
+	void shouldArchiveOperationsOfFinishedBatchesOnly() {
+		// Arrange
+		DispenseBatch executing = saveBatch(DispenseBatch.BatchStatus.EXECUTING, 10);
+		DispenseBatch completed = saveBatch(DispenseBatch.BatchStatus.COMPLETED, 20);
+
+		// Act
+		archiver.archiveCompletedBefore(LocalDateTime.now().minusMinutes(30));
+		entityManager.clear();
+		BatchSummaryDTO summary = dispenseService.getBatchById(completed.getId());
+
+		// Assert
+		assertThat(operationRepository.countByBatchId(executing.getId())).isEqualTo(4);
+		assertThat(operationRepository.countByBatchId(completed.getId())).isZero();
+		assertThat(summary.getOperationCount()).isEqualTo(4);
+		assertThat(summary.getOperationCountsByStatus()).containsEntry("COMPLETED", 4L);
+		assertThat(summary.getTotalVolume()).isEqualTo(40.0);
+	}
+
+	// Batch of four operations that completed a day ago
+	private DispenseBatch saveBatch(DispenseBatch.BatchStatus status, int firstWell) {
+		Plate plate = plateRepository.findByBarcode("PLATE-001").orElseThrow();
+		List<Well> wells = wellRepository.findByPlate(plate);
+		Reagent reagent = reagentRepository.findAll().get(0);
+		LocalDateTime completedDate = LocalDateTime.now().minusDays(1);
+
+		DispenseBatch batch = DispenseBatch.builder().plate(plate).status(status).build();
+		for (int i = 0; i < 4; i++) {
+			batch.addOperation(DispenseOperation.builder()
+					.plate(plate)
+					.well(wells.get(firstWell + i))
+					.reagent(reagent)
+					.volumeDispensed(10.0)
+					.status(DispenseOperation.OperationStatus.COMPLETED)
+					.completedDate(completedDate)
+					.build());
+		}
+		DispenseBatch saved = batchRepository.save(batch);
+		entityManager.flush();
+		return saved;
+	}
+}
@@ -0,0 +1,121 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.dto.AddOperationToBatchRequestDTO;
+import com.lab.reagentdispenser.dto.BatchPlanResultDTO;
+import com.lab.reagentdispenser.dto.CreateBatchRequestDTO;
+import com.lab.reagentdispenser.dto.DispenseBatchDTO;
+import com.lab.reagentdispenser.dto.PlateDTO;
+import com.lab.reagentdispenser.entity.DispenseOperation;
+import com.lab.reagentdispenser.entity.Plate;
+import com.lab.reagentdispenser.repository.DispenseEventOutboxRepository;
+import com.lab.reagentdispenser.repository.DispenseOperationRepository;
+import com.lab.reagentdispenser.repository.OperationArchiveRepository;
+import com.lab.reagentdispenser.repository.WellRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Statement counts of the write paths that touch a whole plate or batch. Inserts and updates are sent as JDBC
+// batches, so the counts stay flat as plates and batches grow; with hibernate.jdbc.batch_size=1 they are
+// 1541 (1536-well plate), 390 (planning 384 operations) and 386 (cancelling them).
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({PlateService.class, DispenseService.class, DispenseChannelPlanner.class, PlateStateEngine.class,
+		ReagentCatalog.class, OperationArchiveRepository.class, SimpleMeterRegistry.class})
+class PersistenceBatchingTest {
+
+	private static final int OPERATIONS = 384;
+
+	@Autowired
+	private PlateService plateService;
+
+	@Autowired
+	private DispenseService dispenseService;
+
+	@Autowired
+	private WellRepository wellRepository;
+
+	@Autowired
+	private DispenseOperationRepository operationRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@MockBean
+	private DispenseEventOutboxRepository eventOutbox;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void shouldProvisionPlateWithBatchedInserts() {
+		// Arrange
+		statistics.clear();
+
+		// Act
+		PlateDTO plate = plateService.createPlate(PlateDTO.builder().barcode("BATCH-1536").plateType("1536_WELL").build());
+		entityManager.flush();
+
+		// Assert
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(10);
+		assertThat(statistics.getEntityInsertCount()).isEqualTo(1 + 1536);
+		entityManager.clear();
+		assertThat(wellRepository.findByPlate(entityManager.getReference(Plate.class, plate.getId()))).hasSize(1536);
+	}
+
+	@Test
+	void shouldPlanAndCancelBatchWithBatchedStatements() {
+		// Arrange
+		plateService.createPlate(PlateDTO.builder().barcode("BATCH-384").plateType("384_WELL").build());
+		DispenseBatchDTO batch = dispenseService.createBatch(CreateBatchRequestDTO.builder().plateBarcode("BATCH-384").build());
+		List<AddOperationToBatchRequestDTO> requests = new ArrayList<>();
+		for (int i = 0; i < OPERATIONS; i++) {
+			requests.add(AddOperationToBatchRequestDTO.builder()
+					.wellPosition(WellPosition.of(i / 24, i % 24))
+					.reagentId(2L)
+					.volume(5.0)
+					.build());
+		}
+		entityManager.flush();
+		entityManager.clear();
+		statistics.clear();
+
+		// Act
+		BatchPlanResultDTO planned = dispenseService.addOperationsToBatch(batch.getId(), requests);
+		long planStatements = statistics.getPrepareStatementCount();
+		entityManager.clear();
+		statistics.clear();
+		dispenseService.cancelBatchExecution(batch.getId());
+		entityManager.flush();
+		long cancelStatements = statistics.getPrepareStatementCount();
+
+		// Assert
+		assertThat(planned.getOperationCount()).isEqualTo(OPERATIONS);
+		// Batch, plate state and reagent balance loads, the operation inserts and the count
+		assertThat(planStatements).isLessThanOrEqualTo(10);
+		// Batch with its operations, the operation updates and the batch update
+		assertThat(cancelStatements).isLessThanOrEqualTo(3);
+		assertThat(statistics.getEntityUpdateCount()).isEqualTo(OPERATIONS + 1);
+		entityManager.clear();
+		assertThat(operationRepository.findByStatus(DispenseOperation.OperationStatus.CANCELLED)).hasSize(OPERATIONS);
+	}
+}
@@ -0,0 +1,156 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.dto.PlateDTO;
+import com.lab.reagentdispenser.dto.PlateSnapshotDTO;
+import com.lab.reagentdispenser.entity.Plate;
+import com.lab.reagentdispenser.entity.Well;
+import com.lab.reagentdispenser.repository.PlateRepository;
+import com.lab.reagentdispenser.repository.WellRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Import({PlateService.class, PlateStateEngine.class, SimpleMeterRegistry.class})
+class PlateServiceTest {
+
+	@Autowired
+	private PlateService plateService;
+
+	@Autowired
+	private PlateRepository plateRepository;
+
+	@Autowired
+	private WellRepository wellRepository;
+
+	@Autowired
+	private PlateStateEngine plateStateEngine;
+
+	@Test
+	void shouldCreatePlatesAndAllWellsInBulk() {
+		// Arrange
+		List<PlateDTO> request = List.of(
+				PlateDTO.builder().barcode("BULK-001").build(),
+				PlateDTO.builder().barcode("BULK-002").rows(16).columns(24).plateType("384_WELL").build());
+
+		// Act
+		List<PlateDTO> created = plateService.createPlates(request);
+
+		// Assert
+		assertThat(created).extracting(PlateDTO::getBarcode).containsExactlyInAnyOrder("BULK-001", "BULK-002");
+		assertThat(created).allSatisfy(plate -> assertThat(plate.getId()).isNotNull());
+
+		Plate plate384 = plateRepository.findByBarcode("BULK-002").orElseThrow();
+		List<String> positions = wellRepository.findByPlate(plate384).stream()
+				.map(Well::getPosition)
+				.collect(Collectors.toList());
+		assertThat(positions).hasSize(384).contains("A1", "P24");
+		assertThat(wellRepository.findByPlate(plateRepository.findByBarcode("BULK-001").orElseThrow())).hasSize(96);
+	}
+
+	@Test
+	void shouldRejectBulkRequestWithExistingOrDuplicateBarcode() {
+		// Act & Assert
+		assertThatThrownBy(() -> plateService.createPlates(List.of(
+				PlateDTO.builder().barcode("BULK-003").build(),
+				PlateDTO.builder().barcode("PLATE-001").build())))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("PLATE-001");
+		assertThatThrownBy(() -> plateService.createPlates(List.of(
+				PlateDTO.builder().barcode("BULK-004").build(),
+				PlateDTO.builder().barcode("BULK-004").build())))
+				.hasMessageContaining("Duplicate barcode");
+		assertThat(plateRepository.existsByBarcode("BULK-003")).isFalse();
+	}
+
+	@Test
+	void shouldCreateSinglePlateWithWells() {
+		// Act
+		PlateDTO created = plateService.createPlate(PlateDTO.builder().barcode("SINGLE-001").build());
+
+		// Assert
+		assertThat(plateService.getWellsForPlate(created.getId())).hasSize(96);
+	}
+
+	@Test
+	void shouldDeriveDimensionsAndWellVolumeFrom1536WellFormat() {
+		// Act
+		PlateDTO created = plateService.createPlate(PlateDTO.builder().barcode("HD-001").plateType("1536_WELL").build());
+
+		// Assert
+		assertThat(created.getRows()).isEqualTo(32);
+		assertThat(created.getColumns()).isEqualTo(48);
+		List<Well> wells = wellRepository.findByPlate(plateRepository.findById(created.getId()).orElseThrow());
+		assertThat(wells).hasSize(1536)
+				.extracting(Well::getPosition).contains("A1", "Z48", "AA1", "AF48");
+		assertThat(wells).allSatisfy(well -> assertThat(well.getMaxVolume()).isEqualTo(12.0));
+	}
+
+	@Test
+	void shouldRejectDimensionsInconsistentWithPlateType() {
+		// Act & Assert
+		assertThatThrownBy(() -> plateService.createPlate(
+				PlateDTO.builder().barcode("HD-002").plateType("384_WELL").rows(8).columns(12).build()))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("requires 16 rows and 24 columns");
+	}
+
+	@Test
+	void shouldSnapshotVolumesInRowMajorOrderAndChangeVersionOnlyWithVolumes() {
+		// Arrange
+		Long plateId = plateService.createPlate(PlateDTO.builder().barcode("SNAP-001").build()).getId();
+		PlateSnapshot before = plateService.getPlateSnapshot(plateId);
+
+		// Act
+		plateStateEngine.applyDispense(plateId, "B3", 1L, 25.0);
+		PlateSnapshot after = plateService.getPlateSnapshot(plateId);
+
+		// Assert
+		assertThat(plateService.getPlateSnapshot(plateId).getVersion()).isEqualTo(after.getVersion());
+		assertThat(after.getVersion()).isNotEqualTo(before.getVersion());
+		assertThat(before.getVolumes()).hasSize(96).containsOnly(0f);
+		assertThat(after.getVolumes()[12 + 2]).isEqualTo(25f);
+
+		PlateSnapshotDTO dto = plateService.convertSnapshotToDTO(after);
+		assertThat(dto.getRows()).isEqualTo(8);
+		assertThat(dto.getColumns()).isEqualTo(12);
+		assertThat(dto.getMaxVolume()).isEqualTo(300f);
+		assertThat(dto.getMaxVolumes()).isNull();
+		assertThat(dto.getMissingWells()).isNull();
+
+		ByteBuffer binary = ByteBuffer.wrap(plateService.encodeSnapshot(after)).order(ByteOrder.LITTLE_ENDIAN);
+		assertThat(binary.remaining()).isEqualTo(96 * Float.BYTES);
+		assertThat(binary.getFloat((12 + 2) * Float.BYTES)).isEqualTo(25f);
+	}
+
+	@Test
+	void shouldMarkPositionsWithoutWellInSnapshot() {
+		// Arrange
+		PlateDTO created = plateService.createPlate(PlateDTO.builder().barcode("SNAP-002").build());
+		Plate plate = plateRepository.findById(created.getId()).orElseThrow();
+		wellRepository.findByPlate(plate).stream()
+				.filter(well -> "A2".equals(well.getPosition()))
+				.forEach(wellRepository::delete);
+		wellRepository.flush();
+		plateStateEngine.evictPlate(plate.getId());
+
+		// Act
+		PlateSnapshot snapshot = plateService.getPlateSnapshot(plate.getId());
+
+		// Assert
+		assertThat(snapshot.getVolumes()[1]).isNaN();
+		assertThat(plateService.convertSnapshotToDTO(snapshot).getMissingWells()).containsExactly(1);
+		ByteBuffer binary = ByteBuffer.wrap(plateService.encodeSnapshot(snapshot)).order(ByteOrder.LITTLE_ENDIAN);
+		assertThat(binary.getFloat(Float.BYTES)).isNaN();
+	}
+}
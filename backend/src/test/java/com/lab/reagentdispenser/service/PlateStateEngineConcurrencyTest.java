@@ -0,0 +1,197 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.dto.PlateDTO;
+import com.lab.reagentdispenser.entity.Reagent;
+import com.lab.reagentdispenser.repository.ReagentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Runs without a test transaction so every thread commits through its own connection
+@DataJpaTest
+@Import({PlateStateEngine.class, PlateService.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PlateStateEngineConcurrencyTest {
+
+	private static final int THREADS = 16;
+	private static final int DISPENSES_PER_THREAD = 50;
+
+	@Autowired
+	private PlateStateEngine plateStateEngine;
+
+	@Autowired
+	private PlateService plateService;
+
+	@Autowired
+	private ReagentRepository reagentRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void shouldNotLoseStockUpdatesWhenThreadsDispenseFromOneReagent() throws Exception {
+		// Arrange
+		double initialStock = stockOf(1L);
+		double initialWellTotal = rowAVolume();
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+
+		// Act: dispenses, flushes and a second writer decrementing the same row all interleave
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			String position = "A" + (t % 12 + 1);
+			futures.add(executor.submit(() -> {
+				start.await();
+				for (int i = 0; i < DISPENSES_PER_THREAD; i++) {
+					plateStateEngine.applyDispense(1L, position, 1L, 1.0);
+					jdbcTemplate.update(
+							"UPDATE reagents SET stock_volume = stock_volume - ?, version = version + 1 WHERE id = ?",
+							0.5, 1L);
+					if (i % 10 == 0) {
+						plateStateEngine.flush();
+					}
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+		plateStateEngine.flush();
+
+		// Assert
+		int dispenses = THREADS * DISPENSES_PER_THREAD;
+		assertThat(stockOf(1L)).isEqualTo(initialStock - dispenses * 1.0 - dispenses * 0.5);
+		assertThat(rowAVolume()).isEqualTo(initialWellTotal + dispenses * 1.0);
+	}
+
+	@Test
+	void shouldRejectStaleReagentUpdateAfterConcurrentFlush() {
+		// Arrange
+		Reagent stale = reagentRepository.findById(2L).orElseThrow();
+		plateStateEngine.applyDispense(1L, "B1", 2L, 5.0);
+		plateStateEngine.flush();
+
+		// Act & Assert
+		stale.setStockVolume(1.0);
+		assertThatThrownBy(() -> reagentRepository.save(stale))
+				.isInstanceOf(ObjectOptimisticLockingFailureException.class);
+		assertThat(stockOf(2L)).isEqualTo(100000.0 - 5.0);
+	}
+
+	@Test
+	void shouldKeepFlushedDeltasWhenEvictingTransactionRollsBack() {
+		// Arrange
+		double initialStock = stockOf(3L);
+		plateStateEngine.applyDispense(1L, "C2", 3L, 4.0);
+
+		// Act: a reagent update that evicts and then fails
+		assertThatThrownBy(() -> transactionTemplate().executeWithoutResult(status -> {
+			plateStateEngine.evictReagent(3L);
+			throw new IllegalArgumentException("Reagent not found with id: 3");
+		})).isInstanceOf(IllegalArgumentException.class);
+		plateStateEngine.flush();
+
+		// Assert
+		assertThat(stockOf(3L)).isEqualTo(initialStock - 4.0);
+	}
+
+	@Test
+	void shouldUndoDispenseWhenCompletingTransactionRollsBack() {
+		// Arrange
+		double initialStock = stockOf(3L);
+		PlateState state = plateStateEngine.getPlateState(1L);
+		int c3 = plateStateEngine.findWellIndex(state, "C3");
+		double initialVolume = state.getVolume(c3);
+		plateStateEngine.reserve(state, c3, 3L, 6.0);
+		double reserved = plateStateEngine.findReagentReserved(3L).orElseThrow();
+
+		// Act: the dispense is flushed before the transaction that applied it rolls back
+		transactionTemplate().executeWithoutResult(status -> {
+			plateStateEngine.applyDispense(1L, "C3", 3L, 6.0);
+			plateStateEngine.flush();
+			status.setRollbackOnly();
+		});
+		plateStateEngine.flush();
+
+		// Assert
+		assertThat(state.getVolume(c3)).isEqualTo(initialVolume);
+		assertThat(state.getReservedVolume(c3)).isEqualTo(6.0);
+		assertThat(plateStateEngine.findReagentReserved(3L)).hasValue(reserved);
+		assertThat(plateStateEngine.findReagentStock(3L)).hasValue(initialStock);
+		assertThat(stockOf(3L)).isEqualTo(initialStock);
+		plateStateEngine.release(1L, "C3", 3L, 6.0);
+	}
+
+	@Test
+	void shouldNotKeepPlateStateReloadedBeforeUpdateCommits() throws Exception {
+		// Arrange
+		PlateDTO plate = plateService.getPlateById(1L);
+		String barcode = plate.getBarcode();
+		plateStateEngine.getPlateState(1L);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		try {
+			// Act: a dispense on another thread reloads the plate after the eviction but before the commit
+			transactionTemplate().executeWithoutResult(status -> {
+				plateService.updatePlate(1L, renamed(plate, barcode + "-RENAMED"));
+				try {
+					executor.submit(() -> plateStateEngine.getPlateState(1L)).get();
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			});
+
+			// Assert
+			assertThat(plateStateEngine.getPlateState(1L).getBarcode()).isEqualTo(barcode + "-RENAMED");
+		} finally {
+			executor.shutdown();
+			plateService.updatePlate(1L, renamed(plate, barcode));
+		}
+	}
+
+	private static PlateDTO renamed(PlateDTO plate, String barcode) {
+		return PlateDTO.builder()
+				.barcode(barcode)
+				.rows(plate.getRows())
+				.columns(plate.getColumns())
+				.plateType(plate.getPlateType())
+				.build();
+	}
+
+	private TransactionTemplate transactionTemplate() {
+		return new TransactionTemplate(transactionManager);
+	}
+
+	private double stockOf(Long reagentId) {
+		return jdbcTemplate.queryForObject("SELECT stock_volume FROM reagents WHERE id = ?", Double.class, reagentId);
+	}
+
+	private double rowAVolume() {
+		return jdbcTemplate.queryForObject(
+				"SELECT SUM(COALESCE(volume, 0)) FROM wells WHERE plate_id = 1 AND position LIKE 'A%'", Double.class);
+	}
+}
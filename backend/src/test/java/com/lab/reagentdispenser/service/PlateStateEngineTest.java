@@ -0,0 +1,228 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.entity.Plate;
+import com.lab.reagentdispenser.entity.Reagent;
+import com.lab.reagentdispenser.entity.Well;
+import com.lab.reagentdispenser.repository.PlateRepository;
+import com.lab.reagentdispenser.repository.ReagentRepository;
+import com.lab.reagentdispenser.repository.WellRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PlateStateEngineTest {
+
+	@Mock
+	private PlateRepository plateRepository;
+
+	@Mock
+	private WellRepository wellRepository;
+
+	@Mock
+	private ReagentRepository reagentRepository;
+
+	@Mock
+	private JdbcTemplate jdbcTemplate;
+
+	@Spy
+	private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@InjectMocks
+	private PlateStateEngine plateStateEngine;
+
+	private Plate plate;
+
+	@BeforeEach
+	void setUp() {
+		plate = Plate.builder().id(1L).barcode("TEST-PLATE-001").rows(8).columns(12).build();
+		List<Well> wells = List.of(
+				Well.builder().id(11L).position("A1").plate(plate).volume(50.0).maxVolume(100.0).build(),
+				Well.builder().id(12L).position("H12").plate(plate).volume(0.0).maxVolume(100.0).build());
+		when(plateRepository.findByBarcode("TEST-PLATE-001")).thenReturn(Optional.of(plate));
+		when(wellRepository.findByPlate(plate)).thenReturn(wells);
+	}
+
+	@Test
+	void shouldLoadPlateOnceAndValidateInMemory() {
+		// Arrange
+		when(reagentRepository.findById(1L)).thenReturn(Optional.of(Reagent.builder().id(1L).stockVolume(500.0).build()));
+
+		// Act
+		for (int i = 0; i < 1000; i++) {
+			PlateState state = plateStateEngine.getPlateState("TEST-PLATE-001");
+			plateStateEngine.validateDispense(state, plateStateEngine.findWellIndex(state, "A1"), 1L, 25.0);
+		}
+
+		// Assert
+		verify(plateRepository, times(1)).findByBarcode("TEST-PLATE-001");
+		verify(wellRepository, times(1)).findByPlate(plate);
+		verify(reagentRepository, times(1)).findById(1L);
+	}
+
+	@Test
+	void shouldRejectOverCapacityMissingWellAndLowStock() {
+		// Arrange
+		when(reagentRepository.findById(1L)).thenReturn(Optional.of(Reagent.builder().id(1L).stockVolume(10.0).build()));
+		PlateState state = plateStateEngine.getPlateState("TEST-PLATE-001");
+		int a1 = plateStateEngine.findWellIndex(state, "A1");
+		int h12 = plateStateEngine.findWellIndex(state, "H12");
+
+		// Act & Assert
+		assertThatThrownBy(() -> plateStateEngine.validateDispense(state, a1, 1L, 60.0))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("Volume exceeds well capacity");
+		assertThatThrownBy(() -> plateStateEngine.findWellIndex(state, "B1"))
+				.hasMessage("Well not found at position: B1");
+		assertThatThrownBy(() -> plateStateEngine.findWellIndex(state, "I1"))
+				.hasMessage("Well not found at position: I1");
+		assertThatThrownBy(() -> plateStateEngine.validateDispense(state, h12, 1L, 20.0))
+				.hasMessageContaining("Insufficient reagent stock");
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void shouldApplyInMemoryAndFlushAccumulatedDeltasInBatches() {
+		// Arrange
+		when(reagentRepository.findById(1L)).thenReturn(Optional.of(Reagent.builder().id(1L).stockVolume(500.0).build()));
+		plateStateEngine.getPlateState("TEST-PLATE-001");
+
+		// Act
+		plateStateEngine.applyDispense(1L, "A1", 1L, 10.0);
+		double newVolume = plateStateEngine.applyDispense(1L, "A1", 1L, 15.0);
+		plateStateEngine.applyDispense(1L, "H12", 1L, 5.0);
+		plateStateEngine.flush();
+		plateStateEngine.flush();
+
+		// Assert
+		assertThat(newVolume).isEqualTo(75.0);
+		assertThat(plateStateEngine.findWellVolume(1L, "A1")).hasValue(75.0);
+		assertThat(plateStateEngine.findReagentStock(1L)).hasValue(470.0);
+
+		ArgumentCaptor<List<Object[]>> wellUpdates = ArgumentCaptor.forClass(List.class);
+		verify(jdbcTemplate).batchUpdate(contains("UPDATE wells"), wellUpdates.capture());
+		assertThat(wellUpdates.getValue()).hasSize(2);
+
+		ArgumentCaptor<List<Object[]>> reagentUpdates = ArgumentCaptor.forClass(List.class);
+		verify(jdbcTemplate).batchUpdate(contains("UPDATE reagents"), reagentUpdates.capture());
+		assertThat(reagentUpdates.getValue()).containsExactly(new Object[] {30.0, 1L});
+
+		verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+	}
+
+	@Test
+	void shouldCountReservationsOfPendingOperationsUntilDispensedOrReleased() {
+		// Arrange
+		when(reagentRepository.findById(1L)).thenReturn(Optional.of(Reagent.builder().id(1L).stockVolume(100.0).build()));
+		PlateState state = plateStateEngine.getPlateState("TEST-PLATE-001");
+		int a1 = plateStateEngine.findWellIndex(state, "A1");
+		int h12 = plateStateEngine.findWellIndex(state, "H12");
+
+		// Act & Assert
+		plateStateEngine.reserve(state, a1, 1L, 30.0);
+		assertThatThrownBy(() -> plateStateEngine.reserve(state, a1, 1L, 30.0))
+				.hasMessageContaining("Volume exceeds well capacity");
+
+		plateStateEngine.reserve(state, h12, 1L, 60.0);
+		assertThatThrownBy(() -> plateStateEngine.reserve(state, h12, 1L, 20.0))
+				.hasMessageContaining("Insufficient reagent stock");
+		assertThat(plateStateEngine.findReagentReserved(1L)).hasValue(90.0);
+
+		plateStateEngine.release(1L, "H12", 1L, 60.0);
+		plateStateEngine.applyDispense(1L, "A1", 1L, 30.0);
+		assertThat(state.getReservedVolume(a1)).isZero();
+		assertThat(plateStateEngine.findReagentReserved(1L)).hasValue(0.0);
+		assertThat(plateStateEngine.findReagentStock(1L)).hasValue(70.0);
+		plateStateEngine.reserve(state, h12, 1L, 70.0);
+	}
+
+	@Test
+	void shouldRejectNonFiniteOrNegativeReservations() {
+		// Arrange
+		PlateState state = plateStateEngine.getPlateState("TEST-PLATE-001");
+		int a1 = plateStateEngine.findWellIndex(state, "A1");
+		double[] wellDemand = new double[state.getRows() * state.getColumns()];
+		wellDemand[a1] = Double.NaN;
+
+		// Act & Assert
+		assertThatThrownBy(() -> plateStateEngine.reserve(state, a1, 1L, Double.NaN))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> plateStateEngine.reserve(state, a1, 1L, Double.POSITIVE_INFINITY))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> plateStateEngine.reserve(state, a1, 1L, -1.0))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> plateStateEngine.reserveAll(state, wellDemand, Map.of(1L, Double.NaN)))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThat(state.getReservedVolume(a1)).isZero();
+		verifyNoInteractions(reagentRepository);
+	}
+
+	@Test
+	void shouldRebuildReagentReservationsFromPendingOperations() {
+		// Arrange
+		when(reagentRepository.findById(1L)).thenReturn(Optional.of(Reagent.builder().id(1L).stockVolume(100.0).build()));
+		when(jdbcTemplate.queryForObject(contains("reagent_id = ?"), eq(Double.class), eq(1L))).thenReturn(80.0);
+		PlateState state = plateStateEngine.getPlateState("TEST-PLATE-001");
+		int h12 = plateStateEngine.findWellIndex(state, "H12");
+
+		// Act & Assert
+		assertThatThrownBy(() -> plateStateEngine.reserve(state, h12, 1L, 30.0))
+				.hasMessageContaining("Insufficient reagent stock. Available: 20.0");
+	}
+
+	@Test
+	void shouldReserveConsistentlyUnderConcurrentPlanning() throws Exception {
+		// Arrange
+		when(reagentRepository.findById(1L)).thenReturn(Optional.of(Reagent.builder().id(1L).stockVolume(1000.0).build()));
+		PlateState state = plateStateEngine.getPlateState("TEST-PLATE-001");
+		int h12 = plateStateEngine.findWellIndex(state, "H12");
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		AtomicInteger reserved = new AtomicInteger();
+
+		// Act
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < 400; i++) {
+			futures.add(executor.submit(() -> {
+				try {
+					plateStateEngine.reserve(state, h12, 1L, 1.0);
+					reserved.incrementAndGet();
+				} catch (IllegalArgumentException e) {
+					// Well is full
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+
+		// Assert
+		assertThat(reserved.get()).isEqualTo(100);
+		assertThat(state.getReservedVolume(h12)).isEqualTo(100.0);
+		assertThat(plateStateEngine.findReagentReserved(1L)).hasValue(100.0);
+	}
+}
@@ -0,0 +1,129 @@
+package com.lab.reagentdispenser.service;
+
+import com.lab.reagentdispenser.config.ExecutionConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WebSocketSessionMonitorTest {
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Mock
+	private WebSocketHandler handler;
+
+	@Mock
+	private WebSocketSession fastSession;
+
+	@Mock
+	private WebSocketSession slowSession;
+
+	@Test
+	void shouldCountSessionsAndEvictedSlowConsumers() throws Exception {
+		// Arrange
+		WebSocketSessionMonitor monitor = new WebSocketSessionMonitor(meterRegistry);
+		WebSocketHandler decorated = monitor.decorate(handler);
+		when(fastSession.getId()).thenReturn("fast");
+		when(slowSession.getId()).thenReturn("slow");
+
+		// Act
+		decorated.afterConnectionEstablished(fastSession);
+		decorated.afterConnectionEstablished(slowSession);
+		CloseStatus limitExceeded = CloseStatus.SESSION_NOT_RELIABLE.withReason("Send time limit exceeded");
+		decorated.afterConnectionClosed(slowSession, limitExceeded);
+		monitor.rejectOutboundMessage(() -> {
+		});
+
+		// Assert
+		assertThat(monitor.getActiveSessions()).isEqualTo(1);
+		assertThat(monitor.getEvictedSessions()).isEqualTo(1);
+		assertThat(monitor.getDroppedMessages()).isEqualTo(1);
+		assertThat(meterRegistry.get(DispenseMetrics.WEBSOCKET_SESSIONS).gauge().value()).isEqualTo(1.0);
+		assertThat(meterRegistry.get(DispenseMetrics.WEBSOCKET_EVICTED).functionCounter().count()).isEqualTo(1.0);
+		assertThat(meterRegistry.get(DispenseMetrics.WEBSOCKET_DROPPED).functionCounter().count()).isEqualTo(1.0);
+		verify(handler).afterConnectionEstablished(fastSession);
+		verify(handler).afterConnectionClosed(slowSession, limitExceeded);
+	}
+
+	@Test
+	void shouldNotCountNormalClosesAsEvictions() throws Exception {
+		// Arrange
+		WebSocketSessionMonitor monitor = new WebSocketSessionMonitor(meterRegistry);
+		WebSocketHandler decorated = monitor.decorate(handler);
+		when(fastSession.getId()).thenReturn("fast");
+
+		// Act
+		decorated.afterConnectionEstablished(fastSession);
+		decorated.afterConnectionClosed(fastSession, CloseStatus.NORMAL);
+
+		// Assert
+		assertThat(monitor.getActiveSessions()).isZero();
+		assertThat(monitor.getEvictedSessions()).isZero();
+	}
+
+	@Test
+	void shouldCloseSessionWhoseMessageIsRejectedByFullOutboundQueue() throws Exception {
+		// Arrange: one outbound thread blocked on a send and one queued send fill the channel
+		WebSocketSessionMonitor monitor = new WebSocketSessionMonitor(meterRegistry);
+		WebSocketHandler decorated = monitor.decorate(handler);
+		when(fastSession.getId()).thenReturn("fast");
+		when(slowSession.getId()).thenReturn("slow");
+		decorated.afterConnectionEstablished(fastSession);
+		decorated.afterConnectionEstablished(slowSession);
+
+		ThreadPoolTaskExecutor executor = new ExecutionConfig().webSocketOutboundExecutor(1, 1, monitor);
+		executor.initialize();
+		CountDownLatch sending = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorSubscribableChannel outboundChannel = new ExecutorSubscribableChannel(executor);
+		outboundChannel.subscribe(message -> {
+			sending.countDown();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		try {
+			outboundChannel.send(messageTo("fast"));
+			assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+			outboundChannel.send(messageTo("fast"));
+
+			// Act
+			outboundChannel.send(messageTo("slow"));
+
+			// Assert
+			assertThat(monitor.getDroppedMessages()).isEqualTo(1);
+			verify(slowSession).close(argThat(status -> CloseStatus.SESSION_NOT_RELIABLE.equalsCode(status)));
+			verify(fastSession, never()).close(any(CloseStatus.class));
+		} finally {
+			release.countDown();
+			executor.shutdown();
+		}
+	}
+
+	private static Message<byte[]> messageTo(String sessionId) {
+		SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		headers.setSessionId(sessionId);
+		return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+	}
+}
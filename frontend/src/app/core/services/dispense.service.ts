@@ -1,5 +1,5 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpParams } from '@angular/common/http';
 import { Observable, of, throwError } from 'rxjs';
 import { delay, switchMap, catchError, tap } from 'rxjs/operators';
 import { environment } from '../../../environments/environment';
@@ -8,8 +8,13 @@ import {
   DispenseRequest, 
   CreateBatchRequest, 
   AddOperationToBatchRequest, 
-  DispenseBatch 
+  DispenseBatch,
+  BatchSummary,
+  BatchPlanResult,
+  OperationHistoryFilter,
+  OperationHistoryPage
 } from '../../shared/models/dispense-operation.model';
+import { DispenseEventFrame } from '../../shared/models/dispense-event.model';
 import { PlannedOperation, PlannedOperationStatus } from '../../shared/models/planned-operation.model';
 
 @Injectable({
@@ -20,8 +25,21 @@ export class DispenseService {
 
   constructor(private http: HttpClient) {}
 
-  getHistory(): Observable<DispenseOperation[]> {
-    return this.http.get<DispenseOperation[]>(`${this.apiUrl}/history`);
+  // Newest first; pass the returned nextCursor to load the next (older) page
+  getHistory(filter: OperationHistoryFilter = {}, cursor?: number, limit?: number): Observable<OperationHistoryPage> {
+    let params = new HttpParams();
+    Object.entries(filter).forEach(([key, value]) => {
+      if (value !== undefined && value !== null && value !== '') {
+        params = params.set(key, String(value));
+      }
+    });
+    if (cursor !== undefined) {
+      params = params.set('cursor', String(cursor));
+    }
+    if (limit !== undefined) {
+      params = params.set('limit', String(limit));
+    }
+    return this.http.get<OperationHistoryPage>(`${this.apiUrl}/history`, { params });
   }
 
   getById(id: number): Observable<DispenseOperation> {
@@ -45,20 +63,44 @@ export class DispenseService {
     return this.http.post<DispenseBatch>(`${this.apiUrl}/batch`, request);
   }
 
-  addOperationToBatch(batchId: number, request: AddOperationToBatchRequest): Observable<DispenseBatch> {
-    return this.http.post<DispenseBatch>(`${this.apiUrl}/batch/${batchId}/add-operation`, request);
+  addOperationToBatch(batchId: number, request: AddOperationToBatchRequest): Observable<BatchSummary> {
+    return this.http.post<BatchSummary>(`${this.apiUrl}/batch/${batchId}/add-operation`, request);
+  }
+
+  addOperationsToBatch(batchId: number, operations: AddOperationToBatchRequest[]): Observable<BatchPlanResult> {
+    return this.http.post<BatchPlanResult>(`${this.apiUrl}/batch/${batchId}/operations`, { operations });
+  }
+
+  executeBatchById(batchId: number): Observable<BatchSummary> {
+    return this.http.post<BatchSummary>(`${this.apiUrl}/batch/${batchId}/execute`, {});
   }
 
-  executeBatchById(batchId: number): Observable<DispenseBatch> {
-    return this.http.post<DispenseBatch>(`${this.apiUrl}/batch/${batchId}/execute`, {});
+  getBatchById(batchId: number): Observable<BatchSummary> {
+    return this.http.get<BatchSummary>(`${this.apiUrl}/batch/${batchId}`);
   }
 
-  getBatchById(batchId: number): Observable<DispenseBatch> {
-    return this.http.get<DispenseBatch>(`${this.apiUrl}/batch/${batchId}`);
+  getAllBatches(): Observable<BatchSummary[]> {
+    return this.http.get<BatchSummary[]>(`${this.apiUrl}/batch`);
   }
 
-  getAllBatches(): Observable<DispenseBatch[]> {
-    return this.http.get<DispenseBatch[]>(`${this.apiUrl}/batch`);
+  // Events after the given sequence number, for clients that missed frames of the event stream
+  getEventsSince(since: number, plateBarcode?: string): Observable<DispenseEventFrame> {
+    let params = new HttpParams().set('since', String(since));
+    if (plateBarcode) {
+      params = params.set('plateBarcode', plateBarcode);
+    }
+    return this.http.get<DispenseEventFrame>(`${this.apiUrl}/events`, { params });
+  }
+
+  getBatchOperations(batchId: number, cursor?: number, limit?: number): Observable<OperationHistoryPage> {
+    let params = new HttpParams();
+    if (cursor !== undefined) {
+      params = params.set('cursor', String(cursor));
+    }
+    if (limit !== undefined) {
+      params = params.set('limit', String(limit));
+    }
+    return this.http.get<OperationHistoryPage>(`${this.apiUrl}/batch/${batchId}/operations`, { params });
   }
 
   /**
@@ -77,8 +119,13 @@ export class DispenseService {
     return this.createBatch({ plateBarcode }).pipe(
       switchMap(batch => {
         console.log('Created batch:', batch);
-        // Add all operations to the batch sequentially
-        return this.addOperationsToBatch(batch.id, operations, 0).pipe(
+        // Add all operations to the batch in one request
+        const requests: AddOperationToBatchRequest[] = operations.map(op => ({
+          wellPosition: op.wellPosition,
+          reagentId: op.reagentId,
+          volume: op.volume
+        }));
+        return this.addOperationsToBatch(batch.id, requests).pipe(
           switchMap(() => {
             console.log('All operations added to batch, executing...');
             // Mark all operations as EXECUTING
@@ -104,32 +151,4 @@ export class DispenseService {
       })
     );
   }
-
-  /**
-   * Recursively add operations to a batch
-   */
-  private addOperationsToBatch(
-    batchId: number, 
-    operations: PlannedOperation[], 
-    index: number
-  ): Observable<DispenseBatch> {
-    if (index >= operations.length) {
-      // All operations added, return the batch
-      return this.getBatchById(batchId);
-    }
-
-    const operation = operations[index];
-    const request: AddOperationToBatchRequest = {
-      wellPosition: operation.wellPosition,
-      reagentId: operation.reagentId,
-      volume: operation.volume
-    };
-
-    return this.addOperationToBatch(batchId, request).pipe(
-      switchMap(batch => {
-        // Continue with next operation
-        return this.addOperationsToBatch(batchId, operations, index + 1);
-      })
-    );
-  }
 }
@@ -1,8 +1,9 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpResponse } from '@angular/common/http';
 import { Observable } from 'rxjs';
+import { map } from 'rxjs/operators';
 import { environment } from '../../../environments/environment';
-import { Plate, Well } from '../../shared/models/plate.model';
+import { Plate, PlateSnapshot, Well } from '../../shared/models/plate.model';
 
 @Injectable({
   providedIn: 'root'
@@ -28,6 +29,27 @@ export class PlateService {
     return this.http.get<Well[]>(`${this.apiUrl}/${plateId}/wells`);
   }
 
+  // Binary float32 snapshot; the browser revalidates it with If-None-Match, so an unchanged plate costs a 304
+  getSnapshot(plateId: number): Observable<PlateSnapshot> {
+    return this.http.get(`${this.apiUrl}/${plateId}/snapshot`, {
+      headers: { Accept: 'application/octet-stream' },
+      observe: 'response',
+      responseType: 'arraybuffer'
+    }).pipe(map(response => PlateService.decodeSnapshot(response)));
+  }
+
+  private static decodeSnapshot(response: HttpResponse<ArrayBuffer>): PlateSnapshot {
+    const rows = Number(response.headers.get('X-Plate-Rows'));
+    const columns = Number(response.headers.get('X-Plate-Columns'));
+    const maxVolume = response.headers.get('X-Plate-Max-Volume');
+    const view = new DataView(response.body as ArrayBuffer);
+    const volumes = new Float32Array(rows * columns);
+    for (let i = 0; i < volumes.length; i++) {
+      volumes[i] = view.getFloat32(i * 4, true);
+    }
+    return { rows, columns, volumes, maxVolume: maxVolume !== null ? Number(maxVolume) : undefined };
+  }
+
   create(plate: Plate): Observable<Plate> {
     return this.http.post<Plate>(this.apiUrl, plate);
   }
@@ -2,9 +2,8 @@ import { Injectable } from '@angular/core';
 import { Client, IMessage, StompSubscription } from '@stomp/stompjs';
 import * as SockJS from 'sockjs-client';
 import { BehaviorSubject, Observable } from 'rxjs';
-import { filter, map } from 'rxjs/operators';
+import { filter } from 'rxjs/operators';
 import { environment } from '../../../environments/environment';
-import { WebSocketMessage } from '../../shared/models/websocket-message.model';
 
 @Injectable({
   providedIn: 'root'
@@ -12,7 +11,6 @@ import { WebSocketMessage } from '../../shared/models/websocket-message.model';
 export class WebSocketService {
   private client: Client;
   private connectionState$ = new BehaviorSubject<boolean>(false);
-  private messageSubject$ = new BehaviorSubject<WebSocketMessage | null>(null);
 
   constructor() {
     this.client = new Client({
@@ -57,7 +55,7 @@ export class WebSocketService {
     return this.connectionState$.asObservable();
   }
 
-  subscribe<T>(destination: string): Observable<WebSocketMessage<T>> {
+  subscribe<T>(destination: string): Observable<T> {
     return new Observable(observer => {
       let subscription: StompSubscription | null = null;
 
@@ -65,7 +63,7 @@ export class WebSocketService {
         if (this.client.connected) {
           subscription = this.client.subscribe(destination, (message: IMessage) => {
             try {
-              const parsedMessage = JSON.parse(message.body) as WebSocketMessage<T>;
+              const parsedMessage = JSON.parse(message.body) as T;
               observer.next(parsedMessage);
             } catch (error) {
               console.error('Error parsing WebSocket message:', error);
@@ -1,14 +1,14 @@
 import { ComponentFixture, TestBed } from '@angular/core/testing';
 import { ActivatedRoute, Router } from '@angular/router';
 import { NO_ERRORS_SCHEMA } from '@angular/core';
-import { of, Subject } from 'rxjs';
+import { of, Subject, throwError } from 'rxjs';
 import { PlateDetailComponent } from './plate-detail.component';
 import { PlateService } from '../../../../core/services/plate.service';
 import { WebSocketService } from '../../../../core/services/websocket.service';
 import { DispenseService } from '../../../../core/services/dispense.service';
 import { ReagentService } from '../../../../core/services/reagent.service';
-import { Plate, Well } from '../../../../shared/models/plate.model';
-import { WebSocketMessage } from '../../../../shared/models/websocket-message.model';
+import { Plate, PlateSnapshot, Well } from '../../../../shared/models/plate.model';
+import { DispenseEventFrame } from '../../../../shared/models/dispense-event.model';
 
 describe('PlateDetailComponent - WebSocket Well Volume Updates', () => {
   let component: PlateDetailComponent;
@@ -18,7 +18,7 @@ describe('PlateDetailComponent - WebSocket Well Volume Updates', () => {
   let mockDispenseService: jasmine.SpyObj<DispenseService>;
   let mockWebSocketService: jasmine.SpyObj<WebSocketService>;
   let mockRouter: jasmine.SpyObj<Router>;
-  let wsMessageSubject: Subject<WebSocketMessage>;
+  let wsMessageSubject: Subject<DispenseEventFrame>;
 
   const testPlate: Plate = {
     id: 1,
@@ -34,21 +34,31 @@ describe('PlateDetailComponent - WebSocket Well Volume Updates', () => {
     { id: 3, position: 'B1', plateId: 1, volume: 100.0, maxVolume: 200.0 }
   ];
 
+  // A1 = 60, A2 = 0, B1 = 100; all other positions have no well
+  const testSnapshot = (): PlateSnapshot => {
+    const volumes = new Float32Array(96).fill(NaN);
+    volumes[0] = 60.0;
+    volumes[1] = 0.0;
+    volumes[12] = 100.0;
+    return { rows: 8, columns: 12, volumes, maxVolume: 200.0 };
+  };
+
   beforeEach(async () => {
     // Create spies
-    mockPlateService = jasmine.createSpyObj('PlateService', ['getById', 'getWells']);
+    mockPlateService = jasmine.createSpyObj('PlateService', ['getById', 'getWells', 'getSnapshot']);
     mockReagentService = jasmine.createSpyObj('ReagentService', ['getAll']);
-    mockDispenseService = jasmine.createSpyObj('DispenseService', ['executeBatch']);
+    mockDispenseService = jasmine.createSpyObj('DispenseService', ['executeBatch', 'getEventsSince']);
     mockWebSocketService = jasmine.createSpyObj('WebSocketService', ['subscribe']);
     mockRouter = jasmine.createSpyObj('Router', ['navigate']);
 
     // Create a subject to simulate WebSocket messages
-    wsMessageSubject = new Subject<WebSocketMessage>();
+    wsMessageSubject = new Subject<DispenseEventFrame>();
     mockWebSocketService.subscribe.and.returnValue(wsMessageSubject.asObservable());
 
     // Setup default return values with deep copies of test data
     mockPlateService.getById.and.returnValue(of({...testPlate}));
     mockPlateService.getWells.and.returnValue(of(testWells.map(w => ({...w}))));
+    mockPlateService.getSnapshot.and.returnValue(of(testSnapshot()));
     mockReagentService.getAll.and.returnValue(of([]));
 
     await TestBed.configureTestingModule({
@@ -82,26 +92,26 @@ describe('PlateDetailComponent - WebSocket Well Volume Updates', () => {
     wsMessageSubject.complete();
   });
 
+  it('should subscribe to the topic of its own plate only', () => {
+    expect(mockWebSocketService.subscribe).toHaveBeenCalledOnceWith('/topic/plates/TEST-PLATE-001');
+  });
+
   it('should update well volume directly from WebSocket payload', (done) => {
     // Arrange
     const initialWellVolume = component.wells.find(w => w.position === 'A1')?.volume;
     expect(initialWellVolume).toBe(50.0);
 
-    // Prepare WebSocket message with updated well volume
-    const wsMessage: WebSocketMessage = {
-      type: 'OPERATION_STATUS_CHANGE',
-      payload: {
-        plateId: 1,
-        wellPosition: 'A1',
-        wellVolume: 75.0, // Updated volume after dispense
-        reagentId: 1,
-        status: 'COMPLETED'
-      },
-      timestamp: new Date().toISOString()
+    // Prepare event frame with updated well volume
+    const frame: DispenseEventFrame = {
+      prevSeq: 0,
+      toSeq: 1,
+      events: [
+        { seq: 1, opId: 10, plateId: 1, well: 'A1', wellVolume: 75.0, status: 'COMPLETED' } // Updated volume after dispense
+      ]
     };
 
-    // Act - Send WebSocket message
-    wsMessageSubject.next(wsMessage);
+    // Act - Send WebSocket frame
+    wsMessageSubject.next(frame);
 
     // Assert - Well volume should be updated immediately
     setTimeout(() => {
@@ -122,29 +132,17 @@ describe('PlateDetailComponent - WebSocket Well Volume Updates', () => {
     expect(well1InitialVolume).toBe(50.0);
     expect(well2InitialVolume).toBe(0.0);
 
-    // Act - Send multiple WebSocket messages
+    // Act - Send multiple WebSocket frames
     wsMessageSubject.next({
-      type: 'OPERATION_STATUS_CHANGE',
-      payload: {
-        plateId: 1,
-        wellPosition: 'A1',
-        wellVolume: 75.0,
-        reagentId: 1,
-        status: 'COMPLETED'
-      },
-      timestamp: new Date().toISOString()
+      prevSeq: 0,
+      toSeq: 1,
+      events: [{ seq: 1, opId: 10, plateId: 1, well: 'A1', wellVolume: 75.0, status: 'COMPLETED' }]
     });
 
     wsMessageSubject.next({
-      type: 'OPERATION_STATUS_CHANGE',
-      payload: {
-        plateId: 1,
-        wellPosition: 'A2',
-        wellVolume: 50.0,
-        reagentId: 2,
-        status: 'COMPLETED'
-      },
-      timestamp: new Date().toISOString()
+      prevSeq: 1,
+      toSeq: 2,
+      events: [{ seq: 2, opId: 11, plateId: 1, well: 'A2', wellVolume: 50.0, status: 'COMPLETED' }]
     });
 
     // Assert
@@ -155,7 +153,7 @@ describe('PlateDetailComponent - WebSocket Well Volume Updates', () => {
       expect(well1?.volume).toBe(75.0);
       expect(well2?.volume).toBe(50.0);
       
-      // Verify that wells were NOT reloaded for each message
+      // Verify that wells were NOT reloaded for each frame
       expect(mockPlateService.getWells).toHaveBeenCalledTimes(1);
       done();
     }, 10);
@@ -165,17 +163,11 @@ describe('PlateDetailComponent - WebSocket Well Volume Updates', () => {
     // Arrange
     const initialVolume = component.wells.find(w => w.position === 'A1')?.volume;
 
-    // Act - Send WebSocket message for different plate
+    // Act - Send event for different plate
     wsMessageSubject.next({
-      type: 'OPERATION_STATUS_CHANGE',
-      payload: {
-        plateId: 999, // Different plate ID
-        wellPosition: 'A1',
-        wellVolume: 150.0,
-        reagentId: 1,
-        status: 'COMPLETED'
-      },
-      timestamp: new Date().toISOString()
+      prevSeq: 0,
+      toSeq: 1,
+      events: [{ seq: 1, opId: 10, plateId: 999, well: 'A1', wellVolume: 150.0, status: 'COMPLETED' }] // Different plate ID
     });
 
     // Assert - Well volume should NOT be updated
@@ -186,21 +178,15 @@ describe('PlateDetailComponent - WebSocket Well Volume Updates', () => {
     }, 10);
   });
 
-  it('should handle WebSocket message with undefined wellVolume gracefully', (done) => {
+  it('should handle event with undefined wellVolume gracefully', (done) => {
     // Arrange
     const initialVolume = component.wells.find(w => w.position === 'A1')?.volume;
 
-    // Act - Send WebSocket message without wellVolume
+    // Act - Send event without wellVolume
     wsMessageSubject.next({
-      type: 'OPERATION_STATUS_CHANGE',
-      payload: {
-        plateId: 1,
-        wellPosition: 'A1',
-        // wellVolume is undefined
-        reagentId: 1,
-        status: 'IN_PROGRESS'
-      },
-      timestamp: new Date().toISOString()
+      prevSeq: 0,
+      toSeq: 1,
+      events: [{ seq: 1, opId: 10, plateId: 1, well: 'A1', status: 'IN_PROGRESS' }] // wellVolume is undefined
     });
 
     // Assert - Well volume should remain unchanged
@@ -211,25 +197,122 @@ describe('PlateDetailComponent - WebSocket Well Volume Updates', () => {
     }, 10);
   });
 
-  it('should reload wells on BATCH_EXECUTION_COMPLETED', (done) => {
+  it('should refresh volumes from the snapshot when the batch completes', (done) => {
     // Arrange
     const callCountBeforeBatchComplete = mockPlateService.getWells.calls.count();
 
-    // Act - Send BATCH_EXECUTION_COMPLETED message
+    // Act - Send batch completion event
     wsMessageSubject.next({
-      type: 'BATCH_EXECUTION_COMPLETED',
-      payload: {
-        plateId: 1,
-        status: 'COMPLETED'
-      },
-      timestamp: new Date().toISOString()
+      prevSeq: 0,
+      toSeq: 1,
+      events: [{ seq: 1, batchId: 5, plateId: 1, status: 'COMPLETED' }]
     });
 
-    // Assert - Wells should be reloaded
+    // Assert - Volumes are refreshed in place instead of reloading the wells
     setTimeout(() => {
-      expect(mockPlateService.getWells).toHaveBeenCalledTimes(callCountBeforeBatchComplete + 1);
+      expect(mockPlateService.getSnapshot).toHaveBeenCalledWith(1);
+      expect(mockPlateService.getWells).toHaveBeenCalledTimes(callCountBeforeBatchComplete);
+      expect(component.wells.find(w => w.position === 'A1')?.volume).toBe(60.0);
+      expect(component.wells.find(w => w.position === 'A1')?.id).toBe(1);
       expect(component.isExecutingBatch).toBe(false);
       done();
     }, 10);
   });
+
+  it('should resync missed events when a sequence gap is detected', (done) => {
+    // Arrange
+    mockDispenseService.getEventsSince.and.returnValue(of({
+      prevSeq: 1,
+      toSeq: 4,
+      events: [
+        { seq: 2, opId: 11, plateId: 1, well: 'A2', wellVolume: 25.0, status: 'COMPLETED' },
+        { seq: 3, opId: 12, plateId: 1, well: 'B1', wellVolume: 125.0, status: 'COMPLETED' },
+        { seq: 4, opId: 10, plateId: 1, well: 'A1', wellVolume: 80.0, status: 'COMPLETED' }
+      ]
+    }));
+    wsMessageSubject.next({
+      prevSeq: 0,
+      toSeq: 1,
+      events: [{ seq: 1, opId: 10, plateId: 1, well: 'A1', status: 'IN_PROGRESS' }]
+    });
+
+    // Act - Frame 2..3 was missed
+    wsMessageSubject.next({
+      prevSeq: 3,
+      toSeq: 4,
+      events: [{ seq: 4, opId: 10, plateId: 1, well: 'A1', wellVolume: 80.0, status: 'COMPLETED' }]
+    });
+
+    // Assert
+    setTimeout(() => {
+      expect(mockDispenseService.getEventsSince).toHaveBeenCalledWith(1, 'TEST-PLATE-001');
+      expect(component.wells.find(w => w.position === 'A1')?.volume).toBe(80.0);
+      expect(component.wells.find(w => w.position === 'A2')?.volume).toBe(25.0);
+      expect(component.wells.find(w => w.position === 'B1')?.volume).toBe(125.0);
+      done();
+    }, 10);
+  });
+
+  it('should skip events redelivered with an already applied sequence number', (done) => {
+    // Arrange
+    wsMessageSubject.next({
+      prevSeq: 0,
+      toSeq: 2,
+      events: [{ seq: 2, opId: 10, plateId: 1, well: 'A1', wellVolume: 75.0, status: 'COMPLETED' }]
+    });
+    wsMessageSubject.next({
+      prevSeq: 2,
+      toSeq: 3,
+      events: [{ seq: 3, opId: 11, plateId: 1, well: 'A1', wellVolume: 90.0, status: 'COMPLETED' }]
+    });
+
+    // Act - The server restarted before deleting event 2 from its outbox and publishes it again
+    wsMessageSubject.next({
+      prevSeq: 0,
+      toSeq: 4,
+      events: [
+        { seq: 2, opId: 10, plateId: 1, well: 'A1', wellVolume: 75.0, status: 'COMPLETED' },
+        { seq: 4, opId: 12, plateId: 1, well: 'A2', wellVolume: 25.0, status: 'COMPLETED' }
+      ]
+    });
+
+    // Assert
+    setTimeout(() => {
+      expect(component.wells.find(w => w.position === 'A1')?.volume).toBe(90.0);
+      expect(component.wells.find(w => w.position === 'A2')?.volume).toBe(25.0);
+      expect(mockDispenseService.getEventsSince).not.toHaveBeenCalled();
+      done();
+    }, 10);
+  });
+
+  it('should refresh volumes when missed events are no longer available', (done) => {
+    // Arrange
+    mockDispenseService.getEventsSince.and.returnValue(throwError(() => ({ status: 409 })));
+    wsMessageSubject.next({ prevSeq: 0, toSeq: 1, events: [] });
+
+    // Act
+    wsMessageSubject.next({ prevSeq: 49, toSeq: 50, events: [] });
+
+    // Assert
+    setTimeout(() => {
+      expect(mockPlateService.getSnapshot).toHaveBeenCalledTimes(1);
+      expect(component.wells.find(w => w.position === 'B1')?.volume).toBe(100.0);
+      done();
+    }, 10);
+  });
+
+  it('should reload wells when the snapshot cannot be fetched', (done) => {
+    // Arrange
+    mockPlateService.getSnapshot.and.returnValue(throwError(() => ({ status: 500 })));
+    const callCountBeforeRefresh = mockPlateService.getWells.calls.count();
+
+    // Act
+    component.refreshVolumes(1);
+
+    // Assert
+    setTimeout(() => {
+      expect(mockPlateService.getWells).toHaveBeenCalledTimes(callCountBeforeRefresh + 1);
+      done();
+    }, 10);
+  });
 });
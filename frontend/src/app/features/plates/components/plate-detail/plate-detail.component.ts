@@ -8,6 +8,7 @@ import { Plate, Well } from '../../../../shared/models/plate.model';
 import { Reagent } from '../../../../shared/models/reagent.model';
 import { ReagentService } from '../../../../core/services/reagent.service';
 import { PlannedOperation, PlannedOperationStatus } from '../../../../shared/models/planned-operation.model';
+import { DispenseEvent, DispenseEventFrame } from '../../../../shared/models/dispense-event.model';
 
 @Component({
   selector: 'app-plate-detail',
@@ -28,6 +29,8 @@ export class PlateDetailComponent implements OnInit, OnDestroy {
   isExecutingBatch = false;
   
   private wsSubscription: Subscription | null = null;
+  // Sequence number of the last applied dispense event, used to detect missed frames
+  private lastSeq: number | null = null;
 
   constructor(
     private route: ActivatedRoute,
@@ -43,7 +46,6 @@ export class PlateDetailComponent implements OnInit, OnDestroy {
     if (plateId) {
       this.loadPlate(+plateId);
       this.loadReagents();
-      this.subscribeToUpdates();
     }
   }
 
@@ -61,6 +63,7 @@ export class PlateDetailComponent implements OnInit, OnDestroy {
       next: (plate) => {
         this.plate = plate;
         this.loadWells(id);
+        this.subscribeToUpdates(plate.barcode);
       },
       error: (err) => {
         this.error = 'Failed to load plate: ' + err.message;
@@ -84,6 +87,35 @@ export class PlateDetailComponent implements OnInit, OnDestroy {
     });
   }
 
+  // Refreshes volumes of the loaded wells in place from the dense snapshot, which is far smaller than the well list
+  refreshVolumes(plateId: number): void {
+    this.plateService.getSnapshot(plateId).subscribe({
+      next: (snapshot) => {
+        for (const well of this.wells) {
+          const volume = snapshot.volumes[PlateDetailComponent.wellIndex(well.position, snapshot.columns)];
+          if (!isNaN(volume)) {
+            well.volume = volume;
+          }
+        }
+      },
+      error: (err) => {
+        console.warn('Snapshot refresh failed, reloading wells:', err);
+        this.loadWells(plateId);
+      }
+    });
+  }
+
+  // "A1" -> 0, "B3" -> columns + 2; rows past Z are AA, AB, ...
+  private static wellIndex(position: string, columns: number): number {
+    const match = /^([A-Z]+)(\d+)$/.exec(position);
+    if (!match) return -1;
+    let row = 0;
+    for (const letter of match[1]) {
+      row = row * 26 + (letter.charCodeAt(0) - 64);
+    }
+    return (row - 1) * columns + Number(match[2]) - 1;
+  }
+
   loadReagents(): void {
     this.reagentService.getAll().subscribe({
       next: (reagents) => {
@@ -95,51 +127,19 @@ export class PlateDetailComponent implements OnInit, OnDestroy {
     });
   }
 
-  subscribeToUpdates(): void {
+  subscribeToUpdates(barcode: string): void {
+    this.wsSubscription?.unsubscribe();
     this.wsSubscription = this.webSocketService
-      .subscribe('/topic/dispense-status')
+      .subscribe<DispenseEventFrame>(`/topic/plates/${barcode}`)
       .subscribe({
-        next: (message) => {
-          console.log('WebSocket update:', message);
-          
-          if (!this.plate?.id) return;
-          
-          // Handle different message types
-          if (message.type === 'OPERATION_STATUS_CHANGE') {
-            const payload = message.payload as any;
-            if (payload.plateId === this.plate.id) {
-              // Update the planned operation status if it exists
-              const plannedOp = this.plannedOperations.find(
-                op => op.wellPosition === payload.wellPosition && 
-                     op.reagentId === payload.reagentId
-              );
-              if (plannedOp) {
-                if (payload.status === 'COMPLETED') {
-                  plannedOp.status = PlannedOperationStatus.COMPLETED;
-                } else if (payload.status === 'FAILED') {
-                  plannedOp.status = PlannedOperationStatus.FAILED;
-                  plannedOp.error = payload.errorMessage || 'Operation failed';
-                }
-              }
-              
-              // Update well volume directly from the WebSocket payload
-              if (payload.wellVolume !== undefined && payload.wellPosition) {
-                const well = this.wells.find(w => w.position === payload.wellPosition);
-                if (well) {
-                  well.volume = payload.wellVolume;
-                  console.log(`Updated well ${payload.wellPosition} volume to ${payload.wellVolume}`);
-                }
-              }
-            }
-          } else if (message.type === 'BATCH_EXECUTION_COMPLETED') {
-            const payload = message.payload as any;
-            if (payload.plateId === this.plate.id) {
-              console.log('Batch execution completed');
-              this.isExecutingBatch = false;
-              // Final reload to ensure all changes are reflected
-              this.loadWells(this.plate.id);
-            }
+        next: (frame) => {
+          if (this.lastSeq !== null && frame.prevSeq > this.lastSeq) {
+            // Frames were missed (e.g. after a reconnect); catch up before applying newer events
+            this.resync(frame);
+            return;
           }
+          this.applyEvents(frame.events);
+          this.lastSeq = Math.max(this.lastSeq ?? 0, frame.toSeq);
         },
         error: (err) => {
           console.error('WebSocket error:', err);
@@ -147,6 +147,66 @@ export class PlateDetailComponent implements OnInit, OnDestroy {
       });
   }
 
+  private resync(frame: DispenseEventFrame): void {
+    const since = this.lastSeq as number;
+    this.dispenseService.getEventsSince(since, this.plate?.barcode).subscribe({
+      next: (missed) => {
+        this.applyEvents(missed.events);
+        this.lastSeq = Math.max(this.lastSeq ?? 0, missed.toSeq, frame.toSeq);
+      },
+      error: (err) => {
+        // The missed events are no longer buffered on the server; reload the current state instead
+        console.warn('Event resync failed, refreshing volumes:', err);
+        this.lastSeq = frame.toSeq;
+        if (this.plate?.id) {
+          this.refreshVolumes(this.plate.id);
+        }
+      }
+    });
+  }
+
+  private applyEvents(events: DispenseEvent[]): void {
+    if (!this.plate?.id) return;
+
+    for (const event of events) {
+      // Delivery is at least once: an event published again (e.g. after a server restart) keeps its sequence
+      // number and is skipped here
+      if (event.plateId !== this.plate.id || (this.lastSeq !== null && event.seq <= this.lastSeq)) {
+        continue;
+      }
+
+      if (event.opId === undefined) {
+        if (event.status === 'COMPLETED' || event.status === 'FAILED' || event.status === 'CANCELLED') {
+          this.isExecutingBatch = false;
+          // Final refresh to ensure all changes are reflected
+          this.refreshVolumes(this.plate.id);
+        }
+        continue;
+      }
+
+      // Update the first executing planned operation of the well, if any
+      const plannedOp = this.plannedOperations.find(
+        op => op.wellPosition === event.well && op.status === PlannedOperationStatus.EXECUTING
+      );
+      if (plannedOp) {
+        if (event.status === 'COMPLETED') {
+          plannedOp.status = PlannedOperationStatus.COMPLETED;
+        } else if (event.status === 'FAILED') {
+          plannedOp.status = PlannedOperationStatus.FAILED;
+          plannedOp.error = event.error || 'Operation failed';
+        }
+      }
+
+      // Update well volume directly from the event
+      if (event.wellVolume !== undefined && event.well) {
+        const well = this.wells.find(w => w.position === event.well);
+        if (well) {
+          well.volume = event.wellVolume;
+        }
+      }
+    }
+  }
+
   onWellSelected(well: Well): void {
     this.selectedWell = well;
     this.showDispenseDialog = true;
@@ -193,7 +253,7 @@ export class PlateDetailComponent implements OnInit, OnDestroy {
     }).subscribe({
       next: () => {
         console.log('Batch execution request sent successfully');
-        // Note: isExecutingBatch will be set to false when BATCH_EXECUTION_COMPLETED is received
+        // Note: isExecutingBatch will be set to false when the batch completion event is received
       },
       error: (err) => {
         console.error('Batch execution error:', err);
@@ -1,4 +1,4 @@
-import { Component, Input, Output, EventEmitter } from '@angular/core';
+import { Component, Input, Output, EventEmitter, OnChanges, SimpleChanges } from '@angular/core';
 import { Plate, Well } from '../../../../shared/models/plate.model';
 import { PlannedOperation } from '../../../../shared/models/planned-operation.model';
 
@@ -7,17 +7,38 @@ import { PlannedOperation } from '../../../../shared/models/planned-operation.mo
   templateUrl: './well-grid.component.html',
   styleUrls: ['./well-grid.component.css']
 })
-export class WellGridComponent {
+export class WellGridComponent implements OnChanges {
   @Input() plate: Plate | null = null;
   @Input() wells: Well[] = [];
   @Input() plannedOperations: PlannedOperation[] = [];
   @Output() wellSelected = new EventEmitter<Well>();
 
-  rowLabels: string[] = ['A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M', 'N', 'O', 'P'];
+  rowLabels: string[] = WellGridComponent.buildRowLabels(8);
+
+  // Lookups by position; 1536-well plates make linear scans per cell too slow to render
+  private wellsByPosition = new Map<string, Well>();
+  private plannedPositions = new Set<string>();
+
+  ngOnChanges(changes: SimpleChanges): void {
+    if (changes['plate']) {
+      this.rowLabels = WellGridComponent.buildRowLabels(this.plate?.rows || 8);
+    }
+    if (changes['wells']) {
+      this.wellsByPosition = new Map(this.wells.map(w => [w.position, w] as [string, Well]));
+    }
+    if (changes['plannedOperations']) {
+      this.plannedPositions = new Set(this.plannedOperations.map(op => op.wellPosition));
+    }
+  }
+
+  // A..Z, then AA..AZ for 1536-well plates (32 rows)
+  private static buildRowLabels(rows: number): string[] {
+    return Array(rows).fill(0).map((_, i) =>
+      i < 26 ? String.fromCharCode(65 + i) : 'A' + String.fromCharCode(65 + i - 26));
+  }
 
   getWell(rowIndex: number, colIndex: number): Well | undefined {
-    const position = this.getWellPosition(rowIndex, colIndex);
-    return this.wells.find(w => w.position === position);
+    return this.wellsByPosition.get(this.getWellPosition(rowIndex, colIndex));
   }
 
   getWellPosition(rowIndex: number, colIndex: number): string {
@@ -61,7 +82,7 @@ export class WellGridComponent {
   }
 
   hasPlannedOperation(position: string): boolean {
-    return this.plannedOperations.some(op => op.wellPosition === position);
+    return this.plannedPositions.has(position);
   }
 
   getWellBorderClass(well: Well | undefined, position: string): string {
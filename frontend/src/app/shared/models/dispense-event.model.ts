@@ -0,0 +1,20 @@
+// Compact status change of an operation (opId set) or a batch (only batchId set)
+export interface DispenseEvent {
+  seq: number;
+  opId?: number;
+  batchId?: number;
+  plateId: number;
+  well?: string;
+  status: string;
+  wellVolume?: number;
+  error?: string;
+}
+
+// Events up to toSeq; repeated updates of the same operation or batch are coalesced to the latest.
+// prevSeq is the toSeq of the previous frame on the same topic, so a larger value than the last one
+// applied means a frame was missed.
+export interface DispenseEventFrame {
+  prevSeq: number;
+  toSeq: number;
+  events: DispenseEvent[];
+}
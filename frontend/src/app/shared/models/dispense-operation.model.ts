@@ -39,20 +39,65 @@ export interface DispenseBatch {
   createdDate: string;
   executionStartedDate?: string;
   completedDate?: string;
+  progressCursor?: number;
   operationCount: number;
   operations?: DispenseOperation[];
 }
 
+export interface ReagentVolume {
+  reagentId: number;
+  reagentName: string;
+  totalVolume: number;
+}
+
+export interface BatchSummary {
+  id: number;
+  plateId: number;
+  plateBarcode: string;
+  status: BatchStatus;
+  createdDate: string;
+  executionStartedDate?: string;
+  completedDate?: string;
+  progressCursor: number;
+  operationCount: number;
+  operationCountsByStatus: { [status: string]: number };
+  totalVolume: number;
+  reagentVolumes: ReagentVolume[];
+  operationsUrl: string;
+}
+
+export interface BatchPlanResult {
+  batchId: number;
+  operationsAdded: number;
+  operationCount: number;
+  reagentDemand: { [reagentId: string]: number };
+}
+
 export enum OperationStatus {
   PENDING = 'PENDING',
   IN_PROGRESS = 'IN_PROGRESS',
   COMPLETED = 'COMPLETED',
-  FAILED = 'FAILED'
+  FAILED = 'FAILED',
+  CANCELLED = 'CANCELLED'
 }
 
 export enum BatchStatus {
   PLANNED = 'PLANNED',
   EXECUTING = 'EXECUTING',
   COMPLETED = 'COMPLETED',
-  FAILED = 'FAILED'
+  FAILED = 'FAILED',
+  CANCELLED = 'CANCELLED'
+}
+
+export interface OperationHistoryFilter {
+  plateBarcode?: string;
+  status?: OperationStatus;
+  reagentId?: number;
+  from?: string;
+  to?: string;
+}
+
+export interface OperationHistoryPage {
+  operations: DispenseOperation[];
+  nextCursor: number | null;
 }
@@ -15,3 +15,11 @@ export interface Well {
   volume?: number;
   maxVolume: number;
 }
+
+// Dense well volumes, indexed by row * columns + column; NaN where the plate has no well
+export interface PlateSnapshot {
+  rows: number;
+  columns: number;
+  volumes: Float32Array;
+  maxVolume?: number;
+}
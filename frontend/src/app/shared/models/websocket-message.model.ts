@@ -1,5 +0,0 @@
-export interface WebSocketMessage<T = any> {
-  type: string;
-  payload: T;
-  timestamp: string;
-}